@@ -1,6 +1,7 @@
 package io.smartcat.berserker.cassandra.worker;
 
 import java.net.InetSocketAddress;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -11,14 +12,14 @@ import com.datastax.driver.core.Cluster.Builder;
 import com.google.common.util.concurrent.FutureCallback;
 import com.google.common.util.concurrent.Futures;
 import com.google.common.util.concurrent.MoreExecutors;
-import io.smartcat.berserker.api.Worker;
+import io.smartcat.berserker.api.BatchWorker;
 import io.smartcat.berserker.cassandra.configuration.PreparedStatement;
 
 /**
  * Worker that executes CQL statements on provided Cassandra connection points. It uses DataStax's java driver
  * internally.
  */
-public class CassandraWorker implements Worker<Map<String, Object>> {
+public class CassandraWorker implements BatchWorker<Map<String, Object>> {
 
     private static final String QUERY = "query";
     private static final String VALUES = "values";
@@ -96,9 +97,55 @@ public class CassandraWorker implements Worker<Map<String, Object>> {
      * </ul>
      * Depending on the map content, appropriate option will be executed (either query or prepared statement).
      */
-    @SuppressWarnings("unchecked")
     @Override
     public void accept(Map<String, Object> queryMetadata, Runnable commitSuccess, Runnable commitFailure) {
+        ResultSetFuture future = execute(queryMetadata, commitSuccess, commitFailure);
+        if (!async) {
+            try {
+                future.get();
+            } catch (Exception e) {
+                throw new RuntimeException(e);
+            }
+
+        }
+    }
+
+    /**
+     * Executes all statements asynchronously and, if worker is synchronous, waits for all of them to complete, so
+     * statements within the batch are executed concurrently. Statements are not grouped into Cassandra batch
+     * statement. Query metadata is the same as for {@link #accept(Map, Runnable, Runnable)}. Invalid query metadata
+     * fails only corresponding statement.
+     */
+    @Override
+    public void accept(List<Map<String, Object>> queriesMetadata, List<Runnable> commitSuccesses,
+            List<Runnable> commitFailures) {
+        List<ResultSetFuture> futures = new ArrayList<>(queriesMetadata.size());
+        RuntimeException error = null;
+        for (int i = 0; i < queriesMetadata.size(); i++) {
+            try {
+                futures.add(execute(queriesMetadata.get(i), commitSuccesses.get(i), commitFailures.get(i)));
+            } catch (RuntimeException e) {
+                commitFailures.get(i).run();
+                error = error == null ? e : error;
+            }
+        }
+        if (!async) {
+            for (ResultSetFuture future : futures) {
+                try {
+                    future.get();
+                } catch (Exception e) {
+                    error = error == null ? new RuntimeException(e) : error;
+                }
+            }
+        }
+        if (error != null) {
+            throw error;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private ResultSetFuture execute(Map<String, Object> queryMetadata, Runnable commitSuccess,
+            Runnable commitFailure) {
         ConsistencyLevel consistencyLevel = getConsistencyLevel(queryMetadata);
         String statement = (String) queryMetadata.get(QUERY);
         Statement toExecute;
@@ -134,14 +181,7 @@ public class CassandraWorker implements Worker<Map<String, Object>> {
                 commitFailure.run();
             }
         }, MoreExecutors.directExecutor());
-        if (!async) {
-            try {
-                future.get();
-            } catch (Exception e) {
-                throw new RuntimeException(e);
-            }
-
-        }
+        return future;
     }
 
     private ConsistencyLevel getConsistencyLevel(Map<String, Object> queryMetadata) {
@@ -0,0 +1,23 @@
+package io.smartcat.berserker.api;
+
+import java.util.List;
+
+/**
+ * Worker which, besides single messages, can process several messages at once, amortizing per call overhead such as
+ * network round trips. Workers which do not implement this interface are always invoked with single message.
+ *
+ * @param <T> Type of data workerConfiguration accepts.
+ */
+public interface BatchWorker<T> extends Worker<T> {
+
+    /**
+     * Accepts batch of messages of type {@code <T>} and processes them. For each message, exactly one of the callbacks
+     * at the same index should be invoked, once. Lists are reused by the caller and should not be retained after this
+     * method returns, while callbacks may be invoked afterwards.
+     *
+     * @param messages Messages which will be processed.
+     * @param commitSuccesses Callbacks to be invoked when processing of message at the same index is successful.
+     * @param commitFailures Callbacks to be invoked in case of a failure of message at the same index.
+     */
+    void accept(List<T> messages, List<Runnable> commitSuccesses, List<Runnable> commitFailures);
+}
@@ -8,7 +8,8 @@ package io.smartcat.berserker.api;
 public interface Worker<T> {
 
     /**
-     * Accepts message of type {@code <T>} and processes it.
+     * Accepts message of type {@code <T>} and processes it. Exactly one of the callbacks should be invoked, once, and
+     * callbacks should not be retained after that since they may be reused for other messages.
      *
      * @param message Message which will be processed.
      * @param commitSuccess Callback to be invoked when processing is successful.
@@ -3,6 +3,9 @@ package io.smartcat.berserker.configuration;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -54,4 +57,31 @@ public class ConfigurationHelper {
         LOGGER.info("'" + name + "' set to value: " + value);
         return value;
     }
+
+    /**
+     * Copies configuration value, together with maps and lists nested within it, so that copy can be modified without
+     * affecting the original. Other values are shared, since those loaded from YAML are immutable.
+     *
+     * @param value Value to copy.
+     * @param <T> Type of the value.
+     * @return Copy of the value.
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> T deepCopy(T value) {
+        if (value instanceof Map) {
+            Map<Object, Object> result = new LinkedHashMap<>();
+            for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+                result.put(entry.getKey(), deepCopy(entry.getValue()));
+            }
+            return (T) result;
+        }
+        if (value instanceof List) {
+            List<Object> result = new ArrayList<>();
+            for (Object element : (List<?>) value) {
+                result.add(deepCopy(element));
+            }
+            return (T) result;
+        }
+        return value;
+    }
 }
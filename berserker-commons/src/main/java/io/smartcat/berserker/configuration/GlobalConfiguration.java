@@ -1,5 +1,6 @@
 package io.smartcat.berserker.configuration;
 
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -27,6 +28,12 @@ public class GlobalConfiguration {
      */
     public Map<String, Object> metricsReporterConfiguration;
 
+    /**
+     * Configurations of additional {@link com.codahale.metrics.Reporter Reporter}s which run at the same time. Each
+     * configuration contains <code>name</code> of the reporter besides configuration specific to that reporter.
+     */
+    public List<Map<String, Object>> metricsReporterConfigurations;
+
     /**
      * Configuration explaining which {@link DataSourceConfiguration}, {@link WorkerConfiguration} and
      * {@link RateGeneratorConfiguration} implementations will be used.
@@ -22,7 +22,8 @@ public class LoadGeneratorConfiguration {
     public String workerConfigurationName;
 
     /**
-     * Name of {@link com.codahale.metrics.Reporter Reporter} configuration.
+     * Name of {@link com.codahale.metrics.Reporter Reporter} configuration. Optional, additional reporters can be
+     * configured within <code>metrics-reporter-configurations</code> section.
      */
     public String metricsReporterConfigurationName;
 
@@ -41,6 +42,130 @@ public class LoadGeneratorConfiguration {
      */
     public int queueCapacity;
 
+    /**
+     * Number of threads Load Generator uses to dispatch work, each with its own data source instance. Optional, values
+     * lower than 1 are treated as 1.
+     */
+    public int dispatchThreadCount;
+
+    /**
+     * Number of threads prefetching data for each dispatch thread into a buffer, each with its own data source
+     * instance, so data is not generated by dispatch threads. Optional, values lower than 1 mean data is not
+     * prefetched.
+     */
+    public int prefetchThreadCount;
+
+    /**
+     * Number of data prefetched for each dispatch thread, applicable only when <code>prefetch-thread-count</code> is
+     * set. Optional, values lower than 1 mean default of 1024.
+     */
+    public int prefetchBufferSize;
+
+    /**
+     * Number of records generated up front and replayed cyclically from off-heap memory, so no data is generated while
+     * load is generated. Corpus is shared by all dispatch threads, each replaying it from a different offset. Records
+     * must be built out of maps, lists, strings, numbers, booleans, characters, UUIDs, dates and nulls. Optional,
+     * values lower than 1 mean data is generated as load is generated.
+     */
+    public int corpusSize;
+
+    /**
+     * Strategy dispatch threads use to wait for the next impulse. One of <code>busy-spin</code>,
+     * <code>spin-yield</code> and <code>spin-park</code>. Optional, defaults to <code>busy-spin</code>.
+     */
+    public String pacingStrategy;
+
+    /**
+     * Determines how impulses are spread over time. One of <code>uniform</code>, <code>poisson</code> and
+     * <code>on-off</code>. Optional, defaults to <code>uniform</code>.
+     */
+    public String arrivalProcess;
+
+    /**
+     * Seed of random number generators used by arrival process and think time, each shard uses seed increased by its
+     * index. Optional, defaults to 0.
+     */
+    public long arrivalProcessSeed;
+
+    /**
+     * Mean duration in milliseconds of periods during which <code>on-off</code> arrival process dispatches impulses.
+     * Optional, values lower than 1 mean default of 100 milliseconds.
+     */
+    public long burstOnDuration;
+
+    /**
+     * Mean duration in milliseconds of periods during which <code>on-off</code> arrival process does not dispatch
+     * impulses. Optional, values lower than 1 mean default of 900 milliseconds.
+     */
+    public long burstOffDuration;
+
+    /**
+     * Determines what drives the load. One of <code>open</code>, where rate generator provides rate of messages, and
+     * <code>closed</code>, where rate generator provides number of virtual users, each sending the next message once
+     * the previous one is done with and think time passed. Optional, defaults to <code>open</code>.
+     */
+    public String loadModel;
+
+    /**
+     * Mean think time in milliseconds virtual users of <code>closed</code> load model pause for between messages.
+     * Optional, defaults to 0.
+     */
+    public long thinkTime;
+
+    /**
+     * Distribution of think time around its mean. One of <code>constant</code>, <code>uniform</code> and
+     * <code>exponential</code>. Optional, defaults to <code>constant</code>.
+     */
+    public String thinkTimeDistribution;
+
+    /**
+     * Determines whether worker threads share one queue or each thread has its own queue. One of <code>shared</code>,
+     * <code>round-robin</code> and <code>least-loaded</code>. Optional, defaults to <code>shared</code>.
+     */
+    public String queueMode;
+
+    /**
+     * Maximum number of messages passed to worker at once, applicable only to workers supporting batches. Optional,
+     * values lower than 1 are treated as 1.
+     */
+    public int batchSize;
+
+    /**
+     * Maximum number of messages passed to worker and not yet committed. Optional, values lower than 1 mean there is no
+     * limit.
+     */
+    public int maxInFlight;
+
+    /**
+     * Number of significant decimal digits to which latencies are recorded in histograms, between 1 and 5. Optional,
+     * 0 means default of 3 digits.
+     */
+    public int histogramSignificantDigits;
+
+    /**
+     * Highest latency in nanoseconds which can be recorded in histograms, higher latencies are recorded as this value.
+     * Optional, values lower than 1 mean default of one hour.
+     */
+    public long histogramHighestTrackableValue;
+
+    /**
+     * Interval in milliseconds histogram snapshots cover. Optional, values lower than 1 mean that snapshots cover whole
+     * run.
+     */
+    public long histogramSnapshotInterval;
+
+    /**
+     * Path of the file to which summary of the run is written in JSON format once the run is over. Optional, when not
+     * set summary is not written.
+     */
+    public String summaryPath;
+
+    /**
+     * Duration in seconds of segments summary is additionally split into. Optional, values lower than 1 mean that
+     * summary is not split into segments.
+     */
+    public long summarySegmentDuration;
+
     /**
      * Validates this configuration.
      *
@@ -52,6 +177,68 @@ public class LoadGeneratorConfiguration {
         validateProperty(workerConfigurationName, "worker-configuration-name");
         validateProperty(threadCount, "thread-count");
         validateProperty(queueCapacity, "queue-capacity");
+        validatePacingStrategy();
+        validateArrivalProcess();
+        validateLoadModel();
+        validateQueueMode();
+        validateHistogramSignificantDigits();
+    }
+
+    private void validatePacingStrategy() throws ConfigurationException {
+        if (pacingStrategy == null || pacingStrategy.isEmpty()) {
+            return;
+        }
+        if (!"busy-spin".equals(pacingStrategy) && !"spin-yield".equals(pacingStrategy)
+                && !"spin-park".equals(pacingStrategy)) {
+            throw new ConfigurationException("Property: 'pacing-strategy' has unsupported value: '" + pacingStrategy
+                    + "'. Supported values are: 'busy-spin', 'spin-yield' and 'spin-park'.");
+        }
+    }
+
+    private void validateArrivalProcess() throws ConfigurationException {
+        if (arrivalProcess == null || arrivalProcess.isEmpty()) {
+            return;
+        }
+        if (!"uniform".equals(arrivalProcess) && !"poisson".equals(arrivalProcess)
+                && !"on-off".equals(arrivalProcess)) {
+            throw new ConfigurationException("Property: 'arrival-process' has unsupported value: '" + arrivalProcess
+                    + "'. Supported values are: 'uniform', 'poisson' and 'on-off'.");
+        }
+    }
+
+    private void validateLoadModel() throws ConfigurationException {
+        if (loadModel != null && !loadModel.isEmpty() && !"open".equals(loadModel) && !"closed".equals(loadModel)) {
+            throw new ConfigurationException("Property: 'load-model' has unsupported value: '" + loadModel
+                    + "'. Supported values are: 'open' and 'closed'.");
+        }
+        if (thinkTime < 0) {
+            throw new ConfigurationException("Property: 'think-time' must not be negative number.");
+        }
+        if (thinkTimeDistribution == null || thinkTimeDistribution.isEmpty()) {
+            return;
+        }
+        if (!"constant".equals(thinkTimeDistribution) && !"uniform".equals(thinkTimeDistribution)
+                && !"exponential".equals(thinkTimeDistribution)) {
+            throw new ConfigurationException("Property: 'think-time-distribution' has unsupported value: '"
+                    + thinkTimeDistribution + "'. Supported values are: 'constant', 'uniform' and 'exponential'.");
+        }
+    }
+
+    private void validateQueueMode() throws ConfigurationException {
+        if (queueMode == null || queueMode.isEmpty()) {
+            return;
+        }
+        if (!"shared".equals(queueMode) && !"round-robin".equals(queueMode) && !"least-loaded".equals(queueMode)) {
+            throw new ConfigurationException("Property: 'queue-mode' has unsupported value: '" + queueMode
+                    + "'. Supported values are: 'shared', 'round-robin' and 'least-loaded'.");
+        }
+    }
+
+    private void validateHistogramSignificantDigits() throws ConfigurationException {
+        if (histogramSignificantDigits < 0 || histogramSignificantDigits > 5) {
+            throw new ConfigurationException("Property: 'histogram-significant-digits' has unsupported value: '"
+                    + histogramSignificantDigits + "'. It needs to be between 1 and 5.");
+        }
     }
 
     private void validateProperty(int property, String propertyName) throws ConfigurationException {
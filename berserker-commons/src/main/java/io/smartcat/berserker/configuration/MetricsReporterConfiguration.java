@@ -3,6 +3,7 @@ package io.smartcat.berserker.configuration;
 import java.util.Map;
 
 import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Reporter;
 
 /**
  * Creates and starts {@link com.codahale.metrics.Reporter Reporter}. Each {@link com.codahale.metrics.Reporter
@@ -16,6 +17,7 @@ public interface MetricsReporterConfiguration extends BaseConfiguration {
      *
      * @param metricRegistry Metric registry for which to create and start reporter.
      * @param configuration Configuration specific to metrics reporter it should construct.
+     * @return Started reporter, which is to be closed once it is not needed anymore.
      */
-    void createAndStartReporter(MetricRegistry metricRegistry, Map<String, Object> configuration);
+    Reporter createAndStartReporter(MetricRegistry metricRegistry, Map<String, Object> configuration);
 }
@@ -0,0 +1,36 @@
+package io.smartcat.berserker;
+
+/**
+ * Consumer which notifies the caller once it is done with the data, either because processing of the data was
+ * committed or because data was dropped. Used by {@link VirtualUserLoadGenerator}, whose virtual users wait for the
+ * previous data to be done with before they dispatch the next one.
+ *
+ * @param <T> Type of data this consumer accepts.
+ */
+@FunctionalInterface
+public interface CallbackConsumer<T> extends ScheduledConsumer<T> {
+
+    /**
+     * Accepts data which was intended to be dispatched at <code>intendedTimeInNanos</code> and invokes
+     * <code>onDone</code>, unless it is <code>null</code>, exactly once, when consumer is done with it.
+     *
+     * @param data Data to be consumed.
+     * @param intendedTimeInNanos Time in nanoseconds, as returned by {@link System#nanoTime()}, at which data was
+     *            scheduled to be dispatched.
+     * @param onDone Callback invoked once consumer is done with the data, <code>null</code> means no callback. It may
+     *            be invoked from any thread, including the one invoking this method, so it should return quickly.
+     */
+    void accept(T data, long intendedTimeInNanos, Runnable onDone);
+
+    /**
+     * Accepts data which was intended to be dispatched at <code>intendedTimeInNanos</code>, without callback.
+     *
+     * @param data Data to be consumed.
+     * @param intendedTimeInNanos Time in nanoseconds, as returned by {@link System#nanoTime()}, at which data was
+     *            scheduled to be dispatched.
+     */
+    @Override
+    default void accept(T data, long intendedTimeInNanos) {
+        accept(data, intendedTimeInNanos, null);
+    }
+}
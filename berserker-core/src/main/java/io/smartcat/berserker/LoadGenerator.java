@@ -1,17 +1,61 @@
 package io.smartcat.berserker;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
 import java.util.function.Consumer;
+import java.util.function.IntFunction;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Histogram;
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
+
 import io.smartcat.berserker.api.DataSource;
 import io.smartcat.berserker.api.RateGenerator;
+import io.smartcat.berserker.arrival.ArrivalProcess;
+import io.smartcat.berserker.metrics.HdrHistogramReservoir;
+import io.smartcat.berserker.metrics.ReservoirHistogram;
+import io.smartcat.berserker.metrics.StripedMeter;
+import io.smartcat.berserker.pacing.BusySpinPacingStrategy;
+import io.smartcat.berserker.pacing.PacingStrategy;
 
 /**
  * Load generator used to execute work tasks with data from provided data source.
+ * <p>
+ * Load generator can dispatch work from several threads, called shards. Each shard has its own data source and
+ * dispatches <code>1/N</code> of the rate provided by rate generator, where <code>N</code> is the number of shards.
+ * Termination is shared among shards, when one shard terminates, all shards terminate.
+ * </p>
+ * <p>
+ * By default, impulses are spread evenly over time. When arrival process factory is provided, each shard creates its
+ * own {@link ArrivalProcess} which determines time between consecutive impulses, at mean rate provided by rate
+ * generator, for example {@link io.smartcat.berserker.arrival.PoissonArrivalProcess PoissonArrivalProcess}. When
+ * rate changes while shard waits for the next impulse, remaining wait is scaled by ratio of the previous and the
+ * current rate.
+ * </p>
+ * <p>
+ * While no impulse is due, dispatch threads wait using provided {@link PacingStrategy}. Lateness of each dispatch
+ * pass relative to the time its first impulse was due is recorded within <code>schedulingJitter</code> histogram,
+ * backed by {@link HdrHistogramReservoir} so that shards do not contend while recording. Number of impulses requested
+ * by rate generator is counted within <code>requestedThroughput</code> meter.
+ * </p>
+ * <p>
+ * To tell whether dispatching keeps up with rate generator, current rate provided by rate generator is exposed through
+ * <code>targetRate</code> gauge, number of impulses actually dispatched to worker is counted within
+ * <code>dispatchedThroughput</code> meter and number of impulses dispatched by each pass which dispatched any is
+ * recorded within <code>impulsesPerPass</code> histogram. <code>scheduleLag</code> gauge shows, in nanoseconds, how far
+ * the time up to which impulses were dispatched trails current time, for the shard trailing the most. When dispatch
+ * threads keep up, lag stays around one impulse interval and impulses per pass stay low. Lag which keeps growing means
+ * that dispatch threads are saturated and load generator delivers less than requested.
+ * </p>
  *
  * @param <T> Type of data which will be used.
  */
@@ -20,10 +64,28 @@ public class LoadGenerator<T> {
     private static final Logger LOGGER = LoggerFactory.getLogger(LoadGenerator.class);
     private static final long NANOS_IN_SECOND = TimeUnit.SECONDS.toNanos(1);
     private static final long TICK_PERIOD_IN_NANOS = 1000;
+    private static final long MAX_IDLE_IN_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+    private static final String DEFAULT_METRICS_PREFIX = "io.smartcat.berserker";
+    private static final String SCHEDULING_JITTER = "schedulingJitter";
+    private static final String REQUESTED_THROUGHPUT = "requestedThroughput";
+    private static final String DISPATCHED_THROUGHPUT = "dispatchedThroughput";
+    private static final String IMPULSES_PER_PASS = "impulsesPerPass";
+    private static final String TARGET_RATE = "targetRate";
+    private static final String SCHEDULE_LAG = "scheduleLag";
+    private static final long NOT_RUNNING = Long.MIN_VALUE;
 
-    private final DataSource<T> dataSource;
+    private final List<DataSource<T>> dataSources;
     private final RateGenerator rateGenerator;
-    private final Consumer<T> worker;
+    private final ScheduledConsumer<T> worker;
+    private final PacingStrategy pacingStrategy;
+    private final IntFunction<ArrivalProcess> arrivalProcessFactory;
+    private final MetricRegistry metricRegistry;
+    private final Histogram schedulingJitter;
+    private final Meter requestedThroughput;
+    private final Meter dispatchedThroughput;
+    private final Histogram impulsesPerPass;
+    private final AtomicLong targetRateBits = new AtomicLong(Double.doubleToRawLongBits(0));
+    private final AtomicLongArray scheduledUpTo;
 
     private AtomicBoolean terminate = new AtomicBoolean(false);
 
@@ -34,16 +96,118 @@ public class LoadGenerator<T> {
      * @param dataSource Data source from which load generator polls data.
      * @param rateGenerator Rate generator which generates rate based on time point.
      * @param worker Worker which accepts data polled from <code>dataSource</code> at rate provided by
-     *            <code>rateGenerator</code>.
+     *            <code>rateGenerator</code>. If worker is {@link ScheduledConsumer}, it will also receive time at which
+     *            each data was intended to be dispatched.
      */
     public LoadGenerator(DataSource<T> dataSource, RateGenerator rateGenerator, Consumer<T> worker) {
-        this.dataSource = dataSource;
+        this(Collections.singletonList(dataSource), rateGenerator, worker);
+    }
+
+    /**
+     * Constructs sharded load generator with specified <code>dataSources</code>, <code>rateGenerator</code> and
+     * <code>worker</code>. Each data source is polled from its own thread, at <code>1/N</code> of the rate provided by
+     * <code>rateGenerator</code>, where <code>N</code> is the number of data sources.
+     *
+     * @param dataSources Data sources from which load generator polls data, one per shard. Must not be empty and each
+     *            data source must be a separate instance.
+     * @param rateGenerator Rate generator which generates rate based on time point.
+     * @param worker Worker which accepts data polled from <code>dataSources</code> at rate provided by
+     *            <code>rateGenerator</code>. Worker is invoked concurrently from all shards, so it needs to be thread
+     *            safe. If worker is {@link ScheduledConsumer}, it will also receive time at which each data was
+     *            intended to be dispatched.
+     */
+    public LoadGenerator(List<DataSource<T>> dataSources, RateGenerator rateGenerator, Consumer<T> worker) {
+        this(dataSources, rateGenerator, worker, new BusySpinPacingStrategy());
+    }
+
+    /**
+     * Constructs sharded load generator with specified <code>dataSources</code>, <code>rateGenerator</code>,
+     * <code>worker</code> and <code>pacingStrategy</code>. <code>metricsPrefix</code> is set to
+     * <code>io.smartcat.berserker</code>.
+     *
+     * @param dataSources Data sources from which load generator polls data, one per shard. Must not be empty and each
+     *            data source must be a separate instance.
+     * @param rateGenerator Rate generator which generates rate based on time point.
+     * @param worker Worker which accepts data polled from <code>dataSources</code> at rate provided by
+     *            <code>rateGenerator</code>. Worker is invoked concurrently from all shards, so it needs to be thread
+     *            safe. If worker is {@link ScheduledConsumer}, it will also receive time at which each data was
+     *            intended to be dispatched.
+     * @param pacingStrategy Strategy used by dispatch threads to wait while no impulse is due.
+     */
+    public LoadGenerator(List<DataSource<T>> dataSources, RateGenerator rateGenerator, Consumer<T> worker,
+            PacingStrategy pacingStrategy) {
+        this(dataSources, rateGenerator, worker, pacingStrategy, DEFAULT_METRICS_PREFIX);
+    }
+
+    /**
+     * Constructs sharded load generator with specified <code>dataSources</code>, <code>rateGenerator</code>,
+     * <code>worker</code>, <code>pacingStrategy</code> and <code>metricsPrefix</code>.
+     *
+     * @param dataSources Data sources from which load generator polls data, one per shard. Must not be empty and each
+     *            data source must be a separate instance.
+     * @param rateGenerator Rate generator which generates rate based on time point.
+     * @param worker Worker which accepts data polled from <code>dataSources</code> at rate provided by
+     *            <code>rateGenerator</code>. Worker is invoked concurrently from all shards, so it needs to be thread
+     *            safe. If worker is {@link ScheduledConsumer}, it will also receive time at which each data was
+     *            intended to be dispatched.
+     * @param pacingStrategy Strategy used by dispatch threads to wait while no impulse is due.
+     * @param metricsPrefix Prefix for metrics.
+     */
+    public LoadGenerator(List<DataSource<T>> dataSources, RateGenerator rateGenerator, Consumer<T> worker,
+            PacingStrategy pacingStrategy, String metricsPrefix) {
+        this(dataSources, rateGenerator, worker, pacingStrategy, metricsPrefix, null);
+    }
+
+    /**
+     * Constructs sharded load generator with specified <code>dataSources</code>, <code>rateGenerator</code>,
+     * <code>worker</code>, <code>pacingStrategy</code>, <code>metricsPrefix</code> and
+     * <code>arrivalProcessFactory</code>.
+     *
+     * @param dataSources Data sources from which load generator polls data, one per shard. Must not be empty and each
+     *            data source must be a separate instance.
+     * @param rateGenerator Rate generator which generates rate based on time point.
+     * @param worker Worker which accepts data polled from <code>dataSources</code> at rate provided by
+     *            <code>rateGenerator</code>. Worker is invoked concurrently from all shards, so it needs to be thread
+     *            safe. If worker is {@link ScheduledConsumer}, it will also receive time at which each data was
+     *            intended to be dispatched.
+     * @param pacingStrategy Strategy used by dispatch threads to wait while no impulse is due.
+     * @param metricsPrefix Prefix for metrics.
+     * @param arrivalProcessFactory Function creating arrival process of each shard out of shard index, starting from
+     *            0. When <code>null</code>, impulses are spread evenly.
+     */
+    public LoadGenerator(List<DataSource<T>> dataSources, RateGenerator rateGenerator, Consumer<T> worker,
+            PacingStrategy pacingStrategy, String metricsPrefix, IntFunction<ArrivalProcess> arrivalProcessFactory) {
+        if (dataSources == null || dataSources.isEmpty()) {
+            throw new IllegalArgumentException("Data sources cannot be null nor empty.");
+        }
+        if (pacingStrategy == null) {
+            throw new IllegalArgumentException("Pacing strategy cannot be null.");
+        }
+        this.dataSources = new ArrayList<>(dataSources);
         this.rateGenerator = rateGenerator;
-        this.worker = worker;
+        this.worker = toScheduledConsumer(worker);
+        this.pacingStrategy = pacingStrategy;
+        this.arrivalProcessFactory = arrivalProcessFactory;
+        this.metricRegistry = new MetricRegistry();
+        this.schedulingJitter = metricRegistry.histogram(name(metricsPrefix, SCHEDULING_JITTER),
+                () -> new ReservoirHistogram(new HdrHistogramReservoir()));
+        this.requestedThroughput = metricRegistry.meter(name(metricsPrefix, REQUESTED_THROUGHPUT), StripedMeter::new);
+        this.dispatchedThroughput = metricRegistry.meter(name(metricsPrefix, DISPATCHED_THROUGHPUT),
+                StripedMeter::new);
+        this.impulsesPerPass = metricRegistry.histogram(name(metricsPrefix, IMPULSES_PER_PASS),
+                () -> new ReservoirHistogram(new HdrHistogramReservoir()));
+        this.scheduledUpTo = new AtomicLongArray(dataSources.size());
+        for (int i = 0; i < dataSources.size(); i++) {
+            scheduledUpTo.set(i, NOT_RUNNING);
+        }
+        metricRegistry.register(name(metricsPrefix, TARGET_RATE),
+                (Gauge<Double>) () -> Double.longBitsToDouble(targetRateBits.get()));
+        metricRegistry.register(name(metricsPrefix, SCHEDULE_LAG), (Gauge<Long>) this::scheduleLag);
     }
 
     /**
-     * Runs load generator.
+     * Runs load generator. When load generator has more than one shard, additional shards are run in separate threads
+     * and this method returns once all shards are terminated.
      *
      * @throws IllegalStateException When run is attempted after load generator was terminated.
      */
@@ -52,29 +216,18 @@ public class LoadGenerator<T> {
             checkState();
             LOGGER.info("Load generator started.");
             long beginning = System.nanoTime();
-            long previous = beginning;
-            infiniteWhile: while (true) {
-                if (terminate.get()) {
-                    LOGGER.info("Termination signal detected. Terminating load generator...");
-                    break;
-                }
-                long now = System.nanoTime();
-                long fromBeginning = now - beginning;
-                long elapsed = now - previous;
-                double rate = rateGenerator.getRate(fromBeginning);
-                long normalizedRate = normalizeRate(elapsed, rate);
-                if (normalizedRate > 0) {
-                    previous += calculateConsumedTime(normalizedRate, rate);
-                }
-                for (int i = 0; i < normalizedRate; i++) {
-                    if (!dataSource.hasNext(fromBeginning)) {
-                        LOGGER.info("Reached end of data source. Terminating load generator...");
-                        terminate.set(true);
-                        break infiniteWhile;
-                    }
-                    T data = dataSource.getNext(fromBeginning);
-                    worker.accept(data);
-                }
+            List<Thread> shardThreads = new ArrayList<>();
+            for (int i = 1; i < dataSources.size(); i++) {
+                DataSource<T> dataSource = dataSources.get(i);
+                String threadName = "load-generator-shard-" + i;
+                int shard = i;
+                Thread thread = new Thread(() -> runShard(shard, dataSource, beginning), threadName);
+                thread.start();
+                shardThreads.add(thread);
+            }
+            runShard(0, dataSources.get(0), beginning);
+            for (Thread thread : shardThreads) {
+                thread.join();
             }
             LOGGER.info("Load generator terminated.");
         } catch (Exception e) {
@@ -90,6 +243,146 @@ public class LoadGenerator<T> {
         LOGGER.info("Termination signal sent.");
     }
 
+    /**
+     * Returns metric registry this load generator is using.
+     *
+     * @return Metric registry this load generator is using.
+     */
+    public MetricRegistry getMetricRegistry() {
+        return metricRegistry;
+    }
+
+    private void runShard(int shard, DataSource<T> dataSource, long beginning) {
+        try {
+            scheduledUpTo.set(shard, beginning);
+            if (arrivalProcessFactory == null) {
+                dispatchEvenly(shard, dataSource, beginning);
+            } else {
+                dispatchArrivals(shard, dataSource, beginning, arrivalProcessFactory.apply(shard));
+            }
+        } catch (Exception e) {
+            terminate.set(true);
+            LOGGER.error("Terminating load generator due to error. Error: ", e);
+        } finally {
+            scheduledUpTo.set(shard, NOT_RUNNING);
+        }
+    }
+
+    private void dispatchEvenly(int shard, DataSource<T> dataSource, long beginning) {
+        long previous = beginning;
+        while (!isTerminated()) {
+            long now = System.nanoTime();
+            long fromBeginning = now - beginning;
+            long elapsed = now - previous;
+            double rate = getShardRate(shard, fromBeginning);
+            long normalizedRate = normalizeRate(elapsed, rate);
+            long scheduledFrom = previous;
+            if (normalizedRate > 0) {
+                previous += calculateConsumedTime(normalizedRate, rate);
+                schedulingJitter.update(now - scheduledFrom - calculateConsumedTime(1, rate));
+                requestedThroughput.mark(normalizedRate);
+                impulsesPerPass.update(normalizedRate);
+                scheduledUpTo.lazySet(shard, previous);
+            } else {
+                pacingStrategy.idle(calculateNextDueTime(now, scheduledFrom, rate));
+            }
+            for (int i = 0; i < normalizedRate; i++) {
+                if (!dataSource.hasNext(fromBeginning)) {
+                    dispatchedThroughput.mark(i);
+                    terminateOnEndOfDataSource();
+                    return;
+                }
+                T data = dataSource.getNext(fromBeginning);
+                worker.accept(data, scheduledFrom + calculateConsumedTime(i + 1, rate));
+            }
+            if (normalizedRate > 0) {
+                dispatchedThroughput.mark(normalizedRate);
+            }
+        }
+    }
+
+    private void dispatchArrivals(int shard, DataSource<T> dataSource, long beginning, ArrivalProcess arrivalProcess) {
+        long next = NOT_RUNNING;
+        double drawnAtRate = 0;
+        while (!isTerminated()) {
+            long now = System.nanoTime();
+            long fromBeginning = now - beginning;
+            double rate = getShardRate(shard, fromBeginning);
+            if (rate <= 0) {
+                // there are no arrivals while rate is zero, next one is drawn once rate becomes positive
+                next = NOT_RUNNING;
+                scheduledUpTo.lazySet(shard, now);
+                pacingStrategy.idle(now + MAX_IDLE_IN_NANOS);
+                continue;
+            }
+            if (next == NOT_RUNNING) {
+                next = now + arrivalProcess.nextInterArrivalTime(rate);
+                drawnAtRate = rate;
+            }
+            if (next > now) {
+                if (rate != drawnAtRate) {
+                    // remaining time to the next arrival drawn at another rate is scaled to the current rate, so a
+                    // long gap drawn while rate was low does not stall dispatch once rate grows
+                    next = now + Math.round((next - now) * (drawnAtRate / rate));
+                    drawnAtRate = rate;
+                }
+                pacingStrategy.idle(Math.min(next, now + MAX_IDLE_IN_NANOS));
+                continue;
+            }
+            long scheduledFrom = next;
+            long arrivals = 0;
+            while (next <= now) {
+                if (!dataSource.hasNext(fromBeginning)) {
+                    dispatchedThroughput.mark(arrivals);
+                    terminateOnEndOfDataSource();
+                    return;
+                }
+                worker.accept(dataSource.getNext(fromBeginning), next);
+                arrivals++;
+                next += arrivalProcess.nextInterArrivalTime(rate);
+            }
+            drawnAtRate = rate;
+            schedulingJitter.update(now - scheduledFrom);
+            requestedThroughput.mark(arrivals);
+            impulsesPerPass.update(arrivals);
+            scheduledUpTo.lazySet(shard, next);
+            dispatchedThroughput.mark(arrivals);
+        }
+    }
+
+    private boolean isTerminated() {
+        if (terminate.get()) {
+            LOGGER.info("Termination signal detected. Terminating load generator...");
+            return true;
+        }
+        return false;
+    }
+
+    private void terminateOnEndOfDataSource() {
+        LOGGER.info("Reached end of data source. Terminating load generator...");
+        terminate.set(true);
+    }
+
+    private double getShardRate(int shard, long fromBeginning) {
+        double totalRate = rateGenerator.getRate(fromBeginning);
+        if (shard == 0) {
+            targetRateBits.lazySet(Double.doubleToRawLongBits(totalRate));
+        }
+        return totalRate / dataSources.size();
+    }
+
+    private long scheduleLag() {
+        long now = System.nanoTime();
+        long lag = 0;
+        for (int i = 0; i < scheduledUpTo.length(); i++) {
+            long upTo = scheduledUpTo.get(i);
+            if (upTo != NOT_RUNNING) {
+                lag = Math.max(lag, now - upTo);
+            }
+        }
+        return lag;
+    }
+
     private void checkState() {
         if (terminate.get()) {
             throw new IllegalStateException("Load generator is stopped and cannot be started again.");
@@ -106,4 +399,23 @@ public class LoadGenerator<T> {
     private long calculateConsumedTime(long normalizedRate, double rate) {
         return (long) (normalizedRate * NANOS_IN_SECOND / rate);
     }
+
+    private long calculateNextDueTime(long now, long previous, double rate) {
+        if (rate <= 0) {
+            return now + MAX_IDLE_IN_NANOS;
+        }
+        return previous + Math.max(TICK_PERIOD_IN_NANOS, (long) Math.ceil(NANOS_IN_SECOND / rate));
+    }
+
+    private String name(String metricsPrefix, String name) {
+        String prefix = metricsPrefix == null || metricsPrefix.isEmpty() ? DEFAULT_METRICS_PREFIX : metricsPrefix;
+        return MetricRegistry.name(prefix, name);
+    }
+
+    private ScheduledConsumer<T> toScheduledConsumer(Consumer<T> consumer) {
+        if (consumer instanceof ScheduledConsumer) {
+            return (ScheduledConsumer<T>) consumer;
+        }
+        return (data, intendedTimeInNanos) -> consumer.accept(data);
+    }
 }
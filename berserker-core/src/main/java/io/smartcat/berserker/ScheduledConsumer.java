@@ -0,0 +1,33 @@
+package io.smartcat.berserker;
+
+import java.util.function.Consumer;
+
+/**
+ * Consumer which, besides the data, accepts time at which {@link LoadGenerator} intended to dispatch that data.
+ * Intended time comes from rate generator's timeline and does not depend on when dispatch actually happened, which
+ * allows implementations to measure latency without coordinated omission.
+ *
+ * @param <T> Type of data this consumer accepts.
+ */
+@FunctionalInterface
+public interface ScheduledConsumer<T> extends Consumer<T> {
+
+    /**
+     * Accepts data which load generator intended to dispatch at <code>intendedTimeInNanos</code>.
+     *
+     * @param data Data to be consumed.
+     * @param intendedTimeInNanos Time in nanoseconds, as returned by {@link System#nanoTime()}, at which data was
+     *            scheduled to be dispatched.
+     */
+    void accept(T data, long intendedTimeInNanos);
+
+    /**
+     * Accepts data with intended time set to current time.
+     *
+     * @param data Data to be consumed.
+     */
+    @Override
+    default void accept(T data) {
+        accept(data, System.nanoTime());
+    }
+}
@@ -0,0 +1,256 @@
+package io.smartcat.berserker;
+
+import static com.codahale.metrics.MetricRegistry.name;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.MetricRegistry;
+
+import io.smartcat.berserker.api.DataSource;
+import io.smartcat.berserker.api.RateGenerator;
+import io.smartcat.berserker.thinktime.ThinkTime;
+
+/**
+ * Load generator of closed system model, where load is determined by number of concurrent virtual users rather than
+ * by rate. Each virtual user repeatedly fetches data from data source, passes it to worker, waits until worker is done
+ * with it and then pauses for a time drawn from {@link ThinkTime} distribution. Rate therefore follows response times
+ * of the tested system, as it would with real users.
+ * <p>
+ * Number of virtual users is given by rate generator, whose output is interpreted as number of users instead of rate,
+ * so it can be any rate generator expression. Number of users is read every control interval: missing users start
+ * immediately, while excess users leave once their current message is done with. Current and requested number of
+ * users are exposed through <code>virtualUsers</code> and <code>targetVirtualUsers</code> gauges.
+ * </p>
+ * <p>
+ * Virtual users do not have threads of their own. Data source, think time and rate generator are invoked only from a
+ * single scheduling thread, so they need not be thread safe, while worker notifies the scheduling thread once it is
+ * done with a message. Intended time of each message is the moment its user finished pausing, so corrected response
+ * time includes any delay of the scheduling thread.
+ * </p>
+ *
+ * @param <T> Type of data which will be used.
+ */
+public class VirtualUserLoadGenerator<T> {
+
+    /**
+     * Default interval at which number of virtual users is read from rate generator, in milliseconds.
+     */
+    public static final long DEFAULT_CONTROL_INTERVAL = 100;
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(VirtualUserLoadGenerator.class);
+    private static final String DEFAULT_METRICS_PREFIX = "io.smartcat.berserker";
+    private static final String VIRTUAL_USERS = "virtualUsers";
+    private static final String TARGET_VIRTUAL_USERS = "targetVirtualUsers";
+
+    private final DataSource<T> dataSource;
+    private final RateGenerator userCount;
+    private final CallbackConsumer<T> worker;
+    private final ThinkTime thinkTime;
+    private final long controlIntervalInNanos;
+    private final MetricRegistry metricRegistry;
+    private final Runnable onDone = this::onDone;
+    private final AtomicBoolean terminate = new AtomicBoolean(false);
+    private final CountDownLatch terminated = new CountDownLatch(1);
+
+    // written only by scheduling thread, volatile for gauges
+    private volatile int activeUsers;
+    private volatile int targetUsers;
+    private ScheduledThreadPoolExecutor scheduler;
+    private long beginning;
+
+    /**
+     * Constructs virtual user load generator with specified <code>dataSource</code>, <code>userCount</code>,
+     * <code>worker</code> and <code>thinkTime</code>. <code>metricsPrefix</code> is set to
+     * <code>io.smartcat.berserker</code>.
+     *
+     * @param dataSource Data source from which virtual users poll data.
+     * @param userCount Rate generator whose output is number of virtual users.
+     * @param worker Worker which accepts data polled from <code>dataSource</code> and notifies when it is done with it.
+     * @param thinkTime Distribution of pauses virtual users make between messages.
+     */
+    public VirtualUserLoadGenerator(DataSource<T> dataSource, RateGenerator userCount, CallbackConsumer<T> worker,
+            ThinkTime thinkTime) {
+        this(dataSource, userCount, worker, thinkTime, DEFAULT_METRICS_PREFIX);
+    }
+
+    /**
+     * Constructs virtual user load generator with specified <code>dataSource</code>, <code>userCount</code>,
+     * <code>worker</code>, <code>thinkTime</code> and <code>metricsPrefix</code>.
+     *
+     * @param dataSource Data source from which virtual users poll data.
+     * @param userCount Rate generator whose output is number of virtual users.
+     * @param worker Worker which accepts data polled from <code>dataSource</code> and notifies when it is done with it.
+     * @param thinkTime Distribution of pauses virtual users make between messages.
+     * @param metricsPrefix Prefix for metrics.
+     */
+    public VirtualUserLoadGenerator(DataSource<T> dataSource, RateGenerator userCount, CallbackConsumer<T> worker,
+            ThinkTime thinkTime, String metricsPrefix) {
+        this(dataSource, userCount, worker, thinkTime, metricsPrefix, DEFAULT_CONTROL_INTERVAL, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Constructs virtual user load generator with specified <code>dataSource</code>, <code>userCount</code>,
+     * <code>worker</code>, <code>thinkTime</code>, <code>metricsPrefix</code> and <code>controlInterval</code>.
+     *
+     * @param dataSource Data source from which virtual users poll data.
+     * @param userCount Rate generator whose output is number of virtual users.
+     * @param worker Worker which accepts data polled from <code>dataSource</code> and notifies when it is done with it.
+     * @param thinkTime Distribution of pauses virtual users make between messages.
+     * @param metricsPrefix Prefix for metrics.
+     * @param controlInterval Interval at which number of virtual users is read, must be positive number.
+     * @param unit Time unit of <code>controlInterval</code>.
+     */
+    public VirtualUserLoadGenerator(DataSource<T> dataSource, RateGenerator userCount, CallbackConsumer<T> worker,
+            ThinkTime thinkTime, String metricsPrefix, long controlInterval, TimeUnit unit) {
+        if (dataSource == null) {
+            throw new IllegalArgumentException("Data source cannot be null.");
+        }
+        if (userCount == null) {
+            throw new IllegalArgumentException("User count cannot be null.");
+        }
+        if (worker == null) {
+            throw new IllegalArgumentException("Worker cannot be null.");
+        }
+        if (thinkTime == null) {
+            throw new IllegalArgumentException("Think time cannot be null.");
+        }
+        if (controlInterval <= 0) {
+            throw new IllegalArgumentException("Control interval must be positive number.");
+        }
+        if (unit == null) {
+            throw new IllegalArgumentException("Unit cannot be null.");
+        }
+        this.dataSource = dataSource;
+        this.userCount = userCount;
+        this.worker = worker;
+        this.thinkTime = thinkTime;
+        this.controlIntervalInNanos = unit.toNanos(controlInterval);
+        this.metricRegistry = new MetricRegistry();
+        metricRegistry.register(name(metricsPrefix, VIRTUAL_USERS), (Gauge<Integer>) () -> activeUsers);
+        metricRegistry.register(name(metricsPrefix, TARGET_VIRTUAL_USERS), (Gauge<Integer>) () -> targetUsers);
+    }
+
+    /**
+     * Runs load generator and returns once it is terminated, either by {@link #terminate()}, by reaching the end of
+     * data source or due to an error.
+     *
+     * @throws IllegalStateException When run is attempted after load generator was terminated.
+     */
+    public void run() {
+        if (terminate.get()) {
+            throw new IllegalStateException("Load generator is stopped and cannot be started again.");
+        }
+        LOGGER.info("Virtual user load generator started.");
+        beginning = System.nanoTime();
+        scheduler = new ScheduledThreadPoolExecutor(1, r -> {
+            Thread thread = new Thread(r, "virtual-user-load-generator");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleAtFixedRate(this::adjustUsers, 0, controlIntervalInNanos, TimeUnit.NANOSECONDS);
+        try {
+            terminated.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            terminate();
+        } finally {
+            scheduler.shutdownNow();
+        }
+        LOGGER.info("Virtual user load generator terminated.");
+    }
+
+    /**
+     * Stops load generator. Messages already passed to worker are not waited for.
+     */
+    public void terminate() {
+        if (terminate.compareAndSet(false, true)) {
+            LOGGER.info("Termination signal sent.");
+            terminated.countDown();
+        }
+    }
+
+    /**
+     * Returns metric registry this load generator is using.
+     *
+     * @return Metric registry this load generator is using.
+     */
+    public MetricRegistry getMetricRegistry() {
+        return metricRegistry;
+    }
+
+    private void adjustUsers() {
+        try {
+            long now = System.nanoTime();
+            long target = Math.round(userCount.getRate(now - beginning));
+            targetUsers = (int) Math.max(0, Math.min(Integer.MAX_VALUE, target));
+            // excess users leave on their own once their current message is done with
+            while (activeUsers < targetUsers && !terminate.get()) {
+                activeUsers++;
+                iterate(now);
+            }
+        } catch (Exception e) {
+            LOGGER.error("Terminating load generator due to error. Error: ", e);
+            terminate();
+        }
+    }
+
+    private void iterate(long intendedTimeInNanos) {
+        if (terminate.get()) {
+            return;
+        }
+        if (activeUsers > targetUsers) {
+            activeUsers--;
+            return;
+        }
+        long fromBeginning = System.nanoTime() - beginning;
+        if (!dataSource.hasNext(fromBeginning)) {
+            LOGGER.info("Reached end of data source. Terminating load generator...");
+            terminate();
+            return;
+        }
+        worker.accept(dataSource.getNext(fromBeginning), intendedTimeInNanos, onDone);
+    }
+
+    private void onDone() {
+        if (terminate.get()) {
+            return;
+        }
+        try {
+            scheduler.execute(this::think);
+        } catch (RejectedExecutionException e) {
+            // load generator terminated in the meantime
+        }
+    }
+
+    private void think() {
+        try {
+            long pause = thinkTime.nextThinkTime();
+            long intendedTimeInNanos = System.nanoTime() + pause;
+            if (pause <= 0) {
+                iterate(intendedTimeInNanos);
+            } else {
+                scheduler.schedule(() -> iterateSafely(intendedTimeInNanos), pause, TimeUnit.NANOSECONDS);
+            }
+        } catch (Exception e) {
+            LOGGER.error("Terminating load generator due to error. Error: ", e);
+            terminate();
+        }
+    }
+
+    private void iterateSafely(long intendedTimeInNanos) {
+        try {
+            iterate(intendedTimeInNanos);
+        } catch (Exception e) {
+            LOGGER.error("Terminating load generator due to error. Error: ", e);
+            terminate();
+        }
+    }
+}
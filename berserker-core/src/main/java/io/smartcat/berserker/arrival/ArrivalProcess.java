@@ -0,0 +1,18 @@
+package io.smartcat.berserker.arrival;
+
+/**
+ * Process determining times at which impulses arrive within {@link io.smartcat.berserker.LoadGenerator
+ * LoadGenerator}. Mean rate of arrivals is given by rate generator, while arrival process determines how arrivals are
+ * spread around that mean. Each shard of load generator uses its own instance, so implementations need not be thread
+ * safe.
+ */
+public interface ArrivalProcess {
+
+    /**
+     * Returns time between the previous arrival and the next one.
+     *
+     * @param rate Current mean rate of arrivals per second, always positive number.
+     * @return Time in nanoseconds between the previous arrival and the next one, not negative.
+     */
+    long nextInterArrivalTime(double rate);
+}
@@ -0,0 +1,62 @@
+package io.smartcat.berserker.arrival;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bursty arrival process which alternates between ON and OFF periods with exponentially distributed durations. During
+ * ON periods arrivals are Poisson with rate raised by <code>(meanOn + meanOff) / meanOn</code>, and during OFF periods
+ * there are no arrivals, so mean rate over time is the one given by rate generator while tested system receives
+ * bursts followed by silence.
+ */
+public class OnOffArrivalProcess implements ArrivalProcess {
+
+    private static final double NANOS_IN_SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    private final SplittableRandom random;
+    private final double meanOnInNanos;
+    private final double meanOffInNanos;
+    private final double burstFactor;
+    private double remainingOnInNanos;
+
+    /**
+     * Constructs ON/OFF arrival process with specified mean durations of ON and OFF periods and <code>seed</code>.
+     *
+     * @param meanOn Mean duration of ON period, must be positive number.
+     * @param meanOff Mean duration of OFF period, must not be negative number.
+     * @param unit Time unit of <code>meanOn</code> and <code>meanOff</code>.
+     * @param seed Seed of random number generator.
+     */
+    public OnOffArrivalProcess(long meanOn, long meanOff, TimeUnit unit, long seed) {
+        if (meanOn <= 0) {
+            throw new IllegalArgumentException("Mean ON duration must be positive number.");
+        }
+        if (meanOff < 0) {
+            throw new IllegalArgumentException("Mean OFF duration must not be negative number.");
+        }
+        if (unit == null) {
+            throw new IllegalArgumentException("Unit cannot be null.");
+        }
+        this.random = new SplittableRandom(seed);
+        this.meanOnInNanos = unit.toNanos(meanOn);
+        this.meanOffInNanos = unit.toNanos(meanOff);
+        this.burstFactor = (meanOnInNanos + meanOffInNanos) / meanOnInNanos;
+        this.remainingOnInNanos = PoissonArrivalProcess.exponential(random, meanOnInNanos);
+    }
+
+    @Override
+    public long nextInterArrivalTime(double rate) {
+        double meanInterArrivalInNanos = NANOS_IN_SECOND / (rate * burstFactor);
+        double result = 0;
+        double interArrival = PoissonArrivalProcess.exponential(random, meanInterArrivalInNanos);
+        // arrivals within ON period are memoryless, so arrival not falling into current ON period is drawn anew
+        // from the start of the next one
+        while (interArrival > remainingOnInNanos) {
+            result += remainingOnInNanos + PoissonArrivalProcess.exponential(random, meanOffInNanos);
+            remainingOnInNanos = PoissonArrivalProcess.exponential(random, meanOnInNanos);
+            interArrival = PoissonArrivalProcess.exponential(random, meanInterArrivalInNanos);
+        }
+        remainingOnInNanos -= interArrival;
+        return Math.round(result + interArrival);
+    }
+}
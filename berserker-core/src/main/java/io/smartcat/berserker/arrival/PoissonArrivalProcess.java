@@ -0,0 +1,41 @@
+package io.smartcat.berserker.arrival;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Arrival process of open system model, where arrivals are independent of each other and times between them are
+ * exponentially distributed with mean of <code>1 / rate</code>. Unlike evenly spread arrivals, it produces short
+ * bursts and gaps as real traffic does, so queueing within tested system becomes visible in latencies.
+ */
+public class PoissonArrivalProcess implements ArrivalProcess {
+
+    private static final double NANOS_IN_SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    private final SplittableRandom random;
+
+    /**
+     * Constructs Poisson arrival process with specified <code>seed</code>, so sequence of arrivals can be reproduced.
+     *
+     * @param seed Seed of random number generator.
+     */
+    public PoissonArrivalProcess(long seed) {
+        this.random = new SplittableRandom(seed);
+    }
+
+    @Override
+    public long nextInterArrivalTime(double rate) {
+        return Math.round(exponential(random, NANOS_IN_SECOND / rate));
+    }
+
+    /**
+     * Returns exponentially distributed random value with specified <code>mean</code>.
+     *
+     * @param random Random number generator.
+     * @param mean Mean of distribution.
+     * @return Exponentially distributed random value.
+     */
+    static double exponential(SplittableRandom random, double mean) {
+        return -Math.log(1 - random.nextDouble()) * mean;
+    }
+}
@@ -0,0 +1,65 @@
+package io.smartcat.berserker.configuration;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import io.smartcat.berserker.api.RateGenerator;
+import io.smartcat.berserker.rategenerator.AdaptiveRateGenerator;
+
+/**
+ * Configuration to construct {@link AdaptiveRateGenerator}. Map needs to contain key '<code>latency-target</code>',
+ * highest acceptable percentile of response time in milliseconds. Optionally, it can contain
+ * '<code>initial-rate</code>' (defaults to 100), '<code>min-rate</code>' (defaults to 1), '<code>max-rate</code>'
+ * (defaults to no limit), '<code>additive-increase</code>' (defaults to one tenth of initial rate),
+ * '<code>decrease-factor</code>' (defaults to 0.5), '<code>latency-percentile</code>' (defaults to 99),
+ * '<code>max-queue-size</code>' (defaults to 0, meaning queue size is not considered) and
+ * '<code>control-interval</code>' in milliseconds (defaults to 1000).
+ */
+public class AdaptiveRateGeneratorConfiguration implements RateGeneratorConfiguration {
+
+    private static final String LATENCY_TARGET = "latency-target";
+    private static final String INITIAL_RATE = "initial-rate";
+    private static final String MIN_RATE = "min-rate";
+    private static final String MAX_RATE = "max-rate";
+    private static final String ADDITIVE_INCREASE = "additive-increase";
+    private static final String DECREASE_FACTOR = "decrease-factor";
+    private static final String LATENCY_PERCENTILE = "latency-percentile";
+    private static final String MAX_QUEUE_SIZE = "max-queue-size";
+    private static final String CONTROL_INTERVAL = "control-interval";
+
+    @Override
+    public String getName() {
+        return "adaptive";
+    }
+
+    @Override
+    public RateGenerator getRateGenerator(Map<String, Object> configuration) throws ConfigurationParseException {
+        if (!configuration.containsKey(LATENCY_TARGET)) {
+            throw new ConfigurationParseException("Property '" + LATENCY_TARGET + "' is mandatory.");
+        }
+        double initialRate = getNumber(configuration, INITIAL_RATE, 100);
+        try {
+            return new AdaptiveRateGenerator(initialRate, getNumber(configuration, MIN_RATE, 1),
+                    getNumber(configuration, MAX_RATE, Double.MAX_VALUE),
+                    getNumber(configuration, ADDITIVE_INCREASE, initialRate / 10),
+                    getNumber(configuration, DECREASE_FACTOR, 0.5), getNumber(configuration, LATENCY_PERCENTILE, 99),
+                    (long) getNumber(configuration, LATENCY_TARGET, 0),
+                    (long) getNumber(configuration, MAX_QUEUE_SIZE, 0),
+                    (long) getNumber(configuration, CONTROL_INTERVAL, 1000), TimeUnit.MILLISECONDS);
+        } catch (IllegalArgumentException e) {
+            throw new ConfigurationParseException(e.getMessage(), e);
+        }
+    }
+
+    private static double getNumber(Map<String, Object> configuration, String name, double defaultValue)
+            throws ConfigurationParseException {
+        Object value = configuration.get(name);
+        if (value == null) {
+            return defaultValue;
+        }
+        if (!(value instanceof Number)) {
+            throw new ConfigurationParseException("Property '" + name + "' must be a number.");
+        }
+        return ((Number) value).doubleValue();
+    }
+}
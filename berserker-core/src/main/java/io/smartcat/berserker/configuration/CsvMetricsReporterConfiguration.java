@@ -0,0 +1,55 @@
+package io.smartcat.berserker.configuration;
+
+import static io.smartcat.berserker.configuration.ConfigurationHelper.getOptionalValue;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Paths;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import com.codahale.metrics.MetricFilter;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Reporter;
+
+import io.smartcat.berserker.metrics.CsvReporter;
+import io.smartcat.berserker.metrics.MetricFilters;
+
+/**
+ * Configuration to construct {@link CsvReporter}. <code>period</code> is in seconds and defaults to 1,
+ * <code>filter</code> contains comma separated names of metrics to be reported, by default all metrics are reported.
+ * Example of supported configuration:
+ * <pre>
+ * {@code
+ * metrics-reporter-configuration:
+ *   directory: metrics
+ *   period: 1
+ *   filter: io.smartcat.berserker.totalResponseTime, io.smartcat.berserker.totalProcessedThroughput}
+ * </pre>
+ */
+public class CsvMetricsReporterConfiguration implements MetricsReporterConfiguration {
+
+    private static final String DIRECTORY = "directory";
+    private static final String PERIOD = "period";
+    private static final String FILTER = "filter";
+
+    @Override
+    public String getName() {
+        return "CSV";
+    }
+
+    @Override
+    public Reporter createAndStartReporter(MetricRegistry metricRegistry, Map<String, Object> configuration) {
+        String directory = getOptionalValue(configuration, DIRECTORY, "metrics");
+        int period = getOptionalValue(configuration, PERIOD, 1);
+        MetricFilter metricFilter = MetricFilters.fromNames(getOptionalValue(configuration, FILTER, ""),
+                MetricFilter.ALL);
+        try {
+            CsvReporter reporter = new CsvReporter(metricRegistry, metricFilter, Paths.get(directory));
+            reporter.start(period, TimeUnit.SECONDS);
+            return reporter;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not create CSV directory: " + directory, e);
+        }
+    }
+}
@@ -1,15 +1,29 @@
 package io.smartcat.berserker.configuration;
 
+import static io.smartcat.berserker.configuration.ConfigurationHelper.getOptionalValue;
+
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.UnaryOperator;
 
 import io.smartcat.berserker.api.RateGenerator;
 import io.smartcat.berserker.configuration.rategenerator.RateGeneratorConfigurationParser;
+import io.smartcat.berserker.rategenerator.CompiledRateGenerator;
+import io.smartcat.berserker.rategenerator.PeriodicRateGenerator;
+import io.smartcat.berserker.rategenerator.SampledRateGenerator;
 
 /**
- * Configuration to construct rate generator out of rate generator expressions.
+ * Configuration to construct rate generator out of rate generator expressions. Parsed expression is compiled into
+ * {@link CompiledRateGenerator} since it is evaluated on every pass of the dispatch loop. When
+ * <code>sampling-resolution</code> in milliseconds is set, output rate is sampled with that resolution by
+ * {@link SampledRateGenerator}, and when <code>lookup-table</code> is additionally set, each periodic rate generator
+ * within expression is sampled upfront for one period.
  */
 public class DefaultRateGeneratorConfiguration implements RateGeneratorConfiguration {
 
+    private static final String SAMPLING_RESOLUTION = "sampling-resolution";
+    private static final String LOOKUP_TABLE = "lookup-table";
+
     @Override
     public String getName() {
         return "default";
@@ -18,6 +32,15 @@ public class DefaultRateGeneratorConfiguration implements RateGeneratorConfigura
     @Override
     public RateGenerator getRateGenerator(Map<String, Object> configuration) throws ConfigurationParseException {
         RateGeneratorConfigurationParser parser = new RateGeneratorConfigurationParser(configuration);
-        return parser.build();
+        int samplingResolution = getOptionalValue(configuration, SAMPLING_RESOLUTION, 0);
+        if (samplingResolution <= 0) {
+            return new CompiledRateGenerator(parser.build());
+        }
+        boolean lookupTable = getOptionalValue(configuration, LOOKUP_TABLE, false);
+        UnaryOperator<RateGenerator> leafMapper = lookupTable ? leaf -> leaf instanceof PeriodicRateGenerator
+                ? new SampledRateGenerator(leaf, samplingResolution, TimeUnit.MILLISECONDS, true) : leaf
+                : UnaryOperator.identity();
+        return new SampledRateGenerator(new CompiledRateGenerator(parser.build(), leafMapper), samplingResolution,
+                TimeUnit.MILLISECONDS);
     }
 }
@@ -0,0 +1,61 @@
+package io.smartcat.berserker.configuration;
+
+import static io.smartcat.berserker.configuration.ConfigurationHelper.getOptionalValue;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import com.codahale.metrics.MetricFilter;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Reporter;
+
+import io.smartcat.berserker.metrics.HdrHistogramLogReporter;
+import io.smartcat.berserker.metrics.MetricFilters;
+
+/**
+ * Configuration to construct {@link HdrHistogramLogReporter}. <code>filter</code> contains comma separated names of
+ * histograms to be written, by default success, failure and total response time histograms are written.
+ * <code>period</code> is in seconds.
+ * Example of supported configuration:
+ * <pre>
+ * {@code
+ * metrics-reporter-configuration:
+ *   path: berserker.hlog
+ *   period: 10
+ *   filter: io.smartcat.berserker.successResponseTime, io.smartcat.berserker.failureResponseTime}
+ * </pre>
+ */
+public class HdrHistogramLogMetricsReporterConfiguration implements MetricsReporterConfiguration {
+
+    private static final String PATH = "path";
+    private static final String PERIOD = "period";
+    private static final String FILTER = "filter";
+    private static final List<String> DEFAULT_SUFFIXES = Arrays.asList(".successResponseTime", ".failureResponseTime",
+            ".totalResponseTime");
+
+    @Override
+    public String getName() {
+        return "HdrHistogramLog";
+    }
+
+    @Override
+    public Reporter createAndStartReporter(MetricRegistry metricRegistry, Map<String, Object> configuration) {
+        String path = getOptionalValue(configuration, PATH, "berserker.hlog");
+        int period = getOptionalValue(configuration, PERIOD, 10);
+        MetricFilter metricFilter = MetricFilters.fromNames(getOptionalValue(configuration, FILTER, ""),
+                (name, metric) -> DEFAULT_SUFFIXES.stream().anyMatch(name::endsWith));
+        try {
+            HdrHistogramLogReporter reporter = new HdrHistogramLogReporter(metricRegistry, metricFilter,
+                    Paths.get(path));
+            reporter.start(period, TimeUnit.SECONDS);
+            return reporter;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not open HdrHistogram log: " + path, e);
+        }
+    }
+}
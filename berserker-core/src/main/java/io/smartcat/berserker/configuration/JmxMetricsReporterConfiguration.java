@@ -11,6 +11,7 @@ import com.codahale.metrics.jmx.JmxReporter.Builder;
 import com.codahale.metrics.Metric;
 import com.codahale.metrics.MetricFilter;
 import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Reporter;
 
 /**
  * Configuration to construct {@link JmxReporter}.
@@ -33,7 +34,7 @@ public class JmxMetricsReporterConfiguration implements MetricsReporterConfigura
     }
 
     @Override
-    public void createAndStartReporter(MetricRegistry metricRegistry, Map<String, Object> configuration) {
+    public Reporter createAndStartReporter(MetricRegistry metricRegistry, Map<String, Object> configuration) {
         Builder builder = JmxReporter.forRegistry(metricRegistry).convertRatesTo(TimeUnit.DAYS);
         if (configuration.containsKey(DOMAIN)) {
             String domain = (String) configuration.get(DOMAIN);
@@ -57,5 +58,6 @@ public class JmxMetricsReporterConfiguration implements MetricsReporterConfigura
         }
         JmxReporter reporter = builder.build();
         reporter.start();
+        return reporter;
     }
 }
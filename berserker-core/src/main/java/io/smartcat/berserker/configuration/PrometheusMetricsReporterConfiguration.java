@@ -0,0 +1,52 @@
+package io.smartcat.berserker.configuration;
+
+import static io.smartcat.berserker.configuration.ConfigurationHelper.getOptionalValue;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.util.Map;
+
+import com.codahale.metrics.MetricFilter;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Reporter;
+
+import io.smartcat.berserker.metrics.MetricFilters;
+import io.smartcat.berserker.metrics.PrometheusReporter;
+
+/**
+ * Configuration to construct {@link PrometheusReporter}. <code>filter</code> contains comma separated names of
+ * metrics to be served, by default all metrics are served.
+ * Example of supported configuration:
+ * <pre>
+ * {@code
+ * metrics-reporter-configuration:
+ *   port: 9404
+ *   filter: io.smartcat.berserker.totalResponseTime, io.smartcat.berserker.totalProcessedThroughput}
+ * </pre>
+ */
+public class PrometheusMetricsReporterConfiguration implements MetricsReporterConfiguration {
+
+    private static final String PORT = "port";
+    private static final String FILTER = "filter";
+
+    @Override
+    public String getName() {
+        return "Prometheus";
+    }
+
+    @Override
+    public Reporter createAndStartReporter(MetricRegistry metricRegistry, Map<String, Object> configuration) {
+        int port = getOptionalValue(configuration, PORT, 9404);
+        MetricFilter metricFilter = MetricFilters.fromNames(getOptionalValue(configuration, FILTER, ""),
+                MetricFilter.ALL);
+        try {
+            PrometheusReporter reporter = new PrometheusReporter(metricRegistry, metricFilter,
+                    new InetSocketAddress(port));
+            reporter.start();
+            return reporter;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not start Prometheus reporter on port: " + port, e);
+        }
+    }
+}
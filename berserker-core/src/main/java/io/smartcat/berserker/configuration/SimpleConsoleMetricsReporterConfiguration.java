@@ -1,24 +1,45 @@
 package io.smartcat.berserker.configuration;
 
+import static io.smartcat.berserker.configuration.ConfigurationHelper.getOptionalValue;
+
 import java.util.Map;
 import java.util.concurrent.TimeUnit;
 
 import com.codahale.metrics.ConsoleReporter;
+import com.codahale.metrics.MetricFilter;
 import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Reporter;
+
+import io.smartcat.berserker.metrics.MetricFilters;
 
 /**
- * Creates simple {@link ConsoleReporter} without any customization.
+ * Creates simple {@link ConsoleReporter}. <code>period</code> is in seconds and defaults to 10, <code>filter</code>
+ * contains comma separated names of metrics to be reported, by default all metrics are reported.
+ * Example of supported configuration:
+ * <pre>
+ * {@code
+ * metrics-reporter-configuration:
+ *   period: 1
+ *   filter: io.smartcat.berserker.totalResponseTime}
+ * </pre>
  */
 public class SimpleConsoleMetricsReporterConfiguration implements MetricsReporterConfiguration {
 
+    private static final String PERIOD = "period";
+    private static final String FILTER = "filter";
+
     @Override
     public String getName() {
         return "SimpleConsoleReporter";
     }
 
     @Override
-    public void createAndStartReporter(MetricRegistry metricRegistry, Map<String, Object> configuration) {
-        ConsoleReporter reporter = ConsoleReporter.forRegistry(metricRegistry).build();
-        reporter.start(10, TimeUnit.SECONDS);
+    public Reporter createAndStartReporter(MetricRegistry metricRegistry, Map<String, Object> configuration) {
+        int period = getOptionalValue(configuration, PERIOD, 10);
+        MetricFilter metricFilter = MetricFilters.fromNames(getOptionalValue(configuration, FILTER, ""),
+                MetricFilter.ALL);
+        ConsoleReporter reporter = ConsoleReporter.forRegistry(metricRegistry).filter(metricFilter).build();
+        reporter.start(period, TimeUnit.SECONDS);
+        return reporter;
     }
 }
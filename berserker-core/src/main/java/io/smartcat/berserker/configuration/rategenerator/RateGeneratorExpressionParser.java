@@ -6,6 +6,9 @@ import org.parboiled.BaseParser;
 import org.parboiled.Rule;
 import org.parboiled.support.Var;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Paths;
 import java.util.Map;
 
 /**
@@ -149,6 +152,24 @@ public class RateGeneratorExpressionParser extends BaseParser<Object> {
         return FirstOf(doubleLiteral(), longLiteral());
     }
 
+    /**
+     * Boolean definition.
+     *
+     * @return Boolean definition rule.
+     */
+    public Rule booleanLiteral() {
+        return Sequence(FirstOf("true", "false"), push(Boolean.parseBoolean(match())));
+    }
+
+    /**
+     * String definition, characters enclosed in double quotes. Pushes characters without quotes.
+     *
+     * @return String definition rule.
+     */
+    public Rule stringLiteral() {
+        return Sequence('"', ZeroOrMore(NoneOf("\"")), push(match()), '"');
+    }
+
     /**
      * Day duration literal definition.
      *
@@ -287,13 +308,68 @@ public class RateGeneratorExpressionParser extends BaseParser<Object> {
                 numberLiteral(), comma(), numberLiteral())), push(createSquareRateGenerator()));
     }
 
+    /**
+     * Ramp rate generator definition.
+     *
+     * @return Ramp rate generator definition rule.
+     */
+    public Rule rampRateGenerator() {
+        return Sequence(
+                function("ramp", Sequence(durationLiteral(), comma(), numberLiteral(), comma(), numberLiteral())),
+                push(createRampRateGenerator()));
+    }
+
+    /**
+     * Steps rate generator definition.
+     *
+     * @return Steps rate generator definition rule.
+     */
+    public Rule stepsRateGenerator() {
+        return Sequence(function("steps", Sequence(durationLiteral(), comma(), numberLiteral(), comma(),
+                numberLiteral(), comma(), longLiteral())), push(createStepsRateGenerator()));
+    }
+
+    /**
+     * Piecewise linear rate generator definition.
+     *
+     * @return Piecewise linear rate generator definition rule.
+     */
+    public Rule piecewiseLinearRateGenerator() {
+        Var<Integer> count = new Var<>(0);
+        return Sequence(function("piecewise", Sequence(breakpoint(), count.set(count.get() + 1),
+                ZeroOrMore(comma(), breakpoint(), count.set(count.get() + 1)))),
+                push(createPiecewiseLinearRateGenerator(count.get())));
+    }
+
+    /**
+     * Breakpoint definition, time and rate at that time.
+     *
+     * @return Breakpoint definition rule.
+     */
+    public Rule breakpoint() {
+        return Sequence(durationLiteral(), comma(), numberLiteral());
+    }
+
+    /**
+     * Trace rate generator definition, path of trace file optionally followed by whether trace is looped.
+     *
+     * @return Trace rate generator definition rule.
+     */
+    public Rule traceRateGenerator() {
+        Var<Boolean> loop = new Var<>(false);
+        return Sequence(function("trace", Sequence(stringLiteral(),
+                Optional(comma(), booleanLiteral(), loop.set((Boolean) pop())))),
+                push(createTraceRateGenerator(loop.get())));
+    }
+
     /**
      * Complex rate generator definition.
      *
      * @return Complex rate generator definition rule.
      */
     public Rule functionRateGenerator() {
-        return FirstOf(triangleRateGenerator(), sineRateGenerator(), squareRateGenerator());
+        return FirstOf(triangleRateGenerator(), sineRateGenerator(), squareRateGenerator(), rampRateGenerator(),
+                stepsRateGenerator(), piecewiseLinearRateGenerator(), traceRateGenerator());
     }
 
     /**
@@ -455,4 +531,60 @@ public class RateGeneratorExpressionParser extends BaseParser<Object> {
         double upperValue = ((Number) pop()).doubleValue();
         return new SquareRateGenerator(periodInSeconds, leftSide, lowerValue, upperValue);
     }
+
+    /**
+     * Creates ramp rate generator.
+     *
+     * @return An instance of {@link RampRateGenerator}.
+     */
+    protected RateGenerator createRampRateGenerator() {
+        long durationInSeconds = (long) pop(2);
+        double from = ((Number) pop(1)).doubleValue();
+        double to = ((Number) pop()).doubleValue();
+        return new RampRateGenerator(durationInSeconds, from, to);
+    }
+
+    /**
+     * Creates steps rate generator.
+     *
+     * @return An instance of {@link StepsRateGenerator}.
+     */
+    protected RateGenerator createStepsRateGenerator() {
+        long stepDurationInSeconds = (long) pop(3);
+        double start = ((Number) pop(2)).doubleValue();
+        double increment = ((Number) pop(1)).doubleValue();
+        long count = (long) pop();
+        return new StepsRateGenerator(stepDurationInSeconds, start, increment, count);
+    }
+
+    /**
+     * Creates piecewise linear rate generator out of <code>count</code> breakpoints on the value stack.
+     *
+     * @param count Number of breakpoints.
+     * @return An instance of {@link PiecewiseLinearRateGenerator}.
+     */
+    protected RateGenerator createPiecewiseLinearRateGenerator(int count) {
+        long[] timesInSeconds = new long[count];
+        double[] rates = new double[count];
+        for (int i = count - 1; i >= 0; i--) {
+            rates[i] = ((Number) pop()).doubleValue();
+            timesInSeconds[i] = (long) pop();
+        }
+        return new PiecewiseLinearRateGenerator(timesInSeconds, rates);
+    }
+
+    /**
+     * Creates trace rate generator out of trace file whose path is on the value stack.
+     *
+     * @param loop Whether trace starts over once its end is reached.
+     * @return An instance of {@link TraceRateGenerator}.
+     */
+    protected RateGenerator createTraceRateGenerator(boolean loop) {
+        String path = (String) pop();
+        try {
+            return new TraceRateGenerator(Paths.get(path), loop);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read trace file: " + path, e);
+        }
+    }
 }
@@ -1,27 +1,43 @@
 package io.smartcat.berserker.datasource;
 
-import java.util.Queue;
-import java.util.concurrent.LinkedBlockingQueue;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import io.smartcat.berserker.api.DataSource;
+import io.smartcat.berserker.util.ArrayEvictingBlockingQueue;
 
 /**
- * Data source buffer which polls from specified delegate data source from different thread. Blocks polling at the
- * beginning until buffer is filled to <code>initialBufferFullness</code>.
+ * Data source which prefetches values of delegate data sources into a buffer from separate producer threads, so that
+ * expensive generation of values does not happen on the thread dispatching them. Each delegate gets its own producer
+ * thread, so delegates need not be thread safe and several delegate instances can be used to fill one buffer faster.
+ * Buffer is pre-allocated ring, see {@link ArrayEvictingBlockingQueue}. Producers block while buffer is full, until
+ * a value is taken from it.
  * <p>
- * <b>Note:</b>Only time independent {@link DataSource} implementations should be used with this implementation.
- * For more info read the next paragraph.
+ * Producers start immediately, while the first invocation of {@link #hasNext(long)} or {@link #getNext(long)} blocks
+ * until buffer is filled to <code>initialBufferFullness</code>, or all producers are done. Afterwards, invocations
+ * block only when buffer is empty. Buffered data source is empty once all delegates report that they have no next
+ * value and buffer is drained. If delegate throws an exception, its producer stops and the exception is rethrown from
+ * {@link #hasNext(long)} once buffer is drained.
  * </p>
  * <p>
- * Buffered data source breaks {@link DataSource} interface since <code>delegate</code> data source is called
- * with time value of <code>0</code>. This is due to buffer implementation which fills buffer from another thread.
- * Since <code>delegate.getNext(...)</code> is invoked from another thread, it does not have information on time
- * component, hence cannot invoke <code>delegate.getNext(...)</code> with proper value. If you are using
- * time dependent {@link DataSource} implementation, it will not work together with this implementation.
+ * Delegates are invoked with time relative to the beginning of the load, which is known from the first time passed to
+ * this data source. Values prefetched before that are generated with time <code>0</code>, and values prefetched later
+ * are generated with time at which they were prefetched, which precedes time at which they are dispatched by at most
+ * the time needed to drain the buffer.
+ * </p>
+ * <p>
+ * Buffered data source itself is not thread safe, it is meant to be used by a single dispatching thread.
+ * {@link #close()} stops producers and closes delegates which are {@link AutoCloseable}.
  * </p>
  *
  * @param <T> Type of the data provided by data source implementation.
@@ -30,17 +46,25 @@ public class BufferedDataSource<T> implements DataSource<T>, AutoCloseable {
 
     private static final int DEFAULT_BUFFER_SIZE = 1024;
     private static final double DEFAULT_INITIAL_BUFFER_FULLNESS = 0.75;
+    private static final long EMPTY_BUFFER_POLL_IN_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+    private static final long UNKNOWN = Long.MIN_VALUE;
 
     private static final Logger LOGGER = LoggerFactory.getLogger(BufferedDataSource.class);
 
-    private final Object bufferFilled = new Object();
-    private final DataSource<T> delegate;
+    private final List<DataSource<T>> delegates;
     private final int bufferSize;
-    private final Queue<T> buffer;
-    private final double initialBufferFullness;
+    private final ArrayEvictingBlockingQueue<T> buffer;
+    private final Semaphore freeSlots;
+    private final int initialBufferSize;
+    private final CountDownLatch initiallyFilled = new CountDownLatch(1);
+    private final AtomicInteger runningProducers;
+    private final AtomicBoolean terminate = new AtomicBoolean(false);
+    private final List<Thread> producers = new ArrayList<>();
 
-    private AtomicBoolean terminateThread = new AtomicBoolean(false);
-    private Thread thread;
+    private volatile long beginningInNanos = UNKNOWN;
+    private volatile RuntimeException failure;
+    private boolean initialFillAwaited;
+    private T next;
 
     /**
      * Constructs a buffered data source with specified <code>delegate</code> data source. <code>bufferSize</code> is
@@ -75,47 +99,188 @@ public class BufferedDataSource<T> implements DataSource<T>, AutoCloseable {
      * @param initialBufferFullness Initial fullness of buffer.
      */
     public BufferedDataSource(DataSource<T> delegate, int bufferSize, double initialBufferFullness) {
-        this.delegate = delegate;
+        this(Collections.singletonList(delegate), bufferSize, initialBufferFullness);
+    }
+
+    /**
+     * Constructs a buffered data source filled by one producer thread per data source within <code>delegates</code>,
+     * with specified <code>bufferSize</code> and <code>initialBufferFullness</code>. Blocks polling at the beginning
+     * until buffer is filled to <code>initialBufferFullness</code>.
+     *
+     * @param delegates Data sources which will be used to fill buffer, each by its own thread.
+     * @param bufferSize Size of the buffer, must be positive number.
+     * @param initialBufferFullness Fraction of the buffer which needs to be filled before the first value is provided,
+     *            must be between 0 and 1.
+     */
+    public BufferedDataSource(List<DataSource<T>> delegates, int bufferSize, double initialBufferFullness) {
+        if (delegates == null || delegates.isEmpty()) {
+            throw new IllegalArgumentException("Delegates cannot be null nor empty.");
+        }
+        if (delegates.contains(null)) {
+            throw new IllegalArgumentException("Delegates cannot contain null.");
+        }
+        if (bufferSize <= 0) {
+            throw new IllegalArgumentException("Buffer size must be positive number.");
+        }
+        if (initialBufferFullness < 0 || initialBufferFullness > 1) {
+            throw new IllegalArgumentException("Initial buffer fullness must be between 0 and 1.");
+        }
+        this.delegates = new ArrayList<>(delegates);
         this.bufferSize = bufferSize;
-        this.buffer = new LinkedBlockingQueue<>(bufferSize);
-        this.initialBufferFullness = initialBufferFullness;
-        fillBuffer();
+        this.buffer = new ArrayEvictingBlockingQueue<>(bufferSize);
+        this.freeSlots = new Semaphore(bufferSize);
+        this.initialBufferSize = (int) Math.ceil(bufferSize * initialBufferFullness);
+        this.runningProducers = new AtomicInteger(delegates.size());
+        if (initialBufferSize == 0) {
+            initiallyFilled.countDown();
+        }
+        for (int i = 0; i < this.delegates.size(); i++) {
+            DataSource<T> delegate = this.delegates.get(i);
+            Thread producer = new Thread(() -> produce(delegate), "buffered-data-source-producer-" + i);
+            producer.setDaemon(true);
+            producers.add(producer);
+        }
+        producers.forEach(Thread::start);
     }
 
     @Override
     public boolean hasNext(long time) {
-        return !buffer.isEmpty() || delegate.hasNext(time);
+        if (beginningInNanos == UNKNOWN) {
+            beginningInNanos = System.nanoTime() - time;
+        }
+        awaitInitialFill();
+        try {
+            while (next == null) {
+                boolean producing = runningProducers.get() > 0;
+                next = buffer.poll(EMPTY_BUFFER_POLL_IN_NANOS, TimeUnit.NANOSECONDS);
+                if (next != null) {
+                    freeSlots.release();
+                } else if (!producing) {
+                    // producers were done before the poll, so buffer is drained for good
+                    if (failure != null) {
+                        throw new IllegalStateException("Delegate data source failed.", failure);
+                    }
+                    return false;
+                }
+            }
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        }
     }
 
     @Override
     public T getNext(long time) {
-        try {
-            bufferFilled.wait();
-            T result = buffer.poll();
-            LOGGER.trace("Polled value from buffer: {}", result);
-            return result;
-        } catch (InterruptedException e) {
-            throw new RuntimeException(e);
+        if (!hasNext(time)) {
+            throw new NoSuchElementException("Buffered data source has no next value.");
         }
+        T result = next;
+        next = null;
+        return result;
+    }
+
+    /**
+     * Returns number of values currently within buffer.
+     *
+     * @return Number of values currently within buffer.
+     */
+    public int size() {
+        return buffer.size();
     }
 
+    /**
+     * Returns fraction of the buffer currently filled, between 0 and 1.
+     *
+     * @return Fraction of the buffer currently filled.
+     */
+    public double getFillLevel() {
+        return (double) buffer.size() / bufferSize;
+    }
+
+    /**
+     * Stops producers, waits for them to finish generating values they are working on and closes delegates which are
+     * {@link AutoCloseable}.
+     */
     @Override
     public void close() {
-        terminateThread.set(false);
+        if (!terminate.compareAndSet(false, true)) {
+            return;
+        }
+        // wakes producers waiting for free slot, they stop without putting anything into buffer
+        freeSlots.release(producers.size());
+        boolean interrupted = false;
+        for (Thread producer : producers) {
+            while (producer.isAlive()) {
+                try {
+                    producer.join();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+        }
+        for (DataSource<T> delegate : delegates) {
+            if (delegate instanceof AutoCloseable) {
+                try {
+                    ((AutoCloseable) delegate).close();
+                } catch (Exception e) {
+                    LOGGER.warn("Could not close delegate data source.", e);
+                }
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
     }
 
-    private void fillBuffer() {
-        thread = new Thread(() -> {
-            LOGGER.trace("Filling buffer to initial buffer size...");
-            while (buffer.size() < bufferSize * initialBufferFullness) {
-                buffer.offer(delegate.getNext(0));
+    private void awaitInitialFill() {
+        if (initialFillAwaited) {
+            return;
+        }
+        try {
+            LOGGER.trace("Waiting for buffer to be filled to {} elements...", initialBufferSize);
+            initiallyFilled.await();
+            initialFillAwaited = true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        }
+    }
+
+    private void produce(DataSource<T> delegate) {
+        try {
+            while (true) {
+                freeSlots.acquire();
+                if (terminate.get()) {
+                    return;
+                }
+                long time = time();
+                if (!delegate.hasNext(time)) {
+                    freeSlots.release();
+                    break;
+                }
+                // free slot is reserved for this producer, so offer always succeeds
+                buffer.offer(delegate.getNext(time));
+                if (initiallyFilled.getCount() > 0 && buffer.size() >= initialBufferSize) {
+                    LOGGER.trace("Buffer filled to initial buffer size of {} elements.", initialBufferSize);
+                    initiallyFilled.countDown();
+                }
             }
-            LOGGER.trace("Buffer filled to initial buffer size of {} elements", buffer.size());
-            bufferFilled.notify();
-            while (!terminateThread.get()) {
-                buffer.offer(delegate.getNext(0));
+        } catch (InterruptedException e) {
+            LOGGER.warn("Producer interrupted, stopping it.");
+            Thread.currentThread().interrupt();
+        } catch (RuntimeException e) {
+            LOGGER.error("Delegate data source failed, stopping its producer.", e);
+            failure = e;
+        } finally {
+            if (runningProducers.decrementAndGet() == 0) {
+                initiallyFilled.countDown();
             }
-        });
-        thread.start();
+        }
+    }
+
+    private long time() {
+        long beginning = beginningInNanos;
+        return beginning == UNKNOWN ? 0 : System.nanoTime() - beginning;
     }
 }
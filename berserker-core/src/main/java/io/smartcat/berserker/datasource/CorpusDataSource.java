@@ -0,0 +1,274 @@
+package io.smartcat.berserker.datasource;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Function;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import io.smartcat.berserker.api.DataSource;
+
+/**
+ * Data source which generates a corpus of records up front and replays it cyclically, so that no data is generated
+ * while load is generated. Useful when data only needs to look random rather than be freshly generated.
+ * <p>
+ * Corpus is generated in parallel, one thread per delegate data source, each delegate generating its share of
+ * records, so delegates need not be thread safe. Records are encoded into bytes and written into temporary files
+ * which are then memory mapped, so corpus lives outside of the heap and only an index of 4 bytes per record is kept
+ * on the heap. Delegates are invoked with time <code>0</code> and corpus is smaller than requested if delegates run
+ * out of data. Delegates which are {@link AutoCloseable} are closed once corpus is generated, so nothing but the
+ * mapped corpus is held afterwards.
+ * </p>
+ * <p>
+ * Each record is decoded on {@link #getNext(long)} from a read-only buffer which is a view of the mapped corpus
+ * positioned at the record, so decoder decides how much it copies. {@link RecordCodec} provides compact encoding of
+ * records built out of maps, lists, strings and numbers. Records generated by a single delegate take at most
+ * 2 GB, more delegates are needed for larger corpora.
+ * </p>
+ * <p>
+ * Corpus data source is not thread safe, but corpus is read-only and can be shared by several threads through cursors
+ * created by {@link #newCursor(Function, int)}, each replaying the same corpus from its own position.
+ * </p>
+ *
+ * @param <T> Type of the data provided by data source implementation.
+ */
+public class CorpusDataSource<T> implements DataSource<T> {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(CorpusDataSource.class);
+
+    private final List<Part> parts;
+    private final Function<ByteBuffer, T> decoder;
+    private final int recordCount;
+
+    private int partIndex;
+    private int recordIndex;
+
+    /**
+     * Constructs corpus data source with <code>recordCount</code> records generated by <code>delegate</code>.
+     *
+     * @param delegate Data source which generates records.
+     * @param recordCount Number of records in corpus, must be positive number.
+     * @param encoder Function encoding record into bytes.
+     * @param decoder Function decoding record from buffer whose remaining bytes are bytes of the record.
+     * @throws IOException If corpus cannot be written or mapped.
+     */
+    public CorpusDataSource(DataSource<T> delegate, int recordCount, Function<T, byte[]> encoder,
+            Function<ByteBuffer, T> decoder) throws IOException {
+        this(Collections.singletonList(delegate), recordCount, encoder, decoder);
+    }
+
+    /**
+     * Constructs corpus data source with <code>recordCount</code> records generated in parallel by
+     * <code>delegates</code>, each delegate by its own thread.
+     *
+     * @param delegates Data sources which generate records, each generating its share of records.
+     * @param recordCount Number of records in corpus, must be positive number.
+     * @param encoder Function encoding record into bytes.
+     * @param decoder Function decoding record from buffer whose remaining bytes are bytes of the record.
+     * @throws IOException If corpus cannot be written or mapped.
+     */
+    public CorpusDataSource(List<DataSource<T>> delegates, int recordCount, Function<T, byte[]> encoder,
+            Function<ByteBuffer, T> decoder) throws IOException {
+        if (delegates == null || delegates.isEmpty()) {
+            throw new IllegalArgumentException("Delegates cannot be null nor empty.");
+        }
+        if (delegates.contains(null)) {
+            throw new IllegalArgumentException("Delegates cannot contain null.");
+        }
+        if (recordCount <= 0) {
+            throw new IllegalArgumentException("Record count must be positive number.");
+        }
+        if (encoder == null) {
+            throw new IllegalArgumentException("Encoder cannot be null.");
+        }
+        if (decoder == null) {
+            throw new IllegalArgumentException("Decoder cannot be null.");
+        }
+        this.decoder = decoder;
+        long start = System.nanoTime();
+        this.parts = generate(delegates, recordCount, encoder);
+        this.recordCount = parts.stream().mapToInt(Part::size).sum();
+        LOGGER.info("Generated corpus of {} records in {} ms.", this.recordCount,
+                (System.nanoTime() - start) / 1_000_000);
+    }
+
+    private CorpusDataSource(List<Part> parts, int recordCount, Function<ByteBuffer, T> decoder, int startRecord) {
+        this.parts = parts;
+        this.recordCount = recordCount;
+        this.decoder = decoder;
+        int remaining = startRecord;
+        while (remaining >= parts.get(partIndex).size() && partIndex < parts.size() - 1) {
+            remaining -= parts.get(partIndex).size();
+            partIndex++;
+        }
+        this.recordIndex = remaining;
+    }
+
+    /**
+     * Creates data source which replays the same corpus, without generating it again, starting from record at
+     * <code>startRecord</code>. Created data source has its own position and decoder, so it can be used by another
+     * thread.
+     *
+     * @param decoder Function decoding record from buffer whose remaining bytes are bytes of the record.
+     * @param startRecord Index of the first record to be replayed, between 0 and number of records in corpus.
+     * @return Data source replaying the same corpus.
+     */
+    public CorpusDataSource<T> newCursor(Function<ByteBuffer, T> decoder, int startRecord) {
+        if (decoder == null) {
+            throw new IllegalArgumentException("Decoder cannot be null.");
+        }
+        if (startRecord < 0 || startRecord > recordCount) {
+            throw new IllegalArgumentException("Start record must be between 0 and " + recordCount + ".");
+        }
+        return new CorpusDataSource<>(parts, recordCount, decoder, startRecord);
+    }
+
+    @Override
+    public boolean hasNext(long time) {
+        return recordCount > 0;
+    }
+
+    @Override
+    public T getNext(long time) {
+        if (recordCount == 0) {
+            throw new NoSuchElementException("Corpus is empty.");
+        }
+        Part part = parts.get(partIndex);
+        while (recordIndex >= part.size()) {
+            recordIndex = 0;
+            partIndex = (partIndex + 1) % parts.size();
+            part = parts.get(partIndex);
+        }
+        return decoder.apply(part.get(recordIndex++));
+    }
+
+    /**
+     * Returns number of records in corpus.
+     *
+     * @return Number of records in corpus.
+     */
+    public int getRecordCount() {
+        return recordCount;
+    }
+
+    private static <T> List<Part> generate(List<DataSource<T>> delegates, int recordCount,
+            Function<T, byte[]> encoder) throws IOException {
+        ExecutorService executor = Executors.newFixedThreadPool(delegates.size(), r -> {
+            Thread thread = new Thread(r, "corpus-generator");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            List<Future<Part>> futures = new ArrayList<>();
+            for (int i = 0; i < delegates.size(); i++) {
+                DataSource<T> delegate = delegates.get(i);
+                int count = recordCount / delegates.size() + (i < recordCount % delegates.size() ? 1 : 0);
+                futures.add(executor.submit(() -> generatePart(delegate, count, encoder)));
+            }
+            List<Part> result = new ArrayList<>();
+            for (Future<Part> future : futures) {
+                result.add(future.get());
+            }
+            return result;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new RuntimeException(e.getCause());
+        } finally {
+            executor.shutdownNow();
+            closeDelegates(delegates);
+        }
+    }
+
+    private static <T> void closeDelegates(List<DataSource<T>> delegates) {
+        for (DataSource<T> delegate : delegates) {
+            if (delegate instanceof AutoCloseable) {
+                try {
+                    ((AutoCloseable) delegate).close();
+                } catch (Exception e) {
+                    LOGGER.warn("Could not close delegate data source.", e);
+                }
+            }
+        }
+    }
+
+    private static <T> Part generatePart(DataSource<T> delegate, int count, Function<T, byte[]> encoder)
+            throws IOException {
+        Path file = Files.createTempFile("berserker-corpus", ".bin");
+        try {
+            int[] offsets = new int[count + 1];
+            int generated = 0;
+            long size = 0;
+            try (OutputStream output = new BufferedOutputStream(Files.newOutputStream(file))) {
+                while (generated < count && delegate.hasNext(0)) {
+                    byte[] record = encoder.apply(delegate.getNext(0));
+                    size += record.length;
+                    if (size > Integer.MAX_VALUE) {
+                        throw new IllegalArgumentException("Records generated by single delegate exceed 2 GB.");
+                    }
+                    output.write(record);
+                    offsets[++generated] = (int) size;
+                }
+            }
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                ByteBuffer records = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+                return new Part(records, generated == count ? offsets : Arrays.copyOf(offsets, generated + 1));
+            }
+        } finally {
+            // mapping stays valid once file is deleted
+            try {
+                Files.delete(file);
+            } catch (IOException e) {
+                file.toFile().deleteOnExit();
+            }
+        }
+    }
+
+    /**
+     * Records generated by a single delegate, mapped into memory, with offsets of records within mapping.
+     */
+    private static final class Part {
+
+        private final ByteBuffer records;
+        private final int[] offsets;
+
+        Part(ByteBuffer records, int[] offsets) {
+            this.records = records.asReadOnlyBuffer();
+            this.offsets = offsets;
+        }
+
+        int size() {
+            return offsets.length - 1;
+        }
+
+        ByteBuffer get(int index) {
+            ByteBuffer record = records.duplicate();
+            record.position(offsets[index]);
+            record.limit(offsets[index + 1]);
+            return record;
+        }
+    }
+}
@@ -0,0 +1,239 @@
+package io.smartcat.berserker.datasource;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Compact binary encoding of records built out of maps, lists, strings, numbers, booleans, characters, UUIDs, dates
+ * and <code>null</code>, such as records generated by Ranger, meant to be used with {@link CorpusDataSource}. Each
+ * value is encoded as a one byte tag followed by its content in big-endian order, strings as UTF-8 bytes prefixed
+ * by their length. Maps are decoded as {@link LinkedHashMap} and lists as {@link ArrayList}, other values keep their
+ * types. Values of any other type cannot be encoded.
+ * <p>
+ * Encoding is thread safe. Decoding reuses a buffer for strings, so each data source needs its own codec.
+ * </p>
+ */
+public class RecordCodec {
+
+    private static final byte NULL = 0;
+    private static final byte FALSE = 1;
+    private static final byte TRUE = 2;
+    private static final byte BYTE = 3;
+    private static final byte SHORT = 4;
+    private static final byte INT = 5;
+    private static final byte LONG = 6;
+    private static final byte FLOAT = 7;
+    private static final byte DOUBLE = 8;
+    private static final byte CHAR = 9;
+    private static final byte STRING = 10;
+    private static final byte UUID_TAG = 11;
+    private static final byte DATE = 12;
+    private static final byte LIST = 13;
+    private static final byte MAP = 14;
+
+    private static final int INITIAL_BUFFER_SIZE = 256;
+
+    private byte[] stringBytes = new byte[INITIAL_BUFFER_SIZE];
+
+    /**
+     * Encodes record into bytes.
+     *
+     * @param record Record to encode.
+     * @return Encoded record.
+     * @throws IllegalArgumentException If record contains value of unsupported type.
+     */
+    public byte[] encode(Object record) {
+        Output output = new Output();
+        write(output, record);
+        return output.toByteArray();
+    }
+
+    /**
+     * Decodes record from remaining bytes of <code>buffer</code>, advancing its position past the record.
+     *
+     * @param buffer Buffer positioned at encoded record.
+     * @return Decoded record.
+     * @throws IllegalArgumentException If buffer does not contain encoded record.
+     */
+    public Object decode(ByteBuffer buffer) {
+        byte tag = buffer.get();
+        switch (tag) {
+            case NULL:
+                return null;
+            case FALSE:
+                return Boolean.FALSE;
+            case TRUE:
+                return Boolean.TRUE;
+            case BYTE:
+                return buffer.get();
+            case SHORT:
+                return buffer.getShort();
+            case INT:
+                return buffer.getInt();
+            case LONG:
+                return buffer.getLong();
+            case FLOAT:
+                return buffer.getFloat();
+            case DOUBLE:
+                return buffer.getDouble();
+            case CHAR:
+                return buffer.getChar();
+            case STRING:
+                return readString(buffer);
+            case UUID_TAG:
+                return new UUID(buffer.getLong(), buffer.getLong());
+            case DATE:
+                return new Date(buffer.getLong());
+            case LIST:
+                int size = buffer.getInt();
+                List<Object> list = new ArrayList<>(size);
+                for (int i = 0; i < size; i++) {
+                    list.add(decode(buffer));
+                }
+                return list;
+            case MAP:
+                int entries = buffer.getInt();
+                // load factor of 0.75 would otherwise resize the map while it is filled
+                Map<Object, Object> map = new LinkedHashMap<>(entries * 4 / 3 + 1);
+                for (int i = 0; i < entries; i++) {
+                    Object key = decode(buffer);
+                    map.put(key, decode(buffer));
+                }
+                return map;
+            default:
+                throw new IllegalArgumentException("Unknown tag " + tag + " at position " + (buffer.position() - 1)
+                        + ".");
+        }
+    }
+
+    private String readString(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        if (buffer.hasArray()) {
+            String result = new String(buffer.array(), buffer.arrayOffset() + buffer.position(), length,
+                    StandardCharsets.UTF_8);
+            buffer.position(buffer.position() + length);
+            return result;
+        }
+        if (stringBytes.length < length) {
+            stringBytes = new byte[Math.max(length, 2 * stringBytes.length)];
+        }
+        buffer.get(stringBytes, 0, length);
+        return new String(stringBytes, 0, length, StandardCharsets.UTF_8);
+    }
+
+    private static void write(Output output, Object value) {
+        if (value == null) {
+            output.writeByte(NULL);
+        } else if (value instanceof Boolean) {
+            output.writeByte((Boolean) value ? TRUE : FALSE);
+        } else if (value instanceof Byte) {
+            output.writeByte(BYTE);
+            output.writeByte((Byte) value);
+        } else if (value instanceof Short) {
+            output.writeByte(SHORT);
+            output.writeShort((Short) value);
+        } else if (value instanceof Integer) {
+            output.writeByte(INT);
+            output.writeInt((Integer) value);
+        } else if (value instanceof Long) {
+            output.writeByte(LONG);
+            output.writeLong((Long) value);
+        } else if (value instanceof Float) {
+            output.writeByte(FLOAT);
+            output.writeInt(Float.floatToIntBits((Float) value));
+        } else if (value instanceof Double) {
+            output.writeByte(DOUBLE);
+            output.writeLong(Double.doubleToLongBits((Double) value));
+        } else if (value instanceof Character) {
+            output.writeByte(CHAR);
+            output.writeShort((Character) value);
+        } else if (value instanceof String) {
+            byte[] bytes = ((String) value).getBytes(StandardCharsets.UTF_8);
+            output.writeByte(STRING);
+            output.writeInt(bytes.length);
+            output.write(bytes);
+        } else if (value instanceof UUID) {
+            output.writeByte(UUID_TAG);
+            output.writeLong(((UUID) value).getMostSignificantBits());
+            output.writeLong(((UUID) value).getLeastSignificantBits());
+        } else if (value instanceof Date) {
+            output.writeByte(DATE);
+            output.writeLong(((Date) value).getTime());
+        } else if (value instanceof List) {
+            List<?> list = (List<?>) value;
+            output.writeByte(LIST);
+            output.writeInt(list.size());
+            for (Object element : list) {
+                write(output, element);
+            }
+        } else if (value instanceof Map) {
+            Map<?, ?> map = (Map<?, ?>) value;
+            output.writeByte(MAP);
+            output.writeInt(map.size());
+            for (Map.Entry<?, ?> entry : map.entrySet()) {
+                write(output, entry.getKey());
+                write(output, entry.getValue());
+            }
+        } else {
+            throw new IllegalArgumentException("Values of type " + value.getClass().getName()
+                    + " cannot be encoded.");
+        }
+    }
+
+    /**
+     * Growable big-endian byte array output, unsynchronized unlike {@link java.io.ByteArrayOutputStream}.
+     */
+    private static final class Output {
+
+        private byte[] bytes = new byte[INITIAL_BUFFER_SIZE];
+        private int size;
+
+        void writeByte(int value) {
+            ensureCapacity(1);
+            bytes[size++] = (byte) value;
+        }
+
+        void writeShort(int value) {
+            ensureCapacity(2);
+            bytes[size++] = (byte) (value >>> 8);
+            bytes[size++] = (byte) value;
+        }
+
+        void writeInt(int value) {
+            ensureCapacity(4);
+            for (int shift = 24; shift >= 0; shift -= 8) {
+                bytes[size++] = (byte) (value >>> shift);
+            }
+        }
+
+        void writeLong(long value) {
+            ensureCapacity(8);
+            for (int shift = 56; shift >= 0; shift -= 8) {
+                bytes[size++] = (byte) (value >>> shift);
+            }
+        }
+
+        void write(byte[] value) {
+            ensureCapacity(value.length);
+            System.arraycopy(value, 0, bytes, size, value.length);
+            size += value.length;
+        }
+
+        byte[] toByteArray() {
+            return Arrays.copyOf(bytes, size);
+        }
+
+        private void ensureCapacity(int additional) {
+            if (size + additional > bytes.length) {
+                bytes = Arrays.copyOf(bytes, Math.max(size + additional, 2 * bytes.length));
+            }
+        }
+    }
+}
@@ -0,0 +1,181 @@
+package io.smartcat.berserker.metrics;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Histogram;
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricFilter;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.ScheduledReporter;
+import com.codahale.metrics.Snapshot;
+import com.codahale.metrics.Timer;
+
+/**
+ * Reporter which appends one row per reporting period for each metric to <code>&lt;metric name&gt;.csv</code> file
+ * within specified directory, in the same layout Dropwizard's CSV reporter uses, with timestamp in seconds in the first
+ * column. Meter rows additionally contain <code>interval_rate</code>, number of events per second during the last
+ * period, and histogram rows contain 99.99th percentile. Histograms report what their reservoir snapshot covers, which
+ * for {@link HdrHistogramReservoir} with snapshot interval equal to reporting period is the last period. Timers are not
+ * reported.
+ * <p>
+ * Files are appended to, and header is written only to empty files. Each file is kept open and gets a single write
+ * of its row per period, encoded into a buffer reused across periods, so reporting at one second resolution is cheap.
+ * </p>
+ */
+public class CsvReporter extends ScheduledReporter {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(CsvReporter.class);
+    private static final String GAUGE_HEADER = "t,value";
+    private static final String COUNTER_HEADER = "t,count";
+    private static final String HISTOGRAM_HEADER = "t,count,max,mean,min,stddev,p50,p75,p95,p98,p99,p999,p9999";
+    private static final String METER_HEADER = "t,count,mean_rate,m1_rate,m5_rate,m15_rate,rate_unit,interval_rate";
+
+    private final Path directory;
+    private final Map<String, FileChannel> channels = new HashMap<>();
+    private final Map<String, Long> previousCounts = new HashMap<>();
+    private final StringBuilder row = new StringBuilder(256);
+    private ByteBuffer buffer = ByteBuffer.allocate(1024);
+    private long previousTimeInMillis;
+
+    /**
+     * Constructs reporter which writes metrics matching <code>filter</code> from <code>metricRegistry</code> to files
+     * within <code>directory</code>. Directory is created if it does not exist.
+     *
+     * @param metricRegistry Metric registry whose metrics are reported.
+     * @param filter Filter determining which metrics are reported.
+     * @param directory Directory in which files are created.
+     * @throws IOException If directory cannot be created.
+     */
+    public CsvReporter(MetricRegistry metricRegistry, MetricFilter filter, Path directory) throws IOException {
+        super(metricRegistry, "csv-reporter", filter, TimeUnit.SECONDS, TimeUnit.NANOSECONDS);
+        if (directory == null) {
+            throw new IllegalArgumentException("Directory cannot be null.");
+        }
+        this.directory = Files.createDirectories(directory);
+        this.previousTimeInMillis = System.currentTimeMillis();
+    }
+
+    @Override
+    @SuppressWarnings("rawtypes")
+    public void report(SortedMap<String, Gauge> gauges, SortedMap<String, Counter> counters,
+            SortedMap<String, Histogram> histograms, SortedMap<String, Meter> meters, SortedMap<String, Timer> timers) {
+        long now = System.currentTimeMillis();
+        long timestamp = TimeUnit.MILLISECONDS.toSeconds(now);
+        for (Map.Entry<String, Gauge> entry : gauges.entrySet()) {
+            startRow(timestamp).append(entry.getValue().getValue());
+            writeRow(entry.getKey(), GAUGE_HEADER);
+        }
+        for (Map.Entry<String, Counter> entry : counters.entrySet()) {
+            startRow(timestamp).append(entry.getValue().getCount());
+            writeRow(entry.getKey(), COUNTER_HEADER);
+        }
+        for (Map.Entry<String, Histogram> entry : histograms.entrySet()) {
+            Histogram histogram = entry.getValue();
+            Snapshot snapshot = histogram.getSnapshot();
+            startRow(timestamp).append(histogram.getCount()).append(',').append(snapshot.getMax()).append(',')
+                    .append(snapshot.getMean()).append(',').append(snapshot.getMin()).append(',')
+                    .append(snapshot.getStdDev()).append(',').append(snapshot.getMedian()).append(',')
+                    .append(snapshot.get75thPercentile()).append(',').append(snapshot.get95thPercentile()).append(',')
+                    .append(snapshot.get98thPercentile()).append(',').append(snapshot.get99thPercentile()).append(',')
+                    .append(snapshot.get999thPercentile()).append(',').append(snapshot.getValue(0.9999));
+            writeRow(entry.getKey(), HISTOGRAM_HEADER);
+        }
+        double elapsedSeconds = Math.max(1, now - previousTimeInMillis) / 1000.0;
+        for (Map.Entry<String, Meter> entry : meters.entrySet()) {
+            Meter meter = entry.getValue();
+            long count = meter.getCount();
+            Long previousCount = previousCounts.put(entry.getKey(), count);
+            long events = previousCount == null ? count : count - previousCount;
+            startRow(timestamp).append(count).append(',').append(convertRate(meter.getMeanRate())).append(',')
+                    .append(convertRate(meter.getOneMinuteRate())).append(',')
+                    .append(convertRate(meter.getFiveMinuteRate())).append(',')
+                    .append(convertRate(meter.getFifteenMinuteRate())).append(",events/").append(getRateUnit())
+                    .append(',').append(events / elapsedSeconds);
+            writeRow(entry.getKey(), METER_HEADER);
+        }
+        previousTimeInMillis = now;
+    }
+
+    @Override
+    public void stop() {
+        try {
+            super.stop();
+        } finally {
+            for (FileChannel channel : channels.values()) {
+                try {
+                    channel.close();
+                } catch (IOException e) {
+                    LOGGER.warn("Error while closing CSV file.", e);
+                }
+            }
+            channels.clear();
+        }
+    }
+
+    private StringBuilder startRow(long timestamp) {
+        row.setLength(0);
+        return row.append(timestamp).append(',');
+    }
+
+    private void writeRow(String name, String header) {
+        try {
+            FileChannel channel = channels.get(name);
+            if (channel == null) {
+                channel = open(name, header);
+                channels.put(name, channel);
+            }
+            row.append('\n');
+            write(channel, row);
+        } catch (IOException e) {
+            LOGGER.error("Error while writing CSV file for metric: " + name, e);
+        }
+    }
+
+    private FileChannel open(String name, String header) throws IOException {
+        FileChannel channel = FileChannel.open(directory.resolve(sanitize(name) + ".csv"), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        if (channel.size() == 0) {
+            write(channel, header + "\n");
+        }
+        return channel;
+    }
+
+    private void write(FileChannel channel, CharSequence text) throws IOException {
+        int length = text.length();
+        if (buffer.capacity() < length * 3) {
+            buffer = ByteBuffer.allocate(length * 3);
+        }
+        buffer.clear();
+        for (int i = 0; i < length; i++) {
+            char c = text.charAt(i);
+            if (c < 0x80) {
+                buffer.put((byte) c);
+            } else {
+                buffer.put(String.valueOf(c).getBytes(StandardCharsets.UTF_8));
+            }
+        }
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    private static String sanitize(String name) {
+        return name.replaceAll("[^A-Za-z0-9._-]", "_");
+    }
+}
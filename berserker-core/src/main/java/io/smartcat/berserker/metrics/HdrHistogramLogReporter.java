@@ -0,0 +1,145 @@
+package io.smartcat.berserker.metrics;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.io.UnsupportedEncodingException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.concurrent.TimeUnit;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.HistogramLogWriter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricFilter;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.ScheduledReporter;
+import com.codahale.metrics.Timer;
+
+/**
+ * Reporter which appends histograms recorded during each reporting period to a file in HdrHistogram log format, one
+ * compressed interval histogram per metric, tagged with metric name. Log can be processed with
+ * <code>HistogramLogProcessor</code> or merged with logs of other processes by interval timestamps, which are
+ * absolute.
+ * <p>
+ * Only histograms backed by {@link HdrHistogramReservoir} are written, other metrics are ignored. Interval histogram is
+ * computed as difference between the current and the previous cumulative histogram, so it does not depend on
+ * snapshot interval of the reservoir. Log is written through a buffer which is flushed to the file channel once per
+ * reporting period, and nothing but the last cumulative histogram of each metric is kept in memory. Stopping the
+ * reporter writes histograms recorded since the last period, so the log covers the whole run.
+ * </p>
+ */
+public class HdrHistogramLogReporter extends ScheduledReporter {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(HdrHistogramLogReporter.class);
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final PrintStream output;
+    private final HistogramLogWriter writer;
+    private final Map<String, Histogram> previousHistograms = new HashMap<>();
+
+    private long previousReportTimeInMillis;
+    private boolean stopping;
+
+    /**
+     * Constructs reporter which writes histograms matching <code>filter</code> from <code>metricRegistry</code> to
+     * file at <code>path</code>. File is created if it does not exist and truncated otherwise, and log header is
+     * written immediately.
+     *
+     * @param metricRegistry Metric registry whose histograms are reported.
+     * @param filter Filter determining which histograms are reported.
+     * @param path Path of the log file.
+     * @throws IOException If file cannot be opened.
+     */
+    public HdrHistogramLogReporter(MetricRegistry metricRegistry, MetricFilter filter, Path path) throws IOException {
+        super(metricRegistry, "hdr-histogram-log-reporter", filter, TimeUnit.SECONDS, TimeUnit.NANOSECONDS);
+        if (path == null) {
+            throw new IllegalArgumentException("Path cannot be null.");
+        }
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+        try {
+            this.output = new PrintStream(new BufferedOutputStream(Channels.newOutputStream(channel), BUFFER_SIZE),
+                    false, "UTF-8");
+        } catch (UnsupportedEncodingException e) {
+            channel.close();
+            throw new UncheckedIOException(e);
+        }
+        this.writer = new HistogramLogWriter(output);
+        this.previousReportTimeInMillis = System.currentTimeMillis();
+        writer.outputLogFormatVersion();
+        writer.outputStartTime(previousReportTimeInMillis);
+        writer.setBaseTime(previousReportTimeInMillis);
+        writer.outputBaseTime(previousReportTimeInMillis);
+        writer.outputLegend();
+        flush();
+    }
+
+    @Override
+    @SuppressWarnings("rawtypes")
+    public void report(SortedMap<String, Gauge> gauges, SortedMap<String, Counter> counters,
+            SortedMap<String, com.codahale.metrics.Histogram> histograms, SortedMap<String, Meter> meters,
+            SortedMap<String, Timer> timers) {
+        long now = System.currentTimeMillis();
+        for (Map.Entry<String, com.codahale.metrics.Histogram> entry : histograms.entrySet()) {
+            if (!(entry.getValue() instanceof ReservoirHistogram)) {
+                continue;
+            }
+            ReservoirHistogram histogram = (ReservoirHistogram) entry.getValue();
+            if (histogram.getReservoir() instanceof HdrHistogramReservoir) {
+                Histogram cumulative = ((HdrHistogramReservoir) histogram.getReservoir()).getCumulativeHistogram();
+                writeInterval(entry.getKey(), cumulative, now);
+            }
+        }
+        previousReportTimeInMillis = now;
+        flush();
+    }
+
+    @Override
+    public void stop() {
+        try {
+            super.stop();
+            synchronized (this) {
+                stopping = true;
+            }
+            report();
+        } finally {
+            output.close();
+        }
+    }
+
+    private void writeInterval(String name, Histogram cumulative, long now) {
+        Histogram interval = cumulative.copy();
+        Histogram previous = previousHistograms.put(name, cumulative);
+        if (previous != null) {
+            interval.subtract(previous);
+        }
+        if (stopping && interval.getTotalCount() == 0) {
+            // final interval is written only when there is something left to write, as the last period may have just
+            // been reported
+            return;
+        }
+        interval.setStartTimeStamp(previousReportTimeInMillis);
+        interval.setEndTimeStamp(now);
+        interval.setTag(name);
+        writer.outputIntervalHistogram(interval);
+    }
+
+    private void flush() {
+        output.flush();
+        if (output.checkError()) {
+            LOGGER.error("Error while writing HdrHistogram log.");
+        }
+    }
+}
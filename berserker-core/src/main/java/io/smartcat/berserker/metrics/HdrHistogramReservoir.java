@@ -0,0 +1,185 @@
+package io.smartcat.berserker.metrics;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import com.codahale.metrics.Reservoir;
+import com.codahale.metrics.Snapshot;
+
+/**
+ * {@link Reservoir} which keeps all recorded values with resolution of HdrHistogram instead of sampling them, so high
+ * percentiles are exact up to configured number of significant digits regardless of number of recorded values.
+ * <p>
+ * Values are recorded into {@link Recorder}, which is wait-free for recording threads. To keep threads recording
+ * concurrently, typically worker threads and I/O threads of client libraries invoking callbacks, from contending on
+ * the same counters, reservoir keeps several recorders and each thread records into the one selected by its id.
+ * Number of recorders is the largest power of two not greater than number of available processors, up to 8. Values
+ * recorded by all recorders are merged into cumulative histogram whenever snapshot is requested. Values greater than
+ * <code>highestTrackableValue</code> are recorded as <code>highestTrackableValue</code> and negative values are
+ * recorded as zero.
+ * </p>
+ * <p>
+ * When <code>snapshotInterval</code> is zero, snapshot contains all values recorded since this reservoir was created.
+ * Otherwise, snapshot contains only values recorded during the last interval. New interval is started when snapshot
+ * is requested and at least <code>snapshotInterval</code> passed since the previous interval was started, so
+ * reservoir can be shared among several reporters which then all observe the same interval. Snapshot interval should
+ * therefore be equal to or slightly smaller than reporting period.
+ * </p>
+ */
+public class HdrHistogramReservoir implements Reservoir {
+
+    /**
+     * Default highest value which can be recorded, one hour in nanoseconds.
+     */
+    public static final long DEFAULT_HIGHEST_TRACKABLE_VALUE = TimeUnit.HOURS.toNanos(1);
+
+    /**
+     * Default number of significant decimal digits to which values are recorded.
+     */
+    public static final int DEFAULT_SIGNIFICANT_DIGITS = 3;
+
+    private static final int MAX_STRIPES = 8;
+
+    private final long highestTrackableValue;
+    private final long snapshotIntervalInNanos;
+    private final int mask;
+    private final Recorder[] recorders;
+    private final Histogram[] intervals;
+    private final Histogram cumulative;
+
+    private Histogram lastIntervalStart;
+    private Histogram lastIntervalHistogram;
+    private long lastIntervalStartInNanos;
+
+    /**
+     * Constructs reservoir with highest trackable value of one hour in nanoseconds, 3 significant digits and
+     * cumulative snapshots.
+     */
+    public HdrHistogramReservoir() {
+        this(DEFAULT_HIGHEST_TRACKABLE_VALUE, DEFAULT_SIGNIFICANT_DIGITS);
+    }
+
+    /**
+     * Constructs reservoir with specified <code>highestTrackableValue</code> and <code>significantDigits</code> and
+     * cumulative snapshots.
+     *
+     * @param highestTrackableValue Highest value which can be recorded, must be at least 2.
+     * @param significantDigits Number of significant decimal digits to which values are recorded, must be between 0
+     *            and 5.
+     */
+    public HdrHistogramReservoir(long highestTrackableValue, int significantDigits) {
+        this(highestTrackableValue, significantDigits, 0, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Constructs reservoir with specified <code>highestTrackableValue</code>, <code>significantDigits</code> and
+     * <code>snapshotInterval</code>.
+     *
+     * @param highestTrackableValue Highest value which can be recorded, must be at least 2.
+     * @param significantDigits Number of significant decimal digits to which values are recorded, must be between 0
+     *            and 5.
+     * @param snapshotInterval Length of interval snapshot covers, must not be negative number. Zero means snapshot
+     *            covers all recorded values.
+     * @param unit Time unit of <code>snapshotInterval</code>.
+     */
+    public HdrHistogramReservoir(long highestTrackableValue, int significantDigits, long snapshotInterval,
+            TimeUnit unit) {
+        if (highestTrackableValue < 2) {
+            throw new IllegalArgumentException("Highest trackable value must be at least 2.");
+        }
+        if (significantDigits < 0 || significantDigits > 5) {
+            throw new IllegalArgumentException("Significant digits must be between 0 and 5.");
+        }
+        if (snapshotInterval < 0) {
+            throw new IllegalArgumentException("Snapshot interval must not be negative number.");
+        }
+        if (unit == null) {
+            throw new IllegalArgumentException("Unit cannot be null.");
+        }
+        this.highestTrackableValue = highestTrackableValue;
+        this.snapshotIntervalInNanos = unit.toNanos(snapshotInterval);
+        int stripes = Integer.highestOneBit(Math.min(MAX_STRIPES, Runtime.getRuntime().availableProcessors()));
+        this.mask = stripes - 1;
+        this.recorders = new Recorder[stripes];
+        for (int i = 0; i < stripes; i++) {
+            recorders[i] = new Recorder(1, highestTrackableValue, significantDigits);
+        }
+        this.intervals = new Histogram[stripes];
+        this.cumulative = new Histogram(1, highestTrackableValue, significantDigits);
+    }
+
+    @Override
+    public int size() {
+        return (int) Math.min(Integer.MAX_VALUE, getCount());
+    }
+
+    @Override
+    public void update(long value) {
+        int stripe = (int) Thread.currentThread().getId() & mask;
+        recorders[stripe].recordValue(Math.max(0, Math.min(value, highestTrackableValue)));
+    }
+
+    @Override
+    public synchronized Snapshot getSnapshot() {
+        drain();
+        if (snapshotIntervalInNanos == 0) {
+            return new HdrHistogramSnapshot(cumulative.copy());
+        }
+        long now = System.nanoTime();
+        if (lastIntervalHistogram == null || now - lastIntervalStartInNanos >= snapshotIntervalInNanos) {
+            lastIntervalHistogram = cumulative.copy();
+            if (lastIntervalStart != null) {
+                lastIntervalHistogram.subtract(lastIntervalStart);
+            }
+            lastIntervalStart = cumulative.copy();
+            lastIntervalStartInNanos = now;
+        }
+        return new HdrHistogramSnapshot(lastIntervalHistogram);
+    }
+
+    /**
+     * Returns number of values recorded since this reservoir was created.
+     *
+     * @return Number of values recorded since this reservoir was created.
+     */
+    public synchronized long getCount() {
+        drain();
+        return cumulative.getTotalCount();
+    }
+
+    /**
+     * Returns copy of histogram with all values recorded since this reservoir was created, regardless of
+     * <code>snapshotInterval</code>.
+     *
+     * @return Copy of histogram with all values recorded since this reservoir was created.
+     */
+    public synchronized Histogram getCumulativeHistogram() {
+        drain();
+        return cumulative.copy();
+    }
+
+    /**
+     * Passes histogram with all values recorded since this reservoir was created to <code>reader</code>, without
+     * copying it. Histogram is locked while reader runs, so reader should be quick and must neither modify histogram
+     * nor hold on to it after it returns.
+     *
+     * @param reader Consumer reading cumulative histogram.
+     */
+    public synchronized void readCumulativeHistogram(Consumer<Histogram> reader) {
+        drain();
+        reader.accept(cumulative);
+    }
+
+    /**
+     * Moves values recorded since the last drain by all recorders to cumulative histogram, reusing interval histograms.
+     */
+    private void drain() {
+        for (int i = 0; i < recorders.length; i++) {
+            intervals[i] = recorders[i].getIntervalHistogram(intervals[i]);
+            cumulative.add(intervals[i]);
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package io.smartcat.berserker.metrics;
+
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.HistogramIterationValue;
+
+import com.codahale.metrics.Snapshot;
+
+/**
+ * {@link Snapshot} backed by HdrHistogram. Quantiles, mean and standard deviation are computed from all recorded
+ * values. Since histogram may hold far more values than can be listed, {@link #getValues()} returns evenly spaced
+ * sample of at most {@value #MAX_VALUES} values.
+ */
+public class HdrHistogramSnapshot extends Snapshot {
+
+    /**
+     * Maximum number of values returned by {@link #getValues()}.
+     */
+    public static final int MAX_VALUES = 10000;
+
+    private final Histogram histogram;
+
+    /**
+     * Constructs snapshot of specified <code>histogram</code>. Histogram must not be modified afterwards.
+     *
+     * @param histogram Histogram this snapshot is based on.
+     */
+    public HdrHistogramSnapshot(Histogram histogram) {
+        if (histogram == null) {
+            throw new IllegalArgumentException("Histogram cannot be null.");
+        }
+        this.histogram = histogram;
+    }
+
+    @Override
+    public double getValue(double quantile) {
+        if (quantile < 0.0 || quantile > 1.0 || Double.isNaN(quantile)) {
+            throw new IllegalArgumentException(quantile + " is not in [0..1]");
+        }
+        return histogram.getValueAtPercentile(quantile * 100);
+    }
+
+    @Override
+    public long[] getValues() {
+        long totalCount = histogram.getTotalCount();
+        int length = (int) Math.min(MAX_VALUES, totalCount);
+        long[] values = new long[length];
+        int index = 0;
+        for (HistogramIterationValue recorded : histogram.recordedValues()) {
+            long value = histogram.highestEquivalentValue(recorded.getValueIteratedTo());
+            // sampled ranks are spread evenly over all recorded values, each falls into exactly one bucket
+            while (index < length && rank(index, length, totalCount) < recorded.getTotalCountToThisValue()) {
+                values[index++] = value;
+            }
+        }
+        return values;
+    }
+
+    @Override
+    public int size() {
+        return (int) Math.min(Integer.MAX_VALUE, histogram.getTotalCount());
+    }
+
+    @Override
+    public long getMax() {
+        return histogram.getMaxValue();
+    }
+
+    @Override
+    public double getMean() {
+        return histogram.getMean();
+    }
+
+    @Override
+    public long getMin() {
+        return histogram.getMinValue();
+    }
+
+    @Override
+    public double getStdDev() {
+        return histogram.getStdDeviation();
+    }
+
+    @Override
+    public void dump(OutputStream output) {
+        try (PrintWriter out = new PrintWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8))) {
+            for (long value : getValues()) {
+                out.printf("%d%n", value);
+            }
+        }
+    }
+
+    /**
+     * Returns histogram this snapshot is based on.
+     *
+     * @return Histogram this snapshot is based on.
+     */
+    public Histogram getHistogram() {
+        return histogram;
+    }
+
+    private static long rank(int index, int length, long totalCount) {
+        return (long) ((index + 0.5) * totalCount / length);
+    }
+}
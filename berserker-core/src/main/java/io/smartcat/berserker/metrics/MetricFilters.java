@@ -0,0 +1,33 @@
+package io.smartcat.berserker.metrics;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import com.codahale.metrics.MetricFilter;
+
+/**
+ * Factory methods for {@link MetricFilter}s used by metrics reporter configurations.
+ */
+public final class MetricFilters {
+
+    private MetricFilters() {
+    }
+
+    /**
+     * Creates filter matching metrics whose names are listed in comma separated <code>names</code>. When
+     * <code>names</code> is null or empty, <code>defaultFilter</code> is returned.
+     *
+     * @param names Comma separated list of metric names.
+     * @param defaultFilter Filter to return when no names are listed.
+     * @return Filter matching listed metrics.
+     */
+    public static MetricFilter fromNames(String names, MetricFilter defaultFilter) {
+        if (names == null || names.isEmpty()) {
+            return defaultFilter;
+        }
+        List<String> metrics = Arrays.asList(names.split(",")).stream().map(x -> x.trim())
+                .collect(Collectors.toList());
+        return (name, metric) -> metrics.contains(name);
+    }
+}
@@ -0,0 +1,413 @@
+package io.smartcat.berserker.metrics;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Histogram;
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricFilter;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.MetricRegistryListener;
+import com.codahale.metrics.Reporter;
+import com.codahale.metrics.Snapshot;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Reporter which serves metrics in Prometheus text exposition format from an embedded HTTP server, at
+ * <code>/metrics</code> path. Metric names are sanitized by replacing characters Prometheus does not allow with
+ * underscore, so <code>io.smartcat.berserker.waitTime</code> becomes <code>io_smartcat_berserker_waitTime</code>.
+ * <ul>
+ * <li>Gauges with numeric or boolean values and counters are exposed as gauges.</li>
+ * <li>Meters are exposed as <code>&lt;name&gt;_total</code> counter and <code>&lt;name&gt;_rate</code> gauge with
+ * <code>1m</code>, <code>5m</code>, <code>15m</code> and <code>mean</code> windows, in events per second.</li>
+ * <li>Histograms are exposed as summaries with 0.5, 0.75, 0.95, 0.98, 0.99, 0.999 and 0.9999 quantiles, in recorded
+ * units, which is nanoseconds for latencies. Quantiles of histograms backed by {@link HdrHistogramReservoir} are
+ * computed over all values recorded since the start of the run.</li>
+ * <li>Timers are not exposed.</li>
+ * </ul>
+ * <p>
+ * Metrics are tracked through registry listener, and names and label strings are computed once when metric is
+ * registered. Response is rendered into a buffer reused across scrapes and HdrHistogram backed histograms are read
+ * in place, so scraping does not allocate per metric and frequent scrapes do not disturb the load.
+ * </p>
+ */
+public class PrometheusReporter implements Reporter {
+
+    private static final String PATH = "/metrics";
+    private static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+    private static final double[] QUANTILES = { 0.5, 0.75, 0.95, 0.98, 0.99, 0.999, 0.9999 };
+    private static final int INITIAL_BUFFER_SIZE = 16 * 1024;
+
+    private final MetricRegistry metricRegistry;
+    private final MetricFilter filter;
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final MetricRegistryListener listener = new Listener();
+    private final StringBuilder text = new StringBuilder(INITIAL_BUFFER_SIZE);
+
+    private volatile Exported[] exported = new Exported[0];
+    private byte[] buffer = new byte[INITIAL_BUFFER_SIZE];
+
+    /**
+     * Constructs reporter which serves metrics matching <code>filter</code> from <code>metricRegistry</code> at
+     * specified <code>address</code>. Server is bound immediately, but does not serve requests until
+     * {@link #start()} is invoked.
+     *
+     * @param metricRegistry Metric registry whose metrics are served.
+     * @param filter Filter determining which metrics are served.
+     * @param address Address to bind server to, port 0 means that port is chosen by the system.
+     * @throws IOException If server cannot be bound to address.
+     */
+    public PrometheusReporter(MetricRegistry metricRegistry, MetricFilter filter, InetSocketAddress address)
+            throws IOException {
+        if (metricRegistry == null) {
+            throw new IllegalArgumentException("Metric registry cannot be null.");
+        }
+        if (filter == null) {
+            throw new IllegalArgumentException("Filter cannot be null.");
+        }
+        this.metricRegistry = metricRegistry;
+        this.filter = filter;
+        this.server = HttpServer.create(address, 0);
+        this.executor = Executors.newSingleThreadExecutor(r -> {
+            Thread thread = new Thread(r, "prometheus-reporter");
+            thread.setDaemon(true);
+            return thread;
+        });
+        server.setExecutor(executor);
+        server.createContext(PATH, this::handle);
+    }
+
+    /**
+     * Starts tracking metrics of the registry and serving requests.
+     */
+    public void start() {
+        metricRegistry.addListener(listener);
+        server.start();
+    }
+
+    /**
+     * Stops serving requests and tracking metrics.
+     */
+    public void stop() {
+        server.stop(0);
+        executor.shutdownNow();
+        metricRegistry.removeListener(listener);
+    }
+
+    @Override
+    public void close() {
+        stop();
+    }
+
+    /**
+     * Returns port server is bound to.
+     *
+     * @return Port server is bound to.
+     */
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            if (!"GET".equals(exchange.getRequestMethod())) {
+                exchange.sendResponseHeaders(405, -1);
+                return;
+            }
+            int length = render();
+            exchange.getResponseHeaders().set("Content-Type", CONTENT_TYPE);
+            exchange.sendResponseHeaders(200, length);
+            exchange.getResponseBody().write(buffer, 0, length);
+        } finally {
+            exchange.close();
+        }
+    }
+
+    /**
+     * Renders all metrics into buffer, growing it if necessary. Invoked only from the single server thread.
+     */
+    private int render() {
+        text.setLength(0);
+        for (Exported metric : exported) {
+            metric.render(text);
+        }
+        int length = text.length();
+        if (buffer.length < length) {
+            buffer = new byte[Math.max(length, buffer.length * 2)];
+        }
+        // sanitized names, labels and numbers are all ASCII
+        for (int i = 0; i < length; i++) {
+            buffer[i] = (byte) text.charAt(i);
+        }
+        return length;
+    }
+
+    private synchronized void add(Exported metric) {
+        Exported[] result = Arrays.copyOf(exported, exported.length + 1);
+        result[result.length - 1] = metric;
+        Arrays.sort(result, Comparator.comparing(m -> m.registryName));
+        exported = result;
+    }
+
+    private synchronized void remove(String registryName) {
+        exported = Arrays.stream(exported).filter(m -> !m.registryName.equals(registryName))
+                .toArray(Exported[]::new);
+    }
+
+    private static String sanitize(String name) {
+        StringBuilder result = new StringBuilder(name.length() + 1);
+        if (name.isEmpty() || Character.isDigit(name.charAt(0))) {
+            result.append('_');
+        }
+        for (int i = 0; i < name.length(); i++) {
+            char c = name.charAt(i);
+            boolean allowed = (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9') || c == '_'
+                    || c == ':';
+            result.append(allowed ? c : '_');
+        }
+        return result.toString();
+    }
+
+    private static void appendDouble(StringBuilder out, double value) {
+        if (Double.isNaN(value)) {
+            out.append("NaN");
+        } else if (Double.isInfinite(value)) {
+            out.append(value > 0 ? "+Inf" : "-Inf");
+        } else {
+            out.append(value);
+        }
+    }
+
+    /**
+     * Metric exposed by this reporter, with strings it renders computed in advance.
+     */
+    private abstract static class Exported {
+
+        private final String registryName;
+
+        Exported(String registryName) {
+            this.registryName = registryName;
+        }
+
+        abstract void render(StringBuilder out);
+    }
+
+    /**
+     * Exposes gauge with numeric or boolean value.
+     */
+    private static class ExportedGauge extends Exported {
+
+        private final Gauge<?> gauge;
+        private final String header;
+        private final String sample;
+
+        ExportedGauge(String registryName, Gauge<?> gauge) {
+            super(registryName);
+            String name = sanitize(registryName);
+            this.gauge = gauge;
+            this.header = "# TYPE " + name + " gauge\n";
+            this.sample = name + " ";
+        }
+
+        @Override
+        void render(StringBuilder out) {
+            Object value = gauge.getValue();
+            if (value instanceof Number) {
+                out.append(header).append(sample);
+                appendDouble(out, ((Number) value).doubleValue());
+                out.append('\n');
+            } else if (value instanceof Boolean) {
+                out.append(header).append(sample).append((Boolean) value ? 1 : 0).append('\n');
+            }
+        }
+    }
+
+    /**
+     * Exposes counter as gauge, since Dropwizard counters can be decremented.
+     */
+    private static class ExportedCounter extends Exported {
+
+        private final Counter counter;
+        private final String header;
+        private final String sample;
+
+        ExportedCounter(String registryName, Counter counter) {
+            super(registryName);
+            String name = sanitize(registryName);
+            this.counter = counter;
+            this.header = "# TYPE " + name + " gauge\n";
+            this.sample = name + " ";
+        }
+
+        @Override
+        void render(StringBuilder out) {
+            out.append(header).append(sample).append(counter.getCount()).append('\n');
+        }
+    }
+
+    /**
+     * Exposes meter as total counter and rate gauge.
+     */
+    private static class ExportedMeter extends Exported {
+
+        private final Meter meter;
+        private final String totalHeader;
+        private final String total;
+        private final String rateHeader;
+        private final String oneMinuteRate;
+        private final String fiveMinuteRate;
+        private final String fifteenMinuteRate;
+        private final String meanRate;
+
+        ExportedMeter(String registryName, Meter meter) {
+            super(registryName);
+            String name = sanitize(registryName);
+            this.meter = meter;
+            this.totalHeader = "# TYPE " + name + "_total counter\n";
+            this.total = name + "_total ";
+            this.rateHeader = "# TYPE " + name + "_rate gauge\n";
+            this.oneMinuteRate = name + "_rate{window=\"1m\"} ";
+            this.fiveMinuteRate = name + "_rate{window=\"5m\"} ";
+            this.fifteenMinuteRate = name + "_rate{window=\"15m\"} ";
+            this.meanRate = name + "_rate{window=\"mean\"} ";
+        }
+
+        @Override
+        void render(StringBuilder out) {
+            out.append(totalHeader).append(total).append(meter.getCount()).append('\n');
+            out.append(rateHeader);
+            out.append(oneMinuteRate);
+            appendDouble(out, meter.getOneMinuteRate());
+            out.append('\n').append(fiveMinuteRate);
+            appendDouble(out, meter.getFiveMinuteRate());
+            out.append('\n').append(fifteenMinuteRate);
+            appendDouble(out, meter.getFifteenMinuteRate());
+            out.append('\n').append(meanRate);
+            appendDouble(out, meter.getMeanRate());
+            out.append('\n');
+        }
+    }
+
+    /**
+     * Exposes histogram as summary. HdrHistogram backed histograms are read in place, others through snapshot.
+     */
+    private static class ExportedHistogram extends Exported implements Consumer<org.HdrHistogram.Histogram> {
+
+        private final Histogram histogram;
+        private final String header;
+        private final String[] quantiles;
+        private final String sum;
+        private final String count;
+
+        private StringBuilder out;
+
+        ExportedHistogram(String registryName, Histogram histogram) {
+            super(registryName);
+            String name = sanitize(registryName);
+            this.histogram = histogram;
+            this.header = "# TYPE " + name + " summary\n";
+            this.quantiles = new String[QUANTILES.length];
+            for (int i = 0; i < QUANTILES.length; i++) {
+                quantiles[i] = name + "{quantile=\"" + QUANTILES[i] + "\"} ";
+            }
+            this.sum = name + "_sum ";
+            this.count = name + "_count ";
+        }
+
+        @Override
+        void render(StringBuilder out) {
+            out.append(header);
+            if (histogram instanceof ReservoirHistogram
+                    && ((ReservoirHistogram) histogram).getReservoir() instanceof HdrHistogramReservoir) {
+                this.out = out;
+                ((HdrHistogramReservoir) ((ReservoirHistogram) histogram).getReservoir()).readCumulativeHistogram(this);
+                this.out = null;
+            } else {
+                Snapshot snapshot = histogram.getSnapshot();
+                for (int i = 0; i < QUANTILES.length; i++) {
+                    out.append(quantiles[i]);
+                    appendDouble(out, snapshot.getValue(QUANTILES[i]));
+                    out.append('\n');
+                }
+                long total = histogram.getCount();
+                out.append(sum);
+                appendDouble(out, snapshot.getMean() * total);
+                out.append('\n').append(count).append(total).append('\n');
+            }
+        }
+
+        @Override
+        public void accept(org.HdrHistogram.Histogram cumulative) {
+            for (int i = 0; i < QUANTILES.length; i++) {
+                out.append(quantiles[i]).append(cumulative.getValueAtPercentile(QUANTILES[i] * 100)).append('\n');
+            }
+            long total = cumulative.getTotalCount();
+            out.append(sum);
+            appendDouble(out, cumulative.getMean() * total);
+            out.append('\n').append(count).append(total).append('\n');
+        }
+    }
+
+    /**
+     * Keeps exposed metrics in sync with the registry.
+     */
+    private class Listener extends MetricRegistryListener.Base {
+
+        @Override
+        public void onGaugeAdded(String name, Gauge<?> gauge) {
+            if (filter.matches(name, gauge)) {
+                add(new ExportedGauge(name, gauge));
+            }
+        }
+
+        @Override
+        public void onGaugeRemoved(String name) {
+            remove(name);
+        }
+
+        @Override
+        public void onCounterAdded(String name, Counter counter) {
+            if (filter.matches(name, counter)) {
+                add(new ExportedCounter(name, counter));
+            }
+        }
+
+        @Override
+        public void onCounterRemoved(String name) {
+            remove(name);
+        }
+
+        @Override
+        public void onHistogramAdded(String name, Histogram histogram) {
+            if (filter.matches(name, histogram)) {
+                add(new ExportedHistogram(name, histogram));
+            }
+        }
+
+        @Override
+        public void onHistogramRemoved(String name) {
+            remove(name);
+        }
+
+        @Override
+        public void onMeterAdded(String name, Meter meter) {
+            if (filter.matches(name, meter)) {
+                add(new ExportedMeter(name, meter));
+            }
+        }
+
+        @Override
+        public void onMeterRemoved(String name) {
+            remove(name);
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package io.smartcat.berserker.metrics;
+
+import com.codahale.metrics.Histogram;
+import com.codahale.metrics.Reservoir;
+
+/**
+ * {@link Histogram} which exposes its {@link Reservoir}, so reporters can access full resolution data of
+ * {@link HdrHistogramReservoir}.
+ */
+public class ReservoirHistogram extends Histogram {
+
+    private final Reservoir reservoir;
+
+    /**
+     * Constructs histogram with specified <code>reservoir</code>.
+     *
+     * @param reservoir Reservoir used to keep recorded values.
+     */
+    public ReservoirHistogram(Reservoir reservoir) {
+        super(reservoir);
+        this.reservoir = reservoir;
+    }
+
+    /**
+     * Returns reservoir used to keep recorded values.
+     *
+     * @return Reservoir used to keep recorded values.
+     */
+    public Reservoir getReservoir() {
+        return reservoir;
+    }
+}
@@ -0,0 +1,261 @@
+package io.smartcat.berserker.metrics;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.HdrHistogram.Histogram;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Summary of a load generator run, written to a JSON file once the run is over. Summary contains duration of the run,
+ * number of requested, generated, processed, succeeded, failed and dropped messages, requested rate as provided by
+ * rate generator and achieved processing rate, and latency percentiles of all histograms backed by
+ * {@link HdrHistogramReservoir}, keyed by metric name. Values are computed both for the whole run and, when
+ * <code>segmentDuration</code> is positive, for each segment of that duration, so that phases of the run can be
+ * compared. Latencies are in nanoseconds. When rate is controlled by
+ * {@link io.smartcat.berserker.rategenerator.AdaptiveRateGenerator AdaptiveRateGenerator}, summary also contains rate
+ * it converged to.
+ * <p>
+ * Summary reads metrics by names {@link io.smartcat.berserker.worker.InternalWorker InternalWorker} and
+ * {@link io.smartcat.berserker.LoadGenerator LoadGenerator} register them under, so it should be given registry both
+ * of them registered their metrics to, and the same metrics prefix. Segment boundaries are taken on a separate daemon
+ * thread. Only counts and percentiles of finished segments are kept, together with the last cumulative histograms.
+ * </p>
+ */
+public class RunSummary {
+
+    private static final String DEFAULT_METRICS_PREFIX = "io.smartcat.berserker";
+    private static final String[] COUNTERS = { "requested", "generated", "processed", "succeeded", "failed",
+            "dropped" };
+    private static final String[] METERS = { "requestedThroughput", "generatedThroughput", "totalProcessedThroughput",
+            "successProcessedThroughput", "failureProcessedThroughput", "dropped" };
+    private static final String CONVERGED_RATE = "convergedRate";
+    private static final double[] PERCENTILES = { 50, 75, 90, 95, 99, 99.9, 99.99, 99.999 };
+
+    private final MetricRegistry metricRegistry;
+    private final String metricsPrefix;
+    private final long segmentDurationInNanos;
+    private final List<Map<String, Object>> segments = new ArrayList<>();
+    private final Map<String, Histogram> segmentStartHistograms = new HashMap<>();
+
+    private ScheduledExecutorService scheduler;
+    private Instant startTime;
+    private long startInNanos;
+    private long segmentStartInNanos;
+    private long[] segmentStartCounts;
+    private long endInNanos;
+    private long[] endCounts;
+
+    /**
+     * Constructs summary of metrics from <code>metricRegistry</code> registered with <code>metricsPrefix</code>,
+     * without segments.
+     *
+     * @param metricRegistry Metric registry with metrics of the run.
+     * @param metricsPrefix Prefix metrics are registered with.
+     */
+    public RunSummary(MetricRegistry metricRegistry, String metricsPrefix) {
+        this(metricRegistry, metricsPrefix, 0, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Constructs summary of metrics from <code>metricRegistry</code> registered with <code>metricsPrefix</code>, with
+     * segments of specified duration.
+     *
+     * @param metricRegistry Metric registry with metrics of the run.
+     * @param metricsPrefix Prefix metrics are registered with.
+     * @param segmentDuration Duration of a segment, must not be negative number. Zero means there are no segments.
+     * @param unit Time unit of <code>segmentDuration</code>.
+     */
+    public RunSummary(MetricRegistry metricRegistry, String metricsPrefix, long segmentDuration, TimeUnit unit) {
+        if (metricRegistry == null) {
+            throw new IllegalArgumentException("Metric registry cannot be null.");
+        }
+        if (segmentDuration < 0) {
+            throw new IllegalArgumentException("Segment duration must not be negative number.");
+        }
+        if (unit == null) {
+            throw new IllegalArgumentException("Unit cannot be null.");
+        }
+        this.metricRegistry = metricRegistry;
+        this.metricsPrefix = metricsPrefix == null || metricsPrefix.isEmpty() ? DEFAULT_METRICS_PREFIX : metricsPrefix;
+        this.segmentDurationInNanos = unit.toNanos(segmentDuration);
+    }
+
+    /**
+     * Marks the start of the run and starts taking segments.
+     */
+    public synchronized void start() {
+        if (startTime != null) {
+            throw new IllegalStateException("Summary is already started.");
+        }
+        startTime = Instant.now();
+        startInNanos = System.nanoTime();
+        startSegment(startInNanos);
+        if (segmentDurationInNanos > 0) {
+            scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread thread = new Thread(r, "run-summary");
+                thread.setDaemon(true);
+                return thread;
+            });
+            scheduler.scheduleAtFixedRate(this::finishSegment, segmentDurationInNanos, segmentDurationInNanos,
+                    TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * Marks the end of the run, unless it is already marked, and writes summary to file at <code>path</code>.
+     *
+     * @param path Path of the file to write summary to.
+     * @throws IOException If summary cannot be written.
+     */
+    public synchronized void writeTo(Path path) throws IOException {
+        try (Writer writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8)) {
+            new ObjectMapper().writerWithDefaultPrettyPrinter().writeValue(writer, toMap());
+        }
+    }
+
+    /**
+     * Returns summary as a tree of maps, lists and numbers, marking the end of the run if it is not already marked.
+     *
+     * @return Summary as a tree of maps, lists and numbers.
+     */
+    public synchronized Map<String, Object> toMap() {
+        if (startTime == null) {
+            throw new IllegalStateException("Summary is not started.");
+        }
+        finish();
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("startTime", startTime.toString());
+        Map<String, Object> latencies = new LinkedHashMap<>();
+        for (Map.Entry<String, Histogram> entry : cumulativeHistograms().entrySet()) {
+            latencies.put(entry.getKey(), latencies(entry.getValue()));
+        }
+        putCounts(result, endCounts, new long[METERS.length], endInNanos - startInNanos, latencies);
+        Gauge<?> convergedRate = metricRegistry.getGauges().get(MetricRegistry.name(metricsPrefix, CONVERGED_RATE));
+        if (convergedRate != null) {
+            result.put(CONVERGED_RATE, convergedRate.getValue());
+        }
+        result.put("segments", segments);
+        return result;
+    }
+
+    private void finish() {
+        if (endCounts != null) {
+            return;
+        }
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+        long now = System.nanoTime();
+        if (segmentDurationInNanos > 0 && now > segmentStartInNanos) {
+            finishSegment(now);
+        }
+        endInNanos = now;
+        endCounts = readCounts();
+    }
+
+    private synchronized void finishSegment() {
+        if (endCounts == null) {
+            finishSegment(System.nanoTime());
+        }
+    }
+
+    private void finishSegment(long now) {
+        long[] counts = readCounts();
+        Map<String, Object> latencies = new LinkedHashMap<>();
+        for (Map.Entry<String, Histogram> entry : cumulativeHistograms().entrySet()) {
+            Histogram segment = entry.getValue().copy();
+            Histogram start = segmentStartHistograms.get(entry.getKey());
+            if (start != null) {
+                segment.subtract(start);
+            }
+            latencies.put(entry.getKey(), latencies(segment));
+        }
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("offsetSeconds", seconds(segmentStartInNanos - startInNanos));
+        putCounts(result, counts, segmentStartCounts, now - segmentStartInNanos, latencies);
+        segments.add(result);
+        startSegment(now);
+    }
+
+    private void startSegment(long now) {
+        segmentStartInNanos = now;
+        segmentStartCounts = readCounts();
+        segmentStartHistograms.clear();
+        segmentStartHistograms.putAll(cumulativeHistograms());
+    }
+
+    private void putCounts(Map<String, Object> result, long[] counts, long[] startCounts, long durationInNanos,
+            Map<String, Object> latencies) {
+        double duration = seconds(durationInNanos);
+        result.put("durationSeconds", duration);
+        for (int i = 0; i < COUNTERS.length; i++) {
+            result.put(COUNTERS[i], counts[i] - startCounts[i]);
+        }
+        result.put("requestedRate", rate(counts[0] - startCounts[0], duration));
+        result.put("achievedRate", rate(counts[2] - startCounts[2], duration));
+        result.put("latencies", latencies);
+    }
+
+    private long[] readCounts() {
+        SortedMap<String, Meter> meters = metricRegistry.getMeters();
+        long[] result = new long[METERS.length];
+        for (int i = 0; i < METERS.length; i++) {
+            Meter meter = meters.get(MetricRegistry.name(metricsPrefix, METERS[i]));
+            result[i] = meter == null ? 0 : meter.getCount();
+        }
+        return result;
+    }
+
+    private Map<String, Histogram> cumulativeHistograms() {
+        Map<String, Histogram> result = new LinkedHashMap<>();
+        for (Map.Entry<String, com.codahale.metrics.Histogram> entry : metricRegistry.getHistograms().entrySet()) {
+            if (entry.getValue() instanceof ReservoirHistogram
+                    && ((ReservoirHistogram) entry.getValue()).getReservoir() instanceof HdrHistogramReservoir) {
+                HdrHistogramReservoir reservoir = (HdrHistogramReservoir) ((ReservoirHistogram) entry.getValue())
+                        .getReservoir();
+                result.put(entry.getKey(), reservoir.getCumulativeHistogram());
+            }
+        }
+        return result;
+    }
+
+    private static Map<String, Object> latencies(Histogram histogram) {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("count", histogram.getTotalCount());
+        result.put("min", histogram.getMinValue());
+        result.put("mean", histogram.getMean());
+        result.put("max", histogram.getMaxValue());
+        result.put("stdDev", histogram.getStdDeviation());
+        for (double percentile : PERCENTILES) {
+            result.put("p" + (percentile == Math.rint(percentile) ? String.valueOf((long) percentile)
+                    : String.valueOf(percentile)), histogram.getValueAtPercentile(percentile));
+        }
+        return result;
+    }
+
+    private static double seconds(long nanos) {
+        return nanos / (double) TimeUnit.SECONDS.toNanos(1);
+    }
+
+    private static double rate(long count, double durationInSeconds) {
+        return durationInSeconds > 0 ? count / durationInSeconds : 0;
+    }
+}
@@ -0,0 +1,114 @@
+package io.smartcat.berserker.metrics;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.codahale.metrics.Clock;
+import com.codahale.metrics.EWMA;
+import com.codahale.metrics.Meter;
+
+/**
+ * {@link Meter} whose {@link #mark(long)} only adds to a striped counter, so marking from many threads does not
+ * contend and does not read the clock. Moving averages are brought up to date when rates are read, one tick per
+ * elapsed 5 seconds, with events counted since they were last updated spread evenly over elapsed ticks. Under steady
+ * load this yields the same rates as {@link Meter} does, while bursts shorter than reporting period are smoothed.
+ */
+public class StripedMeter extends Meter {
+
+    private static final long TICK_INTERVAL = TimeUnit.SECONDS.toNanos(5);
+
+    private final LongAdder count = new LongAdder();
+    private final EWMA m1Rate = EWMA.oneMinuteEWMA();
+    private final EWMA m5Rate = EWMA.fiveMinuteEWMA();
+    private final EWMA m15Rate = EWMA.fifteenMinuteEWMA();
+    private final Clock clock;
+    private final long startTime;
+
+    private long lastTick;
+    private long lastTickCount;
+
+    /**
+     * Constructs meter using default clock.
+     */
+    public StripedMeter() {
+        this(Clock.defaultClock());
+    }
+
+    /**
+     * Constructs meter using specified <code>clock</code>.
+     *
+     * @param clock Clock used to measure rates.
+     */
+    public StripedMeter(Clock clock) {
+        this.clock = clock;
+        this.startTime = clock.getTick();
+        this.lastTick = startTime;
+    }
+
+    @Override
+    public void mark() {
+        count.increment();
+    }
+
+    @Override
+    public void mark(long n) {
+        count.add(n);
+    }
+
+    @Override
+    public long getCount() {
+        return count.sum();
+    }
+
+    @Override
+    public double getMeanRate() {
+        long events = getCount();
+        if (events == 0) {
+            return 0.0;
+        }
+        double elapsed = clock.getTick() - startTime;
+        return events / elapsed * TimeUnit.SECONDS.toNanos(1);
+    }
+
+    @Override
+    public double getOneMinuteRate() {
+        tickIfNecessary();
+        return m1Rate.getRate(TimeUnit.SECONDS);
+    }
+
+    @Override
+    public double getFiveMinuteRate() {
+        tickIfNecessary();
+        return m5Rate.getRate(TimeUnit.SECONDS);
+    }
+
+    @Override
+    public double getFifteenMinuteRate() {
+        tickIfNecessary();
+        return m15Rate.getRate(TimeUnit.SECONDS);
+    }
+
+    /**
+     * Advances moving averages by one tick for each elapsed tick interval. Events counted since the last update are
+     * spread evenly over elapsed ticks, since it is not known within which of them they were marked.
+     */
+    private synchronized void tickIfNecessary() {
+        long ticks = (clock.getTick() - lastTick) / TICK_INTERVAL;
+        if (ticks == 0) {
+            return;
+        }
+        long currentCount = getCount();
+        long uncounted = currentCount - lastTickCount;
+        for (long i = 0; i < ticks; i++) {
+            long events = uncounted * (i + 1) / ticks - uncounted * i / ticks;
+            m1Rate.update(events);
+            m5Rate.update(events);
+            m15Rate.update(events);
+            m1Rate.tick();
+            m5Rate.tick();
+            m15Rate.tick();
+        }
+        lastTick += ticks * TICK_INTERVAL;
+        lastTickCount = currentCount;
+    }
+}
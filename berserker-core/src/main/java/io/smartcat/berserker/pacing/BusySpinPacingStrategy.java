@@ -0,0 +1,12 @@
+package io.smartcat.berserker.pacing;
+
+/**
+ * Pacing strategy which does not wait at all, leaving dispatch thread in a busy loop. Provides the best scheduling
+ * accuracy at the cost of keeping one core fully busy regardless of the rate.
+ */
+public class BusySpinPacingStrategy implements PacingStrategy {
+
+    @Override
+    public void idle(long deadlineInNanos) {
+    }
+}
@@ -0,0 +1,17 @@
+package io.smartcat.berserker.pacing;
+
+/**
+ * Strategy used by {@link io.smartcat.berserker.LoadGenerator LoadGenerator} to wait for the next impulse to become
+ * due. Strategy trades CPU usage of the dispatch thread for scheduling accuracy.
+ */
+public interface PacingStrategy {
+
+    /**
+     * Waits until <code>deadlineInNanos</code> is reached. Load generator re-evaluates its schedule after each
+     * invocation, so implementations are allowed to return before the deadline.
+     *
+     * @param deadlineInNanos Time in nanoseconds, as returned by {@link System#nanoTime()}, at which the next impulse
+     *            is due.
+     */
+    void idle(long deadlineInNanos);
+}
@@ -0,0 +1,80 @@
+package io.smartcat.berserker.pacing;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Pacing strategy which parks the dispatch thread until shortly before the deadline, and busy spins afterwards. Since
+ * parking usually oversleeps, the strategy measures how much {@link LockSupport#parkNanos(long)} oversleeps on this
+ * machine during construction and wakes up that much earlier. Single park never lasts longer than
+ * <code>maxParkNanos</code> so that termination and rate changes are noticed in time.
+ */
+public class SpinThenParkPacingStrategy implements PacingStrategy {
+
+    private static final long DEFAULT_SPIN_NANOS = 10_000;
+    private static final long DEFAULT_MAX_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+    private static final int CALIBRATION_ROUNDS = 100;
+    private static final long CALIBRATION_PARK_NANOS = 50_000;
+    private static final double CALIBRATION_PERCENTILE = 0.9;
+
+    private final long spinNanos;
+    private final long maxParkNanos;
+    private final long parkOvershootNanos;
+
+    /**
+     * Constructs pacing strategy with <code>spinNanos</code> set to 10 microseconds and <code>maxParkNanos</code> set
+     * to 1 millisecond.
+     */
+    public SpinThenParkPacingStrategy() {
+        this(DEFAULT_SPIN_NANOS, DEFAULT_MAX_PARK_NANOS);
+    }
+
+    /**
+     * Constructs pacing strategy with specified <code>spinNanos</code> and <code>maxParkNanos</code>. Calibrates park
+     * overshoot, which blocks for a few milliseconds.
+     *
+     * @param spinNanos Time before deadline, in nanoseconds, during which dispatch thread busy spins instead of
+     *            parking, must not be negative number.
+     * @param maxParkNanos Maximum duration of a single park in nanoseconds, must be positive number.
+     */
+    public SpinThenParkPacingStrategy(long spinNanos, long maxParkNanos) {
+        if (spinNanos < 0) {
+            throw new IllegalArgumentException("Spin nanos must not be negative number.");
+        }
+        if (maxParkNanos <= 0) {
+            throw new IllegalArgumentException("Max park nanos must be positive number.");
+        }
+        this.spinNanos = spinNanos;
+        this.maxParkNanos = maxParkNanos;
+        this.parkOvershootNanos = calibrateParkOvershoot();
+    }
+
+    /**
+     * Returns measured time in nanoseconds by which {@link LockSupport#parkNanos(long)} oversleeps.
+     *
+     * @return Measured time in nanoseconds by which {@link LockSupport#parkNanos(long)} oversleeps.
+     */
+    public long getParkOvershootNanos() {
+        return parkOvershootNanos;
+    }
+
+    @Override
+    public void idle(long deadlineInNanos) {
+        long parkNanos = deadlineInNanos - System.nanoTime() - parkOvershootNanos - spinNanos;
+        if (parkNanos > 0) {
+            LockSupport.parkNanos(Math.min(parkNanos, maxParkNanos));
+        }
+    }
+
+    private static long calibrateParkOvershoot() {
+        long[] overshoots = new long[CALIBRATION_ROUNDS];
+        for (int i = 0; i < CALIBRATION_ROUNDS; i++) {
+            long start = System.nanoTime();
+            LockSupport.parkNanos(CALIBRATION_PARK_NANOS);
+            overshoots[i] = Math.max(0, System.nanoTime() - start - CALIBRATION_PARK_NANOS);
+        }
+        Arrays.sort(overshoots);
+        return overshoots[(int) (CALIBRATION_ROUNDS * CALIBRATION_PERCENTILE)];
+    }
+}
@@ -0,0 +1,39 @@
+package io.smartcat.berserker.pacing;
+
+/**
+ * Pacing strategy which yields the dispatch thread while the deadline is further away than <code>spinNanos</code>,
+ * and busy spins afterwards.
+ */
+public class SpinThenYieldPacingStrategy implements PacingStrategy {
+
+    private static final long DEFAULT_SPIN_NANOS = 50_000;
+
+    private final long spinNanos;
+
+    /**
+     * Constructs pacing strategy with <code>spinNanos</code> set to 50 microseconds.
+     */
+    public SpinThenYieldPacingStrategy() {
+        this(DEFAULT_SPIN_NANOS);
+    }
+
+    /**
+     * Constructs pacing strategy with specified <code>spinNanos</code>.
+     *
+     * @param spinNanos Time before deadline, in nanoseconds, during which dispatch thread busy spins instead of
+     *            yielding, must not be negative number.
+     */
+    public SpinThenYieldPacingStrategy(long spinNanos) {
+        if (spinNanos < 0) {
+            throw new IllegalArgumentException("Spin nanos must not be negative number.");
+        }
+        this.spinNanos = spinNanos;
+    }
+
+    @Override
+    public void idle(long deadlineInNanos) {
+        if (deadlineInNanos - System.nanoTime() > spinNanos) {
+            Thread.yield();
+        }
+    }
+}
@@ -0,0 +1,291 @@
+package io.smartcat.berserker.rategenerator;
+
+import static com.codahale.metrics.MetricRegistry.name;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Histogram;
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
+
+import io.smartcat.berserker.api.RateGenerator;
+import io.smartcat.berserker.metrics.HdrHistogramReservoir;
+import io.smartcat.berserker.metrics.ReservoirHistogram;
+
+/**
+ * Rate generator which searches for the highest rate system under test sustains, by adjusting rate at the end of each
+ * control interval based on metrics {@link io.smartcat.berserker.worker.InternalWorker InternalWorker} recorded during
+ * that interval. Interval is <i>violating</i> when chosen percentile of <code>totalResponseTime</code> exceeds latency
+ * target, when any message was dropped, or when <code>queueSize</code> exceeds maximum queue size, if one is set.
+ * <p>
+ * Rate is controlled with additive increase, multiplicative decrease: after each violating interval rate is multiplied
+ * by decrease factor, and after each other interval additive increase is added to it. Until the first violating
+ * interval, rate is instead doubled after each interval, so that the neighbourhood of sustainable rate is reached
+ * quickly regardless of initial rate. Rate always stays between minimum and maximum rate.
+ * </p>
+ * <p>
+ * Rate of each interval after which a violating interval followed is remembered as the ceiling of that cycle of
+ * increases, and converged rate is the mean of the last {@value #CONVERGENCE_WINDOW} ceilings, or current rate until
+ * the first violation. Converged rate is exposed through <code>convergedRate</code> gauge.
+ * </p>
+ * <p>
+ * Rate generator provides initial rate until {@link #start(MetricRegistry, String)} is invoked with registry worker
+ * registered its metrics to. Control runs on a separate daemon thread until {@link #close()} is invoked.
+ * </p>
+ */
+public class AdaptiveRateGenerator implements RateGenerator, AutoCloseable {
+
+    /**
+     * Number of the last cycles of increases converged rate is averaged over.
+     */
+    public static final int CONVERGENCE_WINDOW = 5;
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(AdaptiveRateGenerator.class);
+
+    private static final String DEFAULT_METRICS_PREFIX = "io.smartcat.berserker";
+    private static final String TOTAL_RESPONSE_TIME = "totalResponseTime";
+    private static final String DROPPED = "dropped";
+    private static final String QUEUE_SIZE = "queueSize";
+    private static final String CONVERGED_RATE = "convergedRate";
+
+    private final double minRate;
+    private final double maxRate;
+    private final double additiveIncrease;
+    private final double decreaseFactor;
+    private final double latencyPercentile;
+    private final long latencyTargetInNanos;
+    private final long maxQueueSize;
+    private final long controlIntervalInNanos;
+    private final double[] ceilings = new double[CONVERGENCE_WINDOW];
+
+    private volatile double rate;
+    private volatile double convergedRate;
+
+    private ScheduledExecutorService scheduler;
+    private Histogram responseTime;
+    private org.HdrHistogram.Histogram lastResponseTimes;
+    private Meter dropped;
+    private long lastDropped;
+    private Gauge<?> queueSize;
+    private boolean violated;
+    // nothing is known about the interval before the first one, so it cannot be a ceiling
+    private boolean lastIntervalViolating = true;
+    private double lastIntervalRate;
+    private int ceilingCount;
+
+    /**
+     * Constructs adaptive rate generator keeping 99th percentile of response time below <code>latencyTarget</code>,
+     * without drops, with minimum rate of 1, no maximum rate, additive increase of one tenth of
+     * <code>initialRate</code>, decrease factor of 0.5 and no maximum queue size.
+     *
+     * @param initialRate Rate to start with, must be at least 1.
+     * @param latencyTarget Highest acceptable 99th percentile of response time, must be positive number.
+     * @param controlInterval Length of interval after which rate is adjusted, must be positive number.
+     * @param unit Time unit of <code>latencyTarget</code> and <code>controlInterval</code>.
+     */
+    public AdaptiveRateGenerator(double initialRate, long latencyTarget, long controlInterval, TimeUnit unit) {
+        this(initialRate, 1, Double.MAX_VALUE, initialRate / 10, 0.5, 99, latencyTarget, 0, controlInterval, unit);
+    }
+
+    /**
+     * Constructs adaptive rate generator.
+     *
+     * @param initialRate Rate to start with, must be between <code>minRate</code> and <code>maxRate</code>.
+     * @param minRate Lowest rate, must be positive number.
+     * @param maxRate Highest rate, must not be lower than <code>minRate</code>.
+     * @param additiveIncrease Rate added after interval which is not violating, must be positive number.
+     * @param decreaseFactor Factor rate is multiplied by after violating interval, must be between 0 and 1 exclusive.
+     * @param latencyPercentile Percentile of response time compared with <code>latencyTarget</code>, must be between
+     *            0 exclusive and 100 inclusive.
+     * @param latencyTarget Highest acceptable percentile of response time, must be positive number.
+     * @param maxQueueSize Highest acceptable queue size, zero means queue size is not considered.
+     * @param controlInterval Length of interval after which rate is adjusted, must be positive number.
+     * @param unit Time unit of <code>latencyTarget</code> and <code>controlInterval</code>.
+     */
+    public AdaptiveRateGenerator(double initialRate, double minRate, double maxRate, double additiveIncrease,
+            double decreaseFactor, double latencyPercentile, long latencyTarget, long maxQueueSize,
+            long controlInterval, TimeUnit unit) {
+        if (minRate <= 0) {
+            throw new IllegalArgumentException("Min rate must be positive number.");
+        }
+        if (maxRate < minRate) {
+            throw new IllegalArgumentException("Max rate must not be lower than min rate.");
+        }
+        if (initialRate < minRate || initialRate > maxRate) {
+            throw new IllegalArgumentException("Initial rate must be between min rate and max rate.");
+        }
+        if (additiveIncrease <= 0) {
+            throw new IllegalArgumentException("Additive increase must be positive number.");
+        }
+        if (decreaseFactor <= 0 || decreaseFactor >= 1) {
+            throw new IllegalArgumentException("Decrease factor must be between 0 and 1 exclusive.");
+        }
+        if (latencyPercentile <= 0 || latencyPercentile > 100) {
+            throw new IllegalArgumentException("Latency percentile must be between 0 exclusive and 100 inclusive.");
+        }
+        if (latencyTarget <= 0) {
+            throw new IllegalArgumentException("Latency target must be positive number.");
+        }
+        if (maxQueueSize < 0) {
+            throw new IllegalArgumentException("Max queue size must not be negative number.");
+        }
+        if (controlInterval <= 0) {
+            throw new IllegalArgumentException("Control interval must be positive number.");
+        }
+        if (unit == null) {
+            throw new IllegalArgumentException("Unit cannot be null.");
+        }
+        this.minRate = minRate;
+        this.maxRate = maxRate;
+        this.additiveIncrease = additiveIncrease;
+        this.decreaseFactor = decreaseFactor;
+        this.latencyPercentile = latencyPercentile;
+        this.latencyTargetInNanos = unit.toNanos(latencyTarget);
+        this.maxQueueSize = maxQueueSize;
+        this.controlIntervalInNanos = unit.toNanos(controlInterval);
+        this.rate = initialRate;
+        this.convergedRate = initialRate;
+    }
+
+    @Override
+    public double getRate(long time) {
+        return rate;
+    }
+
+    /**
+     * Returns converged rate, mean of the rates at which the last cycles of increases ended, or current rate until
+     * the first violation.
+     *
+     * @return Converged rate.
+     */
+    public double getConvergedRate() {
+        return convergedRate;
+    }
+
+    /**
+     * Starts controlling rate based on metrics within <code>metricRegistry</code> and registers
+     * <code>convergedRate</code> gauge to it.
+     *
+     * @param metricRegistry Registry worker registered its metrics to.
+     * @param metricsPrefix Prefix worker used for its metrics, <code>null</code> means default prefix.
+     */
+    public synchronized void start(MetricRegistry metricRegistry, String metricsPrefix) {
+        if (metricRegistry == null) {
+            throw new IllegalArgumentException("Metric registry cannot be null.");
+        }
+        if (scheduler != null) {
+            throw new IllegalStateException("Adaptive rate generator is already started.");
+        }
+        String prefix = metricsPrefix == null || metricsPrefix.isEmpty() ? DEFAULT_METRICS_PREFIX : metricsPrefix;
+        responseTime = metricRegistry.getHistograms().get(name(prefix, TOTAL_RESPONSE_TIME));
+        dropped = metricRegistry.getMeters().get(name(prefix, DROPPED));
+        queueSize = metricRegistry.getGauges().get(name(prefix, QUEUE_SIZE));
+        lastResponseTimes = cumulativeResponseTimes();
+        lastDropped = dropped == null ? 0 : dropped.getCount();
+        lastIntervalRate = rate;
+        metricRegistry.register(name(prefix, CONVERGED_RATE), (Gauge<Double>) this::getConvergedRate);
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "adaptive-rate-generator");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleAtFixedRate(this::control, controlIntervalInNanos, controlIntervalInNanos,
+                TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Stops controlling rate and logs converged rate, rate and converged rate remain as they were at the end of the
+     * last interval.
+     */
+    @Override
+    public synchronized void close() {
+        if (scheduler != null && !scheduler.isShutdown()) {
+            scheduler.shutdownNow();
+            LOGGER.info("Adaptive rate generator stopped at rate: {}, converged rate: {}.", rate, convergedRate);
+        }
+    }
+
+    /**
+     * Adjusts rate based on whether the interval which just ended was violating.
+     *
+     * @param violating Whether the interval which just ended was violating.
+     */
+    synchronized void adjust(boolean violating) {
+        double current = rate;
+        if (violating) {
+            if (!lastIntervalViolating) {
+                ceilings[ceilingCount++ % CONVERGENCE_WINDOW] = lastIntervalRate;
+            }
+            violated = true;
+            rate = Math.max(minRate, current * decreaseFactor);
+        } else {
+            rate = Math.min(maxRate, violated ? current + additiveIncrease : current * 2);
+        }
+        lastIntervalViolating = violating;
+        lastIntervalRate = current;
+        convergedRate = ceilingCount == 0 ? rate : meanCeiling();
+    }
+
+    private void control() {
+        try {
+            boolean violating = isViolating();
+            double previous = rate;
+            adjust(violating);
+            LOGGER.debug("Interval violating: {}, rate changed from {} to {}, converged rate: {}.", violating,
+                    previous, rate, convergedRate);
+        } catch (RuntimeException e) {
+            LOGGER.error("Could not adjust rate.", e);
+        }
+    }
+
+    private boolean isViolating() {
+        boolean violating = false;
+        if (dropped != null) {
+            long count = dropped.getCount();
+            violating = count > lastDropped;
+            lastDropped = count;
+        }
+        if (queueSize != null && maxQueueSize > 0 && ((Number) queueSize.getValue()).longValue() > maxQueueSize) {
+            violating = true;
+        }
+        return responseTimePercentile() > latencyTargetInNanos || violating;
+    }
+
+    private double responseTimePercentile() {
+        if (responseTime == null) {
+            return 0;
+        }
+        org.HdrHistogram.Histogram cumulative = cumulativeResponseTimes();
+        if (cumulative == null) {
+            return responseTime.getSnapshot().getValue(latencyPercentile / 100);
+        }
+        org.HdrHistogram.Histogram interval = cumulative.copy();
+        interval.subtract(lastResponseTimes);
+        lastResponseTimes = cumulative;
+        return interval.getTotalCount() == 0 ? 0 : interval.getValueAtPercentile(latencyPercentile);
+    }
+
+    private org.HdrHistogram.Histogram cumulativeResponseTimes() {
+        if (responseTime instanceof ReservoirHistogram
+                && ((ReservoirHistogram) responseTime).getReservoir() instanceof HdrHistogramReservoir) {
+            return ((HdrHistogramReservoir) ((ReservoirHistogram) responseTime).getReservoir())
+                    .getCumulativeHistogram();
+        }
+        return null;
+    }
+
+    private double meanCeiling() {
+        int count = Math.min(ceilingCount, CONVERGENCE_WINDOW);
+        double sum = 0;
+        for (int i = 0; i < count; i++) {
+            sum += ceilings[i];
+        }
+        return sum / count;
+    }
+}
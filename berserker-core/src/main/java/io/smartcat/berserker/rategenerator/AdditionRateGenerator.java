@@ -31,4 +31,12 @@ public class AdditionRateGenerator implements RateGenerator {
     public double getRate(long time) {
         return summand1.getRate(time) + summand2.getRate(time);
     }
+
+    RateGenerator getSummand1() {
+        return summand1;
+    }
+
+    RateGenerator getSummand2() {
+        return summand2;
+    }
 }
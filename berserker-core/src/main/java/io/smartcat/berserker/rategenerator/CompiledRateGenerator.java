@@ -0,0 +1,257 @@
+package io.smartcat.berserker.rategenerator;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.UnaryOperator;
+
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.Type;
+
+import io.smartcat.berserker.api.RateGenerator;
+
+/**
+ * Rate generator which evaluates expression made of {@link AdditionRateGenerator},
+ * {@link SubtractionRateGenerator}, {@link MultiplicationRateGenerator}, {@link DivisionRateGenerator},
+ * {@link ConstantRateGenerator} and {@link RateGeneratorProxy} instances without walking the object tree.
+ * <p>
+ * Expression is compiled once, at construction: proxies are replaced by their delegates, operations whose operands
+ * are both constant are folded into constants, and the result is emitted as bytecode of a class generated for this
+ * expression, so evaluation is a straight sequence of arithmetic instructions on constants. Any other rate generator,
+ * such as {@link PeriodicRateGenerator} implementations, is kept as a leaf and invoked from its own call site, which
+ * lets JIT inline it. Since expression is read at construction, proxies within it must have their delegates set and
+ * later changes to them are not observed.
+ * </p>
+ */
+public class CompiledRateGenerator implements RateGenerator {
+
+    private static final String RATE_GENERATOR = Type.getInternalName(RateGenerator.class);
+    private static final String RATE_GENERATOR_DESCRIPTOR = Type.getDescriptor(RateGenerator.class);
+    private static final String GET_RATE_DESCRIPTOR = "(J)D";
+    private static final String CLASS_NAME_PREFIX = Type.getInternalName(CompiledRateGenerator.class) + "$Expression";
+    private static final AtomicLong CLASS_COUNTER = new AtomicLong();
+
+    private final RateGenerator compiled;
+    private final int nodeCount;
+
+    /**
+     * Constructs rate generator which evaluates compiled <code>expression</code>.
+     *
+     * @param expression Rate generator expression to compile.
+     * @throws IllegalArgumentException If proxies within expression reference each other in a cycle.
+     */
+    public CompiledRateGenerator(RateGenerator expression) {
+        this(expression, UnaryOperator.identity());
+    }
+
+    /**
+     * Constructs rate generator which evaluates compiled <code>expression</code>, with each leaf of the expression
+     * replaced by result of <code>leafMapper</code>, for example to sample expensive leaves.
+     *
+     * @param expression Rate generator expression to compile.
+     * @param leafMapper Function applied to each rate generator kept as a leaf.
+     * @throws IllegalArgumentException If proxies within expression reference each other in a cycle.
+     */
+    public CompiledRateGenerator(RateGenerator expression, UnaryOperator<RateGenerator> leafMapper) {
+        if (expression == null) {
+            throw new IllegalArgumentException("Expression cannot be null.");
+        }
+        if (leafMapper == null) {
+            throw new IllegalArgumentException("Leaf mapper cannot be null.");
+        }
+        Node root = compile(expression, leafMapper, Collections.newSetFromMap(new IdentityHashMap<>()));
+        this.nodeCount = root.count();
+        this.compiled = root.leaf != null ? root.leaf : generate(root);
+    }
+
+    @Override
+    public double getRate(long time) {
+        return compiled.getRate(time);
+    }
+
+    /**
+     * Returns number of nodes compiled expression consists of, after proxies are resolved and constants are folded.
+     *
+     * @return Number of nodes compiled expression consists of.
+     */
+    public int getNodeCount() {
+        return nodeCount;
+    }
+
+    private static Node compile(RateGenerator rateGenerator, UnaryOperator<RateGenerator> leafMapper,
+            Set<RateGeneratorProxy> resolving) {
+        if (rateGenerator instanceof RateGeneratorProxy) {
+            RateGeneratorProxy proxy = (RateGeneratorProxy) rateGenerator;
+            if (!resolving.add(proxy)) {
+                throw new IllegalArgumentException("Rate generator references itself.");
+            }
+            Node result = compile(proxy.getDelegate(), leafMapper, resolving);
+            resolving.remove(proxy);
+            return result;
+        }
+        if (rateGenerator instanceof ConstantRateGenerator) {
+            return Node.constant(((ConstantRateGenerator) rateGenerator).getPerSecondRate());
+        }
+        if (rateGenerator instanceof AdditionRateGenerator) {
+            AdditionRateGenerator addition = (AdditionRateGenerator) rateGenerator;
+            return Node.operation(Opcodes.DADD, compile(addition.getSummand1(), leafMapper, resolving),
+                    compile(addition.getSummand2(), leafMapper, resolving));
+        }
+        if (rateGenerator instanceof SubtractionRateGenerator) {
+            SubtractionRateGenerator subtraction = (SubtractionRateGenerator) rateGenerator;
+            return Node.operation(Opcodes.DSUB, compile(subtraction.getMinuend(), leafMapper, resolving),
+                    compile(subtraction.getSubtrahend(), leafMapper, resolving));
+        }
+        if (rateGenerator instanceof MultiplicationRateGenerator) {
+            MultiplicationRateGenerator multiplication = (MultiplicationRateGenerator) rateGenerator;
+            return Node.operation(Opcodes.DMUL, compile(multiplication.getFactor1(), leafMapper, resolving),
+                    compile(multiplication.getFactor2(), leafMapper, resolving));
+        }
+        if (rateGenerator instanceof DivisionRateGenerator) {
+            DivisionRateGenerator division = (DivisionRateGenerator) rateGenerator;
+            return Node.operation(Opcodes.DDIV, compile(division.getDividend(), leafMapper, resolving),
+                    compile(division.getDivisor(), leafMapper, resolving));
+        }
+        return Node.leaf(leafMapper.apply(rateGenerator));
+    }
+
+    /**
+     * Generates class implementing {@link RateGenerator} whose <code>getRate</code> evaluates <code>root</code>.
+     * Each leaf is stored in its own field, passed to generated constructor as an array.
+     */
+    private static RateGenerator generate(Node root) {
+        String className = CLASS_NAME_PREFIX + CLASS_COUNTER.incrementAndGet();
+        List<RateGenerator> leaves = new ArrayList<>();
+        ClassWriter classWriter = new ClassWriter(ClassWriter.COMPUTE_MAXS);
+        classWriter.visit(Opcodes.V1_8, Opcodes.ACC_PUBLIC | Opcodes.ACC_FINAL | Opcodes.ACC_SUPER, className, null,
+                "java/lang/Object", new String[] { RATE_GENERATOR });
+
+        MethodVisitor getRate = classWriter.visitMethod(Opcodes.ACC_PUBLIC, "getRate", GET_RATE_DESCRIPTOR, null,
+                null);
+        getRate.visitCode();
+        emit(root, getRate, className, leaves);
+        getRate.visitInsn(Opcodes.DRETURN);
+        getRate.visitMaxs(0, 0);
+        getRate.visitEnd();
+
+        MethodVisitor constructor = classWriter.visitMethod(Opcodes.ACC_PUBLIC, "<init>",
+                "([" + RATE_GENERATOR_DESCRIPTOR + ")V", null, null);
+        constructor.visitCode();
+        constructor.visitVarInsn(Opcodes.ALOAD, 0);
+        constructor.visitMethodInsn(Opcodes.INVOKESPECIAL, "java/lang/Object", "<init>", "()V", false);
+        for (int i = 0; i < leaves.size(); i++) {
+            classWriter.visitField(Opcodes.ACC_PRIVATE | Opcodes.ACC_FINAL, leafField(i), RATE_GENERATOR_DESCRIPTOR,
+                    null, null).visitEnd();
+            constructor.visitVarInsn(Opcodes.ALOAD, 0);
+            constructor.visitVarInsn(Opcodes.ALOAD, 1);
+            constructor.visitLdcInsn(i);
+            constructor.visitInsn(Opcodes.AALOAD);
+            constructor.visitFieldInsn(Opcodes.PUTFIELD, className, leafField(i), RATE_GENERATOR_DESCRIPTOR);
+        }
+        constructor.visitInsn(Opcodes.RETURN);
+        constructor.visitMaxs(0, 0);
+        constructor.visitEnd();
+        classWriter.visitEnd();
+
+        try {
+            Class<?> generatedClass = new GeneratedClassLoader().define(className, classWriter.toByteArray());
+            return (RateGenerator) generatedClass.getConstructor(RateGenerator[].class)
+                    .newInstance((Object) leaves.toArray(new RateGenerator[0]));
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Could not instantiate compiled rate generator.", e);
+        }
+    }
+
+    private static void emit(Node node, MethodVisitor method, String className, List<RateGenerator> leaves) {
+        if (node.leaf != null) {
+            method.visitVarInsn(Opcodes.ALOAD, 0);
+            method.visitFieldInsn(Opcodes.GETFIELD, className, leafField(leaves.size()), RATE_GENERATOR_DESCRIPTOR);
+            method.visitVarInsn(Opcodes.LLOAD, 1);
+            method.visitMethodInsn(Opcodes.INVOKEINTERFACE, RATE_GENERATOR, "getRate", GET_RATE_DESCRIPTOR, true);
+            leaves.add(node.leaf);
+        } else if (node.left == null) {
+            method.visitLdcInsn(node.constant);
+        } else {
+            emit(node.left, method, className, leaves);
+            emit(node.right, method, className, leaves);
+            method.visitInsn(node.opcode);
+        }
+    }
+
+    private static String leafField(int index) {
+        return "leaf" + index;
+    }
+
+    /**
+     * Node of expression being compiled. Leaf nodes hold rate generator, constant nodes hold value and operation nodes
+     * hold bytecode instruction applied to their operands.
+     */
+    private static final class Node {
+
+        private final int opcode;
+        private final double constant;
+        private final RateGenerator leaf;
+        private final Node left;
+        private final Node right;
+
+        private Node(int opcode, double constant, RateGenerator leaf, Node left, Node right) {
+            this.opcode = opcode;
+            this.constant = constant;
+            this.leaf = leaf;
+            this.left = left;
+            this.right = right;
+        }
+
+        private static Node constant(double value) {
+            return new Node(Opcodes.NOP, value, null, null, null);
+        }
+
+        private static Node leaf(RateGenerator rateGenerator) {
+            return new Node(Opcodes.NOP, 0, rateGenerator, null, null);
+        }
+
+        private static Node operation(int opcode, Node left, Node right) {
+            if (!left.isConstant() || !right.isConstant()) {
+                return new Node(opcode, 0, null, left, right);
+            }
+            switch (opcode) {
+                case Opcodes.DADD:
+                    return constant(left.constant + right.constant);
+                case Opcodes.DSUB:
+                    return constant(left.constant - right.constant);
+                case Opcodes.DMUL:
+                    return constant(left.constant * right.constant);
+                default:
+                    return constant(left.constant / right.constant);
+            }
+        }
+
+        private boolean isConstant() {
+            return leaf == null && left == null;
+        }
+
+        private int count() {
+            return left == null ? 1 : 1 + left.count() + right.count();
+        }
+    }
+
+    /**
+     * Class loader defining generated classes, one instance per class so that class can be unloaded together with
+     * rate generator using it.
+     */
+    private static final class GeneratedClassLoader extends ClassLoader {
+
+        private GeneratedClassLoader() {
+            super(CompiledRateGenerator.class.getClassLoader());
+        }
+
+        private Class<?> define(String internalName, byte[] bytecode) {
+            return defineClass(internalName.replace('/', '.'), bytecode, 0, bytecode.length);
+        }
+    }
+}
@@ -25,4 +25,8 @@ public class ConstantRateGenerator implements RateGenerator {
     public double getRate(long time) {
         return perSecondRate;
     }
+
+    double getPerSecondRate() {
+        return perSecondRate;
+    }
 }
@@ -31,4 +31,12 @@ public class DivisionRateGenerator implements RateGenerator {
     public double getRate(long time) {
         return dividend.getRate(time) / divisor.getRate(time);
     }
+
+    RateGenerator getDividend() {
+        return dividend;
+    }
+
+    RateGenerator getDivisor() {
+        return divisor;
+    }
 }
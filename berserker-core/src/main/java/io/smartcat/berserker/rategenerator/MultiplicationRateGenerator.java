@@ -31,4 +31,12 @@ public class MultiplicationRateGenerator implements RateGenerator {
     public double getRate(long time) {
         return factor1.getRate(time) * factor2.getRate(time);
     }
+
+    RateGenerator getFactor1() {
+        return factor1;
+    }
+
+    RateGenerator getFactor2() {
+        return factor2;
+    }
 }
@@ -35,7 +35,9 @@ public abstract class PeriodicRateGenerator implements RateGenerator {
     public double getRate(long time) {
         double valueInPeriod = normalizeValue(time);
         double result = rateFunction(valueInPeriod);
-        LOGGER.trace("rateFunction returned: {} for value: {}", result, valueInPeriod);
+        if (LOGGER.isTraceEnabled()) {
+            LOGGER.trace("rateFunction returned: {} for value: {}", result, valueInPeriod);
+        }
         return result < 0 ? 0d : result;
     }
 
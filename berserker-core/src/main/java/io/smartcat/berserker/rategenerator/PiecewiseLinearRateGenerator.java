@@ -0,0 +1,62 @@
+package io.smartcat.berserker.rategenerator;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import io.smartcat.berserker.api.RateGenerator;
+
+/**
+ * Rate generator which changes rate linearly between breakpoints, each defined by time and rate at that time. Rate of
+ * the first breakpoint is used before it and rate of the last breakpoint is kept after it.
+ */
+public class PiecewiseLinearRateGenerator implements RateGenerator {
+
+    private final long[] timesInNanos;
+    private final double[] rates;
+
+    /**
+     * Constructs rate generator with breakpoints at specified <code>timesInSeconds</code> with specified
+     * <code>rates</code>.
+     *
+     * @param timesInSeconds Times of breakpoints in seconds, must not be negative and must be in ascending order.
+     * @param rates Rates at breakpoints, must not be negative. Must have the same length as
+     *            <code>timesInSeconds</code>, at least 1.
+     */
+    public PiecewiseLinearRateGenerator(long[] timesInSeconds, double[] rates) {
+        if (timesInSeconds == null || rates == null || timesInSeconds.length == 0) {
+            throw new IllegalArgumentException("Breakpoints cannot be null nor empty.");
+        }
+        if (timesInSeconds.length != rates.length) {
+            throw new IllegalArgumentException("Each breakpoint must have both time and rate.");
+        }
+        this.timesInNanos = new long[timesInSeconds.length];
+        for (int i = 0; i < timesInSeconds.length; i++) {
+            if (timesInSeconds[i] < 0 || (i > 0 && timesInSeconds[i] <= timesInSeconds[i - 1])) {
+                throw new IllegalArgumentException("Times must not be negative and must be in ascending order.");
+            }
+            if (rates[i] < 0) {
+                throw new IllegalArgumentException("Rates must not be negative numbers.");
+            }
+            this.timesInNanos[i] = TimeUnit.SECONDS.toNanos(timesInSeconds[i]);
+        }
+        this.rates = rates.clone();
+    }
+
+    @Override
+    public double getRate(long time) {
+        int index = Arrays.binarySearch(timesInNanos, time);
+        if (index >= 0) {
+            return rates[index];
+        }
+        int next = -index - 1;
+        if (next == 0) {
+            return rates[0];
+        }
+        if (next == timesInNanos.length) {
+            return rates[rates.length - 1];
+        }
+        int previous = next - 1;
+        return rates[previous] + (rates[next] - rates[previous]) * (time - timesInNanos[previous])
+                / (timesInNanos[next] - timesInNanos[previous]);
+    }
+}
@@ -0,0 +1,46 @@
+package io.smartcat.berserker.rategenerator;
+
+import java.util.concurrent.TimeUnit;
+
+import io.smartcat.berserker.api.RateGenerator;
+
+/**
+ * Rate generator which changes rate linearly from <code>from</code> to <code>to</code> over specified duration and
+ * keeps rate of <code>to</code> afterwards.
+ */
+public class RampRateGenerator implements RateGenerator {
+
+    private final long durationInNanos;
+    private final double from;
+    private final double to;
+
+    /**
+     * Constructs rate generator with specified <code>durationInSeconds</code>, <code>from</code> and <code>to</code>.
+     *
+     * @param durationInSeconds Duration of the ramp in seconds, must be positive number.
+     * @param from Rate at the beginning of the ramp, must not be negative number.
+     * @param to Rate at the end of the ramp and afterwards, must not be negative number.
+     */
+    public RampRateGenerator(long durationInSeconds, double from, double to) {
+        if (durationInSeconds <= 0) {
+            throw new IllegalArgumentException("Duration must be positive number.");
+        }
+        if (from < 0) {
+            throw new IllegalArgumentException("From must not be negative number.");
+        }
+        if (to < 0) {
+            throw new IllegalArgumentException("To must not be negative number.");
+        }
+        this.durationInNanos = TimeUnit.SECONDS.toNanos(durationInSeconds);
+        this.from = from;
+        this.to = to;
+    }
+
+    @Override
+    public double getRate(long time) {
+        if (time >= durationInNanos) {
+            return to;
+        }
+        return from + (to - from) * time / durationInNanos;
+    }
+}
@@ -42,6 +42,11 @@ public class RateGeneratorProxy implements RateGenerator {
         return delegate.getRate(time);
     }
 
+    RateGenerator getDelegate() {
+        checkDelegate();
+        return delegate;
+    }
+
     private void checkDelegate() {
         if (delegate == null) {
             throw new DelegateNotSetException();
@@ -0,0 +1,136 @@
+package io.smartcat.berserker.rategenerator;
+
+import java.util.concurrent.TimeUnit;
+
+import io.smartcat.berserker.api.RateGenerator;
+
+/**
+ * Rate generator which evaluates its delegate only at the start of each interval of configured
+ * <code>resolution</code> and interpolates rate linearly in between. Since rate usually changes over seconds or
+ * minutes, sampling it every millisecond or so keeps the shape of the rate while sparing dispatch threads from
+ * evaluating possibly expensive expression on every pass. Steps of the delegate, such as edges of
+ * {@link SquareRateGenerator}, are spread over one interval.
+ * <p>
+ * Rate is sampled lazily: the last sampled interval is cached and resampled when time moves to another interval.
+ * Cached interval is published as immutable object, so this rate generator can be shared by several dispatch threads
+ * without locking; threads entering a new interval at the same time may both sample it.
+ * </p>
+ * <p>
+ * When delegate is {@link PeriodicRateGenerator} and <code>lookupTable</code> is set, one whole period is sampled
+ * upfront into a table and rate is interpolated from it without ever invoking delegate again, as long as period has
+ * fewer than {@value #MAX_LOOKUP_TABLE_SIZE} intervals. Otherwise rate is sampled lazily.
+ * </p>
+ */
+public class SampledRateGenerator implements RateGenerator {
+
+    /**
+     * Maximum number of intervals of lookup table.
+     */
+    public static final int MAX_LOOKUP_TABLE_SIZE = 1 << 20;
+
+    private final RateGenerator delegate;
+    private final long resolutionInNanos;
+    private final double[] lookupTable;
+    private final long periodInNanos;
+    private final double lookupTableStep;
+
+    private volatile Sample sample;
+
+    /**
+     * Constructs rate generator which samples <code>delegate</code> with specified <code>resolution</code>.
+     *
+     * @param delegate Rate generator to sample.
+     * @param resolution Length of interval at which delegate is sampled, must be positive number.
+     * @param unit Time unit of <code>resolution</code>.
+     */
+    public SampledRateGenerator(RateGenerator delegate, long resolution, TimeUnit unit) {
+        this(delegate, resolution, unit, false);
+    }
+
+    /**
+     * Constructs rate generator which samples <code>delegate</code> with specified <code>resolution</code>, either
+     * lazily or, when <code>lookupTable</code> is set and delegate is {@link PeriodicRateGenerator}, upfront for one
+     * period.
+     *
+     * @param delegate Rate generator to sample.
+     * @param resolution Length of interval at which delegate is sampled, must be positive number.
+     * @param unit Time unit of <code>resolution</code>.
+     * @param lookupTable Whether one period of periodic delegate should be sampled upfront.
+     */
+    public SampledRateGenerator(RateGenerator delegate, long resolution, TimeUnit unit, boolean lookupTable) {
+        if (delegate == null) {
+            throw new IllegalArgumentException("Delegate cannot be null.");
+        }
+        if (resolution <= 0) {
+            throw new IllegalArgumentException("Resolution must be positive number.");
+        }
+        if (unit == null) {
+            throw new IllegalArgumentException("Unit cannot be null.");
+        }
+        this.delegate = delegate;
+        this.resolutionInNanos = unit.toNanos(resolution);
+        long delegatePeriodInNanos = delegate instanceof PeriodicRateGenerator
+                ? ((PeriodicRateGenerator) delegate).periodInNanos : 0;
+        if (lookupTable && delegatePeriodInNanos > 0
+                && delegatePeriodInNanos / resolutionInNanos < MAX_LOOKUP_TABLE_SIZE) {
+            this.periodInNanos = delegatePeriodInNanos;
+            int steps = (int) Math.max(1, (periodInNanos + resolutionInNanos - 1) / resolutionInNanos);
+            this.lookupTableStep = (double) periodInNanos / steps;
+            this.lookupTable = new double[steps + 1];
+            for (int i = 0; i < steps; i++) {
+                this.lookupTable[i] = delegate.getRate(Math.round(i * lookupTableStep));
+            }
+            this.lookupTable[steps] = this.lookupTable[0];
+        } else {
+            this.periodInNanos = 0;
+            this.lookupTableStep = 0;
+            this.lookupTable = null;
+        }
+    }
+
+    @Override
+    public double getRate(long time) {
+        if (lookupTable != null) {
+            double position = (time % periodInNanos) / lookupTableStep;
+            int index = Math.min((int) position, lookupTable.length - 2);
+            return lookupTable[index] + (lookupTable[index + 1] - lookupTable[index]) * (position - index);
+        }
+        long interval = time / resolutionInNanos;
+        Sample current = sample;
+        if (current == null || current.interval != interval) {
+            long start = interval * resolutionInNanos;
+            double rate = delegate.getRate(start);
+            current = new Sample(interval, start, rate,
+                    (delegate.getRate(start + resolutionInNanos) - rate) / resolutionInNanos);
+            sample = current;
+        }
+        return current.rate + current.slope * (time - current.start);
+    }
+
+    /**
+     * Returns whether rate is interpolated from lookup table sampled upfront.
+     *
+     * @return <code>true</code> if rate is interpolated from lookup table, otherwise <code>false</code>.
+     */
+    public boolean hasLookupTable() {
+        return lookupTable != null;
+    }
+
+    /**
+     * Rate sampled at the start of an interval, with slope towards rate at the start of the next interval.
+     */
+    private static final class Sample {
+
+        private final long interval;
+        private final long start;
+        private final double rate;
+        private final double slope;
+
+        private Sample(long interval, long start, double rate, double slope) {
+            this.interval = interval;
+            this.start = start;
+            this.rate = rate;
+            this.slope = slope;
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package io.smartcat.berserker.rategenerator;
+
+import java.util.concurrent.TimeUnit;
+
+import io.smartcat.berserker.api.RateGenerator;
+
+/**
+ * Rate generator which changes rate in <code>count</code> steps of equal duration, starting at <code>start</code> and
+ * changing by <code>increment</code> with each step. Rate of the last step is kept afterwards.
+ */
+public class StepsRateGenerator implements RateGenerator {
+
+    private final long stepDurationInNanos;
+    private final double start;
+    private final double increment;
+    private final long count;
+
+    /**
+     * Constructs rate generator with specified <code>stepDurationInSeconds</code>, <code>start</code>,
+     * <code>increment</code> and <code>count</code>.
+     *
+     * @param stepDurationInSeconds Duration of each step in seconds, must be positive number.
+     * @param start Rate of the first step, must not be negative number.
+     * @param increment Difference between rates of two consecutive steps, may be negative as long as rate of the last
+     *            step is not negative.
+     * @param count Number of steps, must be positive number.
+     */
+    public StepsRateGenerator(long stepDurationInSeconds, double start, double increment, long count) {
+        if (stepDurationInSeconds <= 0) {
+            throw new IllegalArgumentException("Step duration must be positive number.");
+        }
+        if (start < 0) {
+            throw new IllegalArgumentException("Start must not be negative number.");
+        }
+        if (count <= 0) {
+            throw new IllegalArgumentException("Count must be positive number.");
+        }
+        if (start + increment * (count - 1) < 0) {
+            throw new IllegalArgumentException("Rate of the last step must not be negative number.");
+        }
+        this.stepDurationInNanos = TimeUnit.SECONDS.toNanos(stepDurationInSeconds);
+        this.start = start;
+        this.increment = increment;
+        this.count = count;
+    }
+
+    @Override
+    public double getRate(long time) {
+        return start + increment * Math.min(time / stepDurationInNanos, count - 1);
+    }
+}
@@ -31,4 +31,12 @@ public class SubtractionRateGenerator implements RateGenerator {
     public double getRate(long time) {
         return minuend.getRate(time) - subtrahend.getRate(time);
     }
+
+    RateGenerator getMinuend() {
+        return minuend;
+    }
+
+    RateGenerator getSubtrahend() {
+        return subtrahend;
+    }
 }
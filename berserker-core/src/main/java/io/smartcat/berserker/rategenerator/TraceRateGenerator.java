@@ -0,0 +1,169 @@
+package io.smartcat.berserker.rategenerator;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.TimeUnit;
+
+import io.smartcat.berserker.api.RateGenerator;
+
+/**
+ * Rate generator which replays recorded rate, read from a file of records each holding time and rate at that time.
+ * Rate between two records is interpolated linearly, rate of the first record is used before it and, unless trace is
+ * looped, rate of the last record is kept after it. Looped trace starts over once time of its last record is reached.
+ * Time of the first record is considered to be the beginning of the trace.
+ * <p>
+ * File is memory mapped and searched on each invocation, so nothing but the mapping is kept regardless of trace
+ * length. Binary file consists of records of 16 bytes, time in milliseconds as big-endian long followed by rate per
+ * second as big-endian double, with times in ascending order. File whose name ends with <code>.csv</code> is read as
+ * lines <code>time,rate</code> with time in seconds, possibly fractional, and is converted into temporary binary file
+ * which is then mapped. Lines which do not start with a digit, such as header, are skipped.
+ * </p>
+ */
+public class TraceRateGenerator implements RateGenerator {
+
+    private static final int RECORD_SIZE = 16;
+    private static final double NANOS_IN_MILLISECOND = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private final ByteBuffer trace;
+    private final int count;
+    private final long firstTime;
+    private final long duration;
+    private final boolean loop;
+
+    /**
+     * Constructs rate generator replaying trace from file at <code>path</code>.
+     *
+     * @param path Path of binary or CSV trace file.
+     * @param loop Whether trace starts over once its end is reached.
+     * @throws IOException If file cannot be read.
+     * @throws IllegalArgumentException If file is empty, not well formed or its records are not in ascending order of
+     *             time or have negative rate.
+     */
+    public TraceRateGenerator(Path path, boolean loop) throws IOException {
+        if (path == null) {
+            throw new IllegalArgumentException("Path cannot be null.");
+        }
+        this.trace = path.getFileName().toString().toLowerCase().endsWith(".csv") ? mapCsv(path) : map(path);
+        if (trace.capacity() == 0 || trace.capacity() % RECORD_SIZE != 0) {
+            throw new IllegalArgumentException("Trace file must contain at least one record of " + RECORD_SIZE
+                    + " bytes: " + path);
+        }
+        this.count = trace.capacity() / RECORD_SIZE;
+        validate(path);
+        this.firstTime = time(0);
+        this.duration = time(count - 1) - firstTime;
+        this.loop = loop;
+    }
+
+    @Override
+    public double getRate(long time) {
+        double offset = time / NANOS_IN_MILLISECOND;
+        if (loop && duration > 0) {
+            offset %= duration;
+        }
+        double traceTime = firstTime + offset;
+        int low = 0;
+        int high = count - 1;
+        if (traceTime >= time(high)) {
+            return rate(high);
+        }
+        // find the last record whose time is not after trace time
+        while (low < high) {
+            int middle = (low + high + 1) >>> 1;
+            if (time(middle) <= traceTime) {
+                low = middle;
+            } else {
+                high = middle - 1;
+            }
+        }
+        long lowTime = time(low);
+        long highTime = time(low + 1);
+        double lowRate = rate(low);
+        return lowRate + (rate(low + 1) - lowRate) * (traceTime - lowTime) / (highTime - lowTime);
+    }
+
+    /**
+     * Returns number of records within trace.
+     *
+     * @return Number of records within trace.
+     */
+    public int getRecordCount() {
+        return count;
+    }
+
+    private long time(int index) {
+        return trace.getLong(index * RECORD_SIZE);
+    }
+
+    private double rate(int index) {
+        return trace.getDouble(index * RECORD_SIZE + Long.BYTES);
+    }
+
+    private void validate(Path path) {
+        for (int i = 0; i < count; i++) {
+            if (i > 0 && time(i) <= time(i - 1)) {
+                throw new IllegalArgumentException("Trace records must be in ascending order of time: " + path);
+            }
+            if (rate(i) < 0 || Double.isNaN(rate(i))) {
+                throw new IllegalArgumentException("Trace rates must not be negative numbers: " + path);
+            }
+        }
+    }
+
+    private static ByteBuffer map(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException("Trace file is larger than 2 GB: " + path);
+            }
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+    }
+
+    private static ByteBuffer mapCsv(Path path) throws IOException {
+        Path binary = Files.createTempFile("berserker-trace", ".bin");
+        try {
+            try (BufferedReader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8);
+                    OutputStream output = Files.newOutputStream(binary);
+                    DataOutputStream data = new DataOutputStream(new BufferedOutputStream(output))) {
+                String line;
+                int lineNumber = 0;
+                while ((line = reader.readLine()) != null) {
+                    lineNumber++;
+                    String trimmed = line.trim();
+                    if (trimmed.isEmpty() || !Character.isDigit(trimmed.charAt(0))) {
+                        continue;
+                    }
+                    String[] columns = trimmed.split(",");
+                    if (columns.length < 2) {
+                        throw new IllegalArgumentException("Line " + lineNumber + " of trace file does not contain "
+                                + "both time and rate: " + path);
+                    }
+                    try {
+                        data.writeLong(Math.round(Double.parseDouble(columns[0].trim()) * 1000));
+                        data.writeDouble(Double.parseDouble(columns[1].trim()));
+                    } catch (NumberFormatException e) {
+                        throw new IllegalArgumentException("Line " + lineNumber + " of trace file is not well "
+                                + "formed: " + path, e);
+                    }
+                }
+            }
+            return map(binary);
+        } finally {
+            // mapping stays valid once file is deleted
+            try {
+                Files.delete(binary);
+            } catch (IOException e) {
+                binary.toFile().deleteOnExit();
+            }
+        }
+    }
+}
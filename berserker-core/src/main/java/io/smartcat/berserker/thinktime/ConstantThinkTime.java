@@ -0,0 +1,32 @@
+package io.smartcat.berserker.thinktime;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Think time which is always the same.
+ */
+public class ConstantThinkTime implements ThinkTime {
+
+    private final long thinkTimeInNanos;
+
+    /**
+     * Constructs constant think time.
+     *
+     * @param thinkTime Duration of each pause, must not be negative number.
+     * @param unit Time unit of <code>thinkTime</code>.
+     */
+    public ConstantThinkTime(long thinkTime, TimeUnit unit) {
+        if (thinkTime < 0) {
+            throw new IllegalArgumentException("Think time must not be negative number.");
+        }
+        if (unit == null) {
+            throw new IllegalArgumentException("Unit cannot be null.");
+        }
+        this.thinkTimeInNanos = unit.toNanos(thinkTime);
+    }
+
+    @Override
+    public long nextThinkTime() {
+        return thinkTimeInNanos;
+    }
+}
@@ -0,0 +1,38 @@
+package io.smartcat.berserker.thinktime;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Think time exponentially distributed around its mean, which makes virtual users behave as independent users of an
+ * interactive system: most pauses are short, while some are several times longer than mean.
+ */
+public class ExponentialThinkTime implements ThinkTime {
+
+    private final double meanThinkTimeInNanos;
+    private final SplittableRandom random;
+
+    /**
+     * Constructs exponentially distributed think time with specified <code>seed</code>, so sequence of pauses can be
+     * reproduced.
+     *
+     * @param meanThinkTime Mean duration of pause, must not be negative number.
+     * @param unit Time unit of <code>meanThinkTime</code>.
+     * @param seed Seed of random number generator.
+     */
+    public ExponentialThinkTime(long meanThinkTime, TimeUnit unit, long seed) {
+        if (meanThinkTime < 0) {
+            throw new IllegalArgumentException("Mean think time must not be negative number.");
+        }
+        if (unit == null) {
+            throw new IllegalArgumentException("Unit cannot be null.");
+        }
+        this.meanThinkTimeInNanos = unit.toNanos(meanThinkTime);
+        this.random = new SplittableRandom(seed);
+    }
+
+    @Override
+    public long nextThinkTime() {
+        return Math.round(-Math.log(1 - random.nextDouble()) * meanThinkTimeInNanos);
+    }
+}
@@ -0,0 +1,16 @@
+package io.smartcat.berserker.thinktime;
+
+/**
+ * Distribution of pauses virtual users of {@link io.smartcat.berserker.VirtualUserLoadGenerator
+ * VirtualUserLoadGenerator} make between the moment their previous message is done with and the moment they dispatch
+ * the next one. Think time is drawn by a single thread of load generator, so implementations need not be thread safe.
+ */
+public interface ThinkTime {
+
+    /**
+     * Returns duration of the next pause.
+     *
+     * @return Duration of the next pause in nanoseconds, not negative.
+     */
+    long nextThinkTime();
+}
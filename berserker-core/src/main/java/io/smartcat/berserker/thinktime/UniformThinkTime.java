@@ -0,0 +1,38 @@
+package io.smartcat.berserker.thinktime;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Think time uniformly distributed between zero and twice its mean, so that users which started together drift apart
+ * while mean think time is kept.
+ */
+public class UniformThinkTime implements ThinkTime {
+
+    private final long maxThinkTimeInNanos;
+    private final SplittableRandom random;
+
+    /**
+     * Constructs uniformly distributed think time with specified <code>seed</code>, so sequence of pauses can be
+     * reproduced.
+     *
+     * @param meanThinkTime Mean duration of pause, must not be negative number.
+     * @param unit Time unit of <code>meanThinkTime</code>.
+     * @param seed Seed of random number generator.
+     */
+    public UniformThinkTime(long meanThinkTime, TimeUnit unit, long seed) {
+        if (meanThinkTime < 0) {
+            throw new IllegalArgumentException("Mean think time must not be negative number.");
+        }
+        if (unit == null) {
+            throw new IllegalArgumentException("Unit cannot be null.");
+        }
+        this.maxThinkTimeInNanos = 2 * unit.toNanos(meanThinkTime);
+        this.random = new SplittableRandom(seed);
+    }
+
+    @Override
+    public long nextThinkTime() {
+        return maxThinkTimeInNanos == 0 ? 0 : random.nextLong(maxThinkTimeInNanos + 1);
+    }
+}
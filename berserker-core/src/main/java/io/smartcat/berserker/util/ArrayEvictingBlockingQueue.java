@@ -0,0 +1,287 @@
+package io.smartcat.berserker.util;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Bounded evicting blocking queue backed by pre-allocated ring buffer. Depending on <code>dropFromHead</code> flag,
+ * can drop either from head or from tail when put is attempted on full queue.
+ * <p>
+ * Implementation is based on Dmitry Vyukov's bounded MPMC queue where each slot carries a sequence number telling
+ * whether slot is ready to be written or read. Consumers claim slots with a single CAS on head and never take a lock.
+ * Producers are serialized between themselves with a CAS flag, which guarantees that each put evicts at most one
+ * element, while consumers run concurrently with them. Consumers waiting for an element spin for a while and then
+ * block on a semaphore which producers release only when there are waiting consumers without a permit, so put does
+ * not pay for signaling while consumers are busy.
+ * </p>
+ *
+ * @param <T> Type of elements held in this collection.
+ */
+public class ArrayEvictingBlockingQueue<T> implements EvictingBlockingQueue<T> {
+
+    private static final int MAX_CAPACITY = 1 << 30;
+    private static final int SPIN_TRIES = 100;
+
+    private final boolean dropFromHead;
+    private final int capacity;
+    private final int mask;
+    private final AtomicReferenceArray<T> elements;
+    private final AtomicLongArray sequences;
+    private final AtomicLong head = new AtomicLong();
+    private final AtomicLong tail = new AtomicLong();
+    private final AtomicBoolean putting = new AtomicBoolean(false);
+    private final AtomicInteger waiters = new AtomicInteger();
+    private final Semaphore available = new Semaphore(0);
+
+    /**
+     * Constructs evicting blocking queue with specified <code>capacity</code>. <code>dropFromHead</code> is set to
+     * true.
+     *
+     * @param capacity Capacity of this queue, must be positive number not greater than <code>2^30</code>.
+     */
+    public ArrayEvictingBlockingQueue(int capacity) {
+        this(true, capacity);
+    }
+
+    /**
+     * Constructs evicting blocking queue with specified <code>dropFromHead</code> flag and fixed <code>capacity</code>.
+     * Ring buffer of size equal to the nearest power of two not smaller than <code>capacity</code> is allocated
+     * immediately.
+     *
+     * @param dropFromHead Flag to determine whether element from head or from tail will be dropped when put is invoked
+     *            on full queue.
+     * @param capacity Capacity of this queue, must be positive number not greater than <code>2^30</code>.
+     */
+    public ArrayEvictingBlockingQueue(boolean dropFromHead, int capacity) {
+        if (capacity <= 0 || capacity > MAX_CAPACITY) {
+            throw new IllegalArgumentException("Capacity must be positive number not greater than " + MAX_CAPACITY
+                    + ".");
+        }
+        this.dropFromHead = dropFromHead;
+        this.capacity = capacity;
+        int bufferSize = capacity == 1 ? 1 : Integer.highestOneBit(capacity - 1) << 1;
+        this.mask = bufferSize - 1;
+        this.elements = new AtomicReferenceArray<>(bufferSize);
+        this.sequences = new AtomicLongArray(bufferSize);
+        for (int i = 0; i < bufferSize; i++) {
+            sequences.set(i, i);
+        }
+    }
+
+    /**
+     * Inserts the specified element at the tail of this queue. If queue if full, element is dropped and then specified
+     * element is put. Depending on <code>dropFromHead</code> either element from head or from tail will be dropped from
+     * the queue.
+     *
+     * @param e Element to put in this queue, must not be null.
+     * @return Element that was dropped, or null if no element was dropped.
+     */
+    @Override
+    public T put(T e) {
+        if (e == null) {
+            throw new IllegalArgumentException("Element cannot be null.");
+        }
+        lockPutting();
+        try {
+            long t = tail.get();
+            T dropped = null;
+            if (t - head.get() >= capacity) {
+                if (dropFromHead) {
+                    dropped = evictHead(t);
+                } else {
+                    dropped = replaceLast(t, e);
+                    if (dropped != null) {
+                        return dropped;
+                    }
+                }
+            }
+            link(t, e);
+            return dropped;
+        } finally {
+            putting.set(false);
+        }
+    }
+
+    /**
+     * Inserts the specified element at the tail of this queue if queue is not full. Unlike {@link #put(Object)}, never
+     * drops elements.
+     *
+     * @param e Element to put in this queue, must not be null.
+     * @return True if element was inserted, false if queue was full.
+     */
+    public boolean offer(T e) {
+        if (e == null) {
+            throw new IllegalArgumentException("Element cannot be null.");
+        }
+        lockPutting();
+        try {
+            long t = tail.get();
+            if (t - head.get() >= capacity) {
+                return false;
+            }
+            link(t, e);
+            return true;
+        } finally {
+            putting.set(false);
+        }
+    }
+
+    @Override
+    public T take() throws InterruptedException {
+        while (true) {
+            T e = spinPoll();
+            if (e != null) {
+                return e;
+            }
+            waiters.incrementAndGet();
+            try {
+                e = poll();
+                if (e != null) {
+                    return e;
+                }
+                available.acquire();
+            } finally {
+                waiters.decrementAndGet();
+            }
+        }
+    }
+
+    @Override
+    public T poll() {
+        while (true) {
+            long h = head.get();
+            int index = index(h);
+            long difference = sequences.get(index) - (h + 1);
+            if (difference == 0) {
+                if (head.compareAndSet(h, h + 1)) {
+                    T e = elements.getAndSet(index, null);
+                    sequences.lazySet(index, h + mask + 1);
+                    return e;
+                }
+            } else if (difference < 0) {
+                return null;
+            }
+        }
+    }
+
+    @Override
+    public T poll(long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        while (true) {
+            T e = spinPoll();
+            if (e != null) {
+                return e;
+            }
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+                return null;
+            }
+            waiters.incrementAndGet();
+            try {
+                e = poll();
+                if (e != null) {
+                    return e;
+                }
+                available.tryAcquire(remaining, TimeUnit.NANOSECONDS);
+            } finally {
+                waiters.decrementAndGet();
+            }
+        }
+    }
+
+    @Override
+    public int size() {
+        long h = head.get();
+        long t = tail.get();
+        return (int) Math.max(0, Math.min(capacity, t - h));
+    }
+
+    private void lockPutting() {
+        for (int tries = 0; !putting.compareAndSet(false, true); tries++) {
+            backOff(tries);
+        }
+    }
+
+    /**
+     * Links element at position <code>t</code>, waiting for consumer to release the slot if necessary.
+     */
+    private void link(long t, T e) {
+        int index = index(t);
+        for (int tries = 0; sequences.get(index) != t; tries++) {
+            // consumer claimed the slot but did not release it yet
+            backOff(tries);
+        }
+        elements.lazySet(index, e);
+        sequences.set(index, t + 1);
+        tail.lazySet(t + 1);
+        signalWaiter();
+    }
+
+    /**
+     * Takes element from head while queue with tail at <code>t</code> is still full. Returns null once consumer took
+     * an element in the meantime, since there is room for the new element then.
+     */
+    private T evictHead(long t) {
+        while (true) {
+            long h = head.get();
+            if (t - h < capacity) {
+                return null;
+            }
+            int index = index(h);
+            // elements before tail are all published while producer holds the lock
+            if (sequences.get(index) == h + 1 && head.compareAndSet(h, h + 1)) {
+                T e = elements.getAndSet(index, null);
+                sequences.lazySet(index, h + mask + 1);
+                return e;
+            }
+        }
+    }
+
+    /**
+     * Replaces element put last with <code>e</code>, unless consumer took it in the meantime.
+     */
+    private T replaceLast(long t, T e) {
+        int index = index(t - 1);
+        T last = elements.get(index);
+        if (last != null && elements.compareAndSet(index, last, e)) {
+            return last;
+        }
+        return null;
+    }
+
+    /**
+     * Releases a permit unless there are already enough permits for all waiting consumers, so that busy producer does
+     * not wake up the same consumer over and over.
+     */
+    private void signalWaiter() {
+        int waiting = waiters.get();
+        if (waiting > 0 && available.availablePermits() < waiting) {
+            available.release();
+        }
+    }
+
+    private T spinPoll() {
+        for (int i = 0; i < SPIN_TRIES; i++) {
+            T e = poll();
+            if (e != null) {
+                return e;
+            }
+        }
+        return null;
+    }
+
+    private void backOff(int tries) {
+        if (tries >= SPIN_TRIES) {
+            Thread.yield();
+        }
+    }
+
+    private int index(long position) {
+        return (int) position & mask;
+    }
+}
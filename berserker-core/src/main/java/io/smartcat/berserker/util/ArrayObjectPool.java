@@ -0,0 +1,103 @@
+package io.smartcat.berserker.util;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Bounded lock-free pool of reusable objects backed by pre-allocated ring buffer, meant for objects which are taken by
+ * one set of threads and returned by another, such as message envelopes returned from I/O threads of client
+ * libraries.
+ * <p>
+ * Implementation is Dmitry Vyukov's bounded MPMC queue where each slot carries a sequence number telling whether slot
+ * is ready to be written or read. Unlike {@link ArrayEvictingBlockingQueue}, which serializes producers to be able to
+ * evict, both {@link #offer(Object)} and {@link #poll()} claim a slot with a single CAS and never wait for each other,
+ * so threads returning objects contend only on that CAS. Objects offered to a full pool are not kept.
+ * </p>
+ *
+ * @param <T> Type of pooled objects.
+ */
+public class ArrayObjectPool<T> {
+
+    private static final int MAX_CAPACITY = 1 << 30;
+
+    private final int mask;
+    private final AtomicReferenceArray<T> elements;
+    private final AtomicLongArray sequences;
+    private final AtomicLong head = new AtomicLong();
+    private final AtomicLong tail = new AtomicLong();
+
+    /**
+     * Constructs pool which keeps at least <code>capacity</code> objects. Ring buffer of size equal to the nearest
+     * power of two not smaller than <code>capacity</code> is allocated immediately and that is the number of objects
+     * pool keeps.
+     *
+     * @param capacity Minimal capacity of this pool, must be positive number not greater than <code>2^30</code>.
+     */
+    public ArrayObjectPool(int capacity) {
+        if (capacity <= 0 || capacity > MAX_CAPACITY) {
+            throw new IllegalArgumentException("Capacity must be positive number not greater than " + MAX_CAPACITY
+                    + ".");
+        }
+        int bufferSize = capacity == 1 ? 1 : Integer.highestOneBit(capacity - 1) << 1;
+        this.mask = bufferSize - 1;
+        this.elements = new AtomicReferenceArray<>(bufferSize);
+        this.sequences = new AtomicLongArray(bufferSize);
+        for (int i = 0; i < bufferSize; i++) {
+            sequences.set(i, i);
+        }
+    }
+
+    /**
+     * Returns object to this pool, unless pool is full.
+     *
+     * @param e Object to return to this pool, must not be null.
+     * @return True if object was kept, false if pool was full.
+     */
+    public boolean offer(T e) {
+        if (e == null) {
+            throw new IllegalArgumentException("Element cannot be null.");
+        }
+        while (true) {
+            long t = tail.get();
+            int index = index(t);
+            long difference = sequences.get(index) - t;
+            if (difference == 0) {
+                if (tail.compareAndSet(t, t + 1)) {
+                    elements.lazySet(index, e);
+                    sequences.set(index, t + 1);
+                    return true;
+                }
+            } else if (difference < 0 && t - head.get() > mask) {
+                // otherwise consumer claimed the slot but did not release it yet
+                return false;
+            }
+        }
+    }
+
+    /**
+     * Takes object from this pool.
+     *
+     * @return Pooled object, or null if pool is empty.
+     */
+    public T poll() {
+        while (true) {
+            long h = head.get();
+            int index = index(h);
+            long difference = sequences.get(index) - (h + 1);
+            if (difference == 0) {
+                if (head.compareAndSet(h, h + 1)) {
+                    T e = elements.getAndSet(index, null);
+                    sequences.lazySet(index, h + mask + 1);
+                    return e;
+                }
+            } else if (difference < 0) {
+                return null;
+            }
+        }
+    }
+
+    private int index(long position) {
+        return (int) position & mask;
+    }
+}
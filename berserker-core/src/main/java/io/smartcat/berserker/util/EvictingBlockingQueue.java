@@ -0,0 +1,54 @@
+package io.smartcat.berserker.util;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Blocking queue with eviction policy to evict elements if put is attempted when queue is full. Put never blocks,
+ * instead, one element is dropped from the queue to make room for the new one.
+ *
+ * @param <T> Type of elements held in this collection.
+ */
+public interface EvictingBlockingQueue<T> {
+
+    /**
+     * Inserts the specified element at the tail of this queue. If queue if full, element is dropped and then specified
+     * element is put.
+     *
+     * @param e Element to put in this queue.
+     * @return Element that was dropped, or null if no element was dropped.
+     */
+    T put(T e);
+
+    /**
+     * Retrieves and removes the head of this queue, waiting if necessary until an element becomes available.
+     *
+     * @return The head of this queue.
+     * @throws InterruptedException If interrupted while waiting.
+     */
+    T take() throws InterruptedException;
+
+    /**
+     * Retrieves and removes the head of this queue, or returns null if this queue is empty.
+     *
+     * @return The head of this queue, or null if this queue is empty.
+     */
+    T poll();
+
+    /**
+     * Retrieves and removes the head of this queue, waiting up to the specified wait time if necessary for an element
+     * to become available.
+     *
+     * @param timeout How long to wait before giving up, in units of <code>unit</code>.
+     * @param unit Time unit determining how to interpret the <code>timeout</code> parameter.
+     * @return The head of this queue, or null if the specified waiting time elapses before an element is available.
+     * @throws InterruptedException If interrupted while waiting.
+     */
+    T poll(long timeout, TimeUnit unit) throws InterruptedException;
+
+    /**
+     * Returns the number of elements in this queue.
+     *
+     * @return the number of elements in this queue
+     */
+    int size();
+}
@@ -1,5 +1,6 @@
 package io.smartcat.berserker.util;
 
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.locks.Condition;
 import java.util.concurrent.locks.ReentrantLock;
 
@@ -10,7 +11,7 @@ import java.util.concurrent.locks.ReentrantLock;
  *
  * @param <T> Type of elements held in this collection.
  */
-public class LinkedEvictingBlockingQueue<T> {
+public class LinkedEvictingBlockingQueue<T> implements EvictingBlockingQueue<T> {
 
     private final boolean dropFromHead;
     private final int capacity;
@@ -63,6 +64,7 @@ public class LinkedEvictingBlockingQueue<T> {
      * @param e Element to put in this queue.
      * @return Element that was dropped, or null if no element was dropped.
      */
+    @Override
     public T put(T e) {
         Node<T> node = new Node<T>(e);
         final ReentrantLock lock = this.lock;
@@ -79,12 +81,7 @@ public class LinkedEvictingBlockingQueue<T> {
         }
     }
 
-    /**
-     * Retrieves and removes the head of this queue, waiting if necessary until an element becomes available.
-     *
-     * @return The read of this queue.
-     * @throws InterruptedException If interrupted while waiting.
-     */
+    @Override
     public T take() throws InterruptedException {
         final ReentrantLock lock = this.lock;
         lock.lock();
@@ -98,11 +95,36 @@ public class LinkedEvictingBlockingQueue<T> {
         }
     }
 
-    /**
-     * Returns the number of elements in this queue.
-     *
-     * @return the number of elements in this queue
-     */
+    @Override
+    public T poll() {
+        final ReentrantLock lock = this.lock;
+        lock.lock();
+        try {
+            return unlinkFromHead();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public T poll(long timeout, TimeUnit unit) throws InterruptedException {
+        long nanos = unit.toNanos(timeout);
+        final ReentrantLock lock = this.lock;
+        lock.lockInterruptibly();
+        try {
+            T x;
+            while ((x = unlinkFromHead()) == null) {
+                if (nanos <= 0)
+                    return null;
+                nanos = notEmpty.awaitNanos(nanos);
+            }
+            return x;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
     public int size() {
         final ReentrantLock lock = this.lock;
         lock.lock();
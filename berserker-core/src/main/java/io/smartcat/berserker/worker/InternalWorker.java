@@ -1,11 +1,15 @@
 package io.smartcat.berserker.worker;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
 import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
-import java.util.function.Consumer;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -13,19 +17,68 @@ import org.slf4j.LoggerFactory;
 import com.codahale.metrics.Histogram;
 import com.codahale.metrics.Meter;
 import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Reservoir;
 
+import io.smartcat.berserker.CallbackConsumer;
 import io.smartcat.berserker.api.AlreadyClosedException;
+import io.smartcat.berserker.api.BatchWorker;
 import io.smartcat.berserker.api.Worker;
-import io.smartcat.berserker.util.LinkedEvictingBlockingQueue;
+import io.smartcat.berserker.metrics.HdrHistogramReservoir;
+import io.smartcat.berserker.metrics.ReservoirHistogram;
+import io.smartcat.berserker.metrics.StripedMeter;
+import io.smartcat.berserker.util.ArrayEvictingBlockingQueue;
+import io.smartcat.berserker.util.ArrayObjectPool;
+import io.smartcat.berserker.util.EvictingBlockingQueue;
 
 /**
  * Default implementation of {@link InternalWorker} which uses queue and thread pool to schedule work for delegate
  * worker. When queue is full and new message is received, an old message will be dropped. <code>dropFromHead</code>
- * parameter determines whether message from head or from tail will e dropped.
+ * parameter determines whether message from head or from tail will e dropped. Queue is pre-allocated ring buffer, see
+ * {@link ArrayEvictingBlockingQueue}.
+ * <p>
+ * Depending on <code>queueMode</code>, all threads either share one queue, or each thread gets its own queue with
+ * <code>queueCapacity / threadCount</code> capacity. In the latter case, messages are distributed among queues either
+ * in round-robin fashion or to the queue with the least elements, and thread which finds its own queue empty steals
+ * messages from queues of other threads. Queue size and dropped metrics are aggregated across all queues.
+ * </p>
+ * <p>
+ * When delegate is {@link BatchWorker} and <code>batchSize</code> is greater than 1, each thread waits for one message
+ * and then passes it to delegate together with up to <code>batchSize - 1</code> messages which are already queued.
+ * Metrics are still recorded per message.
+ * </p>
+ * <p>
+ * When <code>maxInFlight</code> is positive, at most that many messages can be passed to delegate and not yet
+ * committed at any time. Thread which would exceed the limit blocks until some of the outstanding messages are
+ * committed, which keeps memory of asynchronous delegates bounded. Time spent blocked is recorded within
+ * <code>inFlightWaitTime</code> histogram, only for messages which actually had to wait, and number of outstanding
+ * messages is exposed through <code>inFlight</code> gauge. Message for which delegate threw an exception before
+ * committing it is committed as failure, so it does not hold its place in the window. Batch workers are expected to
+ * commit each message of the batch themselves.
+ * </p>
+ * <p>
+ * Message envelopes and callbacks passed to delegate are pooled and reused, so steady state dispatch does not allocate
+ * per message. Therefore, delegate must invoke callbacks only once per message and must not hold on to them afterwards.
+ * When delegate throws an exception, callbacks of the failed messages are not reused, since delegate may still invoke
+ * them, and new ones are allocated for the next use of their envelopes.
+ * </p>
+ * <p>
+ * Besides response time measured from the moment message was submitted, worker also records <i>corrected</i> response
+ * time measured from the moment {@link io.smartcat.berserker.LoadGenerator LoadGenerator} intended to dispatch the
+ * message. Corrected response time includes any delay in dispatching and therefore does not suffer from coordinated
+ * omission. Dropped messages are recorded as failures within corrected response time histograms, with response time
+ * measured up to the moment they were dropped.
+ * </p>
+ * <p>
+ * Histograms keep their values in reservoirs created by <code>reservoirSupplier</code>, which by default creates
+ * {@link HdrHistogramReservoir} with its default range and precision, so that high percentiles are exact regardless of
+ * number of recorded values. Since callbacks are often invoked on I/O threads of client libraries, metrics are
+ * recorded without contention: default reservoirs record into per-thread stripes and meters are {@link StripedMeter}s,
+ * both merged only when metrics are reported.
+ * </p>
  *
  * @param <T> Type of data this worker accepts.
  */
-public class InternalWorker<T> implements Consumer<T>, AutoCloseable {
+public class InternalWorker<T> implements CallbackConsumer<T>, AutoCloseable {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(InternalWorker.class);
     private static final String DEFAULT_METRICS_PREFIX = "io.smartcat.berserker";
@@ -37,15 +90,29 @@ public class InternalWorker<T> implements Consumer<T>, AutoCloseable {
     private static final String SUCCESS_RESPONSE_TIME = "successResponseTime";
     private static final String FAILURE_RESPONSE_TIME = "failureResponseTime";
     private static final String TOTAL_RESPONSE_TIME = "totalResponseTime";
+    private static final String CORRECTED_SUCCESS_RESPONSE_TIME = "correctedSuccessResponseTime";
+    private static final String CORRECTED_FAILURE_RESPONSE_TIME = "correctedFailureResponseTime";
+    private static final String CORRECTED_TOTAL_RESPONSE_TIME = "correctedTotalResponseTime";
     private static final String GENERATED_THROUGHPUT = "generatedThroughput";
     private static final String SUCCESS_PROCESSED_THROUGHPUT = "successProcessedThroughput";
     private static final String FAILURE_PROCESSED_THROUGHPUT = "failureProcessedThroughput";
     private static final String TOTAL_PROCESSED_THROUGHPUT = "totalProcessedThroughput";
     private static final String QUEUE_SIZE = "queueSize";
-
-    private final LinkedEvictingBlockingQueue<WorkerMeta> queue;
+    private static final String IN_FLIGHT = "inFlight";
+    private static final String IN_FLIGHT_WAIT_TIME = "inFlightWaitTime";
+
+    private static final long STEAL_PERIOD_IN_MICROS = 1000;
+    private static final int MAX_POOLED_ENVELOPES = 1 << 20;
+
+    private final QueueMode queueMode;
+    private final List<EvictingBlockingQueue<WorkerMeta>> queues;
+    private final AtomicInteger nextQueue = new AtomicInteger();
+    private final ArrayObjectPool<WorkerMeta> envelopePool;
+    private final Semaphore inFlightWindow;
+    private final AtomicInteger inFlight = new AtomicInteger();
     private final ThreadPoolExecutor threadPoolExecutor;
     private final MetricRegistry metricRegistry;
+    private final Supplier<Reservoir> reservoirSupplier;
     private final Meter droppedMeter;
     private final Histogram waitTime;
     private final Histogram successServiceTime;
@@ -54,10 +121,14 @@ public class InternalWorker<T> implements Consumer<T>, AutoCloseable {
     private final Histogram successResponseTime;
     private final Histogram failureResponseTime;
     private final Histogram totalResponseTime;
+    private final Histogram correctedSuccessResponseTime;
+    private final Histogram correctedFailureResponseTime;
+    private final Histogram correctedTotalResponseTime;
     private final Meter generatedThroughput;
     private final Meter totalProcessedThroughput;
     private final Meter successProcessedThroughput;
     private final Meter failureProcessedThroughput;
+    private final Histogram inFlightWaitTime;
 
     private boolean closed = false;
 
@@ -137,6 +208,167 @@ public class InternalWorker<T> implements Consumer<T>, AutoCloseable {
      */
     public InternalWorker(Worker<T> delegate, int queueCapacity, boolean dropFromHead, String metricsPrefix,
                           int threadCount, ThreadFactory threadFactory) {
+        this(delegate, queueCapacity, dropFromHead, metricsPrefix, threadCount, threadFactory, QueueMode.SHARED);
+    }
+
+    /**
+     * Constructs asynchronous worker with specified <code>delegate</code> worker, <code>queueCapacity</code>,
+     * <code>dropFromHead</code>, <code>metricsPrefix</code>, <code>threadCount</code> and <code>queueMode</code>.
+     * <code>threadFactory</code> is set to {@link DefaultThreadFactory}.
+     *
+     * @param delegate Worker which is run in thread pool and to which work is delegated.
+     * @param queueCapacity Capacity of the queue used as a message buffer, must be positive number. When each thread
+     *            has its own queue, capacity is divided among queues.
+     * @param dropFromHead If true, message from head of the queue will be dropped, if false, message from tail of the
+     *            queue will be dropped.
+     * @param metricsPrefix Prefix for metrics.
+     * @param threadCount Number of thread to be used by thread pool, must be positive number.
+     * @param queueMode Determines whether threads share one queue or each thread has its own queue.
+     */
+    public InternalWorker(Worker<T> delegate, int queueCapacity, boolean dropFromHead, String metricsPrefix,
+                          int threadCount, QueueMode queueMode) {
+        this(delegate, queueCapacity, dropFromHead, metricsPrefix, threadCount, new DefaultThreadFactory(), queueMode);
+    }
+
+    /**
+     * Constructs asynchronous worker with specified <code>delegate</code> worker, <code>queueCapacity</code>,
+     * <code>dropFromHead</code>, <code>metricsPrefix</code>, <code>threadCount</code>, <code>queueMode</code> and
+     * <code>batchSize</code>. <code>threadFactory</code> is set to {@link DefaultThreadFactory}.
+     *
+     * @param delegate Worker which is run in thread pool and to which work is delegated.
+     * @param queueCapacity Capacity of the queue used as a message buffer, must be positive number. When each thread
+     *            has its own queue, capacity is divided among queues.
+     * @param dropFromHead If true, message from head of the queue will be dropped, if false, message from tail of the
+     *            queue will be dropped.
+     * @param metricsPrefix Prefix for metrics.
+     * @param threadCount Number of thread to be used by thread pool, must be positive number.
+     * @param queueMode Determines whether threads share one queue or each thread has its own queue.
+     * @param batchSize Maximum number of messages passed to delegate at once, must be positive number. Applicable only
+     *            when delegate is {@link BatchWorker}.
+     */
+    public InternalWorker(Worker<T> delegate, int queueCapacity, boolean dropFromHead, String metricsPrefix,
+                          int threadCount, QueueMode queueMode, int batchSize) {
+        this(delegate, queueCapacity, dropFromHead, metricsPrefix, threadCount, new DefaultThreadFactory(), queueMode,
+                batchSize);
+    }
+
+    /**
+     * Constructs asynchronous worker with specified <code>delegate</code> worker, <code>queueCapacity</code>,
+     * <code>dropFromHead</code>, <code>metricsPrefix</code>, <code>threadCount</code>, <code>queueMode</code>,
+     * <code>batchSize</code> and <code>maxInFlight</code>. <code>threadFactory</code> is set to
+     * {@link DefaultThreadFactory}.
+     *
+     * @param delegate Worker which is run in thread pool and to which work is delegated.
+     * @param queueCapacity Capacity of the queue used as a message buffer, must be positive number. When each thread
+     *            has its own queue, capacity is divided among queues.
+     * @param dropFromHead If true, message from head of the queue will be dropped, if false, message from tail of the
+     *            queue will be dropped.
+     * @param metricsPrefix Prefix for metrics.
+     * @param threadCount Number of thread to be used by thread pool, must be positive number.
+     * @param queueMode Determines whether threads share one queue or each thread has its own queue.
+     * @param batchSize Maximum number of messages passed to delegate at once, must be positive number. Applicable only
+     *            when delegate is {@link BatchWorker}.
+     * @param maxInFlight Maximum number of messages passed to delegate and not yet committed, must not be negative
+     *            number. Zero means there is no limit.
+     */
+    public InternalWorker(Worker<T> delegate, int queueCapacity, boolean dropFromHead, String metricsPrefix,
+                          int threadCount, QueueMode queueMode, int batchSize, int maxInFlight) {
+        this(delegate, queueCapacity, dropFromHead, metricsPrefix, threadCount, new DefaultThreadFactory(), queueMode,
+                batchSize, maxInFlight);
+    }
+
+    /**
+     * Constructs asynchronous worker with specified <code>delegate</code> worker, <code>queueCapacity</code>,
+     * <code>dropFromHead</code>, <code>metricsPrefix</code>, <code>threadCount</code>, <code>threadFactory</code> and
+     * <code>queueMode</code>.
+     *
+     * @param delegate Worker which is run in thread pool and to which work is delegated.
+     * @param queueCapacity Capacity of the queue used as a message buffer, must be positive number. When each thread
+     *            has its own queue, capacity is divided among queues.
+     * @param dropFromHead If true, message from head of the queue will be dropped, if false, message from tail of the
+     *            queue will be dropped.
+     * @param metricsPrefix Prefix for metrics.
+     * @param threadCount Number of thread to be used by thread pool, must be positive number.
+     * @param threadFactory ThreadFactory to be used in creating threads for thread pool.
+     * @param queueMode Determines whether threads share one queue or each thread has its own queue.
+     */
+    public InternalWorker(Worker<T> delegate, int queueCapacity, boolean dropFromHead, String metricsPrefix,
+                          int threadCount, ThreadFactory threadFactory, QueueMode queueMode) {
+        this(delegate, queueCapacity, dropFromHead, metricsPrefix, threadCount, threadFactory, queueMode, 1);
+    }
+
+    /**
+     * Constructs asynchronous worker with specified <code>delegate</code> worker, <code>queueCapacity</code>,
+     * <code>dropFromHead</code>, <code>metricsPrefix</code>, <code>threadCount</code>, <code>threadFactory</code>,
+     * <code>queueMode</code> and <code>batchSize</code>.
+     *
+     * @param delegate Worker which is run in thread pool and to which work is delegated.
+     * @param queueCapacity Capacity of the queue used as a message buffer, must be positive number. When each thread
+     *            has its own queue, capacity is divided among queues.
+     * @param dropFromHead If true, message from head of the queue will be dropped, if false, message from tail of the
+     *            queue will be dropped.
+     * @param metricsPrefix Prefix for metrics.
+     * @param threadCount Number of thread to be used by thread pool, must be positive number.
+     * @param threadFactory ThreadFactory to be used in creating threads for thread pool.
+     * @param queueMode Determines whether threads share one queue or each thread has its own queue.
+     * @param batchSize Maximum number of messages passed to delegate at once, must be positive number. Applicable only
+     *            when delegate is {@link BatchWorker}.
+     */
+    public InternalWorker(Worker<T> delegate, int queueCapacity, boolean dropFromHead, String metricsPrefix,
+                          int threadCount, ThreadFactory threadFactory, QueueMode queueMode, int batchSize) {
+        this(delegate, queueCapacity, dropFromHead, metricsPrefix, threadCount, threadFactory, queueMode, batchSize, 0);
+    }
+
+    /**
+     * Constructs asynchronous worker with specified <code>delegate</code> worker, <code>queueCapacity</code>,
+     * <code>dropFromHead</code>, <code>metricsPrefix</code>, <code>threadCount</code>, <code>threadFactory</code>,
+     * <code>queueMode</code>, <code>batchSize</code> and <code>maxInFlight</code>. <code>reservoirSupplier</code>
+     * creates {@link HdrHistogramReservoir} with default range and precision.
+     *
+     * @param delegate Worker which is run in thread pool and to which work is delegated.
+     * @param queueCapacity Capacity of the queue used as a message buffer, must be positive number. When each thread
+     *            has its own queue, capacity is divided among queues.
+     * @param dropFromHead If true, message from head of the queue will be dropped, if false, message from tail of the
+     *            queue will be dropped.
+     * @param metricsPrefix Prefix for metrics.
+     * @param threadCount Number of thread to be used by thread pool, must be positive number.
+     * @param threadFactory ThreadFactory to be used in creating threads for thread pool.
+     * @param queueMode Determines whether threads share one queue or each thread has its own queue.
+     * @param batchSize Maximum number of messages passed to delegate at once, must be positive number. Applicable only
+     *            when delegate is {@link BatchWorker}. When <code>maxInFlight</code> is smaller, it is used instead.
+     * @param maxInFlight Maximum number of messages passed to delegate and not yet committed, must not be negative
+     *            number. Zero means there is no limit.
+     */
+    public InternalWorker(Worker<T> delegate, int queueCapacity, boolean dropFromHead, String metricsPrefix,
+                          int threadCount, ThreadFactory threadFactory, QueueMode queueMode, int batchSize,
+                          int maxInFlight) {
+        this(delegate, queueCapacity, dropFromHead, metricsPrefix, threadCount, threadFactory, queueMode, batchSize,
+                maxInFlight, HdrHistogramReservoir::new);
+    }
+
+    /**
+     * Constructs asynchronous worker with specified <code>delegate</code> worker, <code>queueCapacity</code>,
+     * <code>dropFromHead</code>, <code>metricsPrefix</code>, <code>threadCount</code>, <code>threadFactory</code>,
+     * <code>queueMode</code>, <code>batchSize</code>, <code>maxInFlight</code> and <code>reservoirSupplier</code>.
+     *
+     * @param delegate Worker which is run in thread pool and to which work is delegated.
+     * @param queueCapacity Capacity of the queue used as a message buffer, must be positive number. When each thread
+     *            has its own queue, capacity is divided among queues.
+     * @param dropFromHead If true, message from head of the queue will be dropped, if false, message from tail of the
+     *            queue will be dropped.
+     * @param metricsPrefix Prefix for metrics.
+     * @param threadCount Number of thread to be used by thread pool, must be positive number.
+     * @param threadFactory ThreadFactory to be used in creating threads for thread pool.
+     * @param queueMode Determines whether threads share one queue or each thread has its own queue.
+     * @param batchSize Maximum number of messages passed to delegate at once, must be positive number. Applicable only
+     *            when delegate is {@link BatchWorker}. When <code>maxInFlight</code> is smaller, it is used instead.
+     * @param maxInFlight Maximum number of messages passed to delegate and not yet committed, must not be negative
+     *            number. Zero means there is no limit.
+     * @param reservoirSupplier Supplier of reservoirs for histograms, invoked once per histogram.
+     */
+    public InternalWorker(Worker<T> delegate, int queueCapacity, boolean dropFromHead, String metricsPrefix,
+                          int threadCount, ThreadFactory threadFactory, QueueMode queueMode, int batchSize,
+                          int maxInFlight, Supplier<Reservoir> reservoirSupplier) {
         if (delegate == null) {
             throw new IllegalArgumentException("Delegate cannot be null.");
         }
@@ -149,38 +381,87 @@ public class InternalWorker<T> implements Consumer<T>, AutoCloseable {
         if (threadFactory == null) {
             throw new IllegalArgumentException("Thread factory cannot be null.");
         }
-        this.queue = new LinkedEvictingBlockingQueue<>(dropFromHead, queueCapacity);
-        this.threadPoolExecutor = createAndInitThreadPoolExecutor(delegate, threadCount, threadFactory);
+        if (queueMode == null) {
+            throw new IllegalArgumentException("Queue mode cannot be null.");
+        }
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("Batch size must be positive number.");
+        }
+        if (maxInFlight < 0) {
+            throw new IllegalArgumentException("Max in flight must not be negative number.");
+        }
+        if (reservoirSupplier == null) {
+            throw new IllegalArgumentException("Reservoir supplier cannot be null.");
+        }
+        this.inFlightWindow = maxInFlight > 0 ? new Semaphore(maxInFlight) : null;
+        this.queueMode = queueMode;
+        this.queues = createQueues(queueCapacity, dropFromHead, threadCount, queueMode);
+        this.envelopePool = new ArrayObjectPool<>(
+                (int) Math.min(MAX_POOLED_ENVELOPES, (long) queueCapacity + threadCount));
+        this.threadPoolExecutor = createAndInitThreadPoolExecutor(delegate, threadCount, threadFactory,
+                maxInFlight > 0 ? Math.min(batchSize, maxInFlight) : batchSize);
         this.metricRegistry = new MetricRegistry();
-        this.droppedMeter = metricRegistry.meter(name(metricsPrefix, DROPPED));
-        this.waitTime = metricRegistry.histogram(name(metricsPrefix, WAIT_TIME));
-        this.successServiceTime = metricRegistry.histogram(name(metricsPrefix, SUCCESS_SERVICE_TIME));
-        this.failureServiceTime = metricRegistry.histogram(name(metricsPrefix, FAILURE_SERVICE_TIME));
-        this.totalServiceTime = metricRegistry.histogram(name(metricsPrefix, TOTAL_SERVICE_TIME));
-        this.successResponseTime = metricRegistry.histogram(name(metricsPrefix, SUCCESS_RESPONSE_TIME));
-        this.failureResponseTime = metricRegistry.histogram(name(metricsPrefix, FAILURE_RESPONSE_TIME));
-        this.totalResponseTime = metricRegistry.histogram(name(metricsPrefix, TOTAL_RESPONSE_TIME));
-        this.generatedThroughput = metricRegistry.meter(name(metricsPrefix, GENERATED_THROUGHPUT));
-        this.successProcessedThroughput = metricRegistry.meter(name(metricsPrefix, SUCCESS_PROCESSED_THROUGHPUT));
-        this.failureProcessedThroughput = metricRegistry.meter(name(metricsPrefix, FAILURE_PROCESSED_THROUGHPUT));
-        this.totalProcessedThroughput = metricRegistry.meter(name(metricsPrefix, TOTAL_PROCESSED_THROUGHPUT));
-        metricRegistry.gauge(name(metricsPrefix, QUEUE_SIZE), () -> () -> queue.size());
+        this.reservoirSupplier = reservoirSupplier;
+        this.droppedMeter = meter(metricsPrefix, DROPPED);
+        this.waitTime = histogram(metricsPrefix, WAIT_TIME);
+        this.successServiceTime = histogram(metricsPrefix, SUCCESS_SERVICE_TIME);
+        this.failureServiceTime = histogram(metricsPrefix, FAILURE_SERVICE_TIME);
+        this.totalServiceTime = histogram(metricsPrefix, TOTAL_SERVICE_TIME);
+        this.successResponseTime = histogram(metricsPrefix, SUCCESS_RESPONSE_TIME);
+        this.failureResponseTime = histogram(metricsPrefix, FAILURE_RESPONSE_TIME);
+        this.totalResponseTime = histogram(metricsPrefix, TOTAL_RESPONSE_TIME);
+        this.correctedSuccessResponseTime = histogram(metricsPrefix, CORRECTED_SUCCESS_RESPONSE_TIME);
+        this.correctedFailureResponseTime = histogram(metricsPrefix, CORRECTED_FAILURE_RESPONSE_TIME);
+        this.correctedTotalResponseTime = histogram(metricsPrefix, CORRECTED_TOTAL_RESPONSE_TIME);
+        this.generatedThroughput = meter(metricsPrefix, GENERATED_THROUGHPUT);
+        this.successProcessedThroughput = meter(metricsPrefix, SUCCESS_PROCESSED_THROUGHPUT);
+        this.failureProcessedThroughput = meter(metricsPrefix, FAILURE_PROCESSED_THROUGHPUT);
+        this.totalProcessedThroughput = meter(metricsPrefix, TOTAL_PROCESSED_THROUGHPUT);
+        this.inFlightWaitTime = histogram(metricsPrefix, IN_FLIGHT_WAIT_TIME);
+        metricRegistry.gauge(name(metricsPrefix, QUEUE_SIZE), () -> () -> queueSize());
+        metricRegistry.gauge(name(metricsPrefix, IN_FLIGHT), () -> () -> inFlight.get());
     }
 
     /**
-     * Accepts message of type {@code <T>}.
+     * Accepts message of type {@code <T>}. Intended time of the message is set to current time.
      *
      * @param message Message to be processed.
      */
     @Override
     public void accept(T message) {
+        accept(message, System.nanoTime());
+    }
+
+    /**
+     * Accepts message of type {@code <T>} which was intended to be dispatched at <code>intendedTimeInNanos</code> and
+     * invokes <code>onDone</code> once processing of the message is committed, after its metrics are recorded, or once
+     * message is dropped.
+     *
+     * @param message Message to be processed.
+     * @param intendedTimeInNanos Time in nanoseconds at which message was intended to be dispatched.
+     * @param onDone Callback invoked once worker is done with the message, <code>null</code> means no callback.
+     */
+    @Override
+    public void accept(T message, long intendedTimeInNanos, Runnable onDone) {
         if (closed) {
             throw new AlreadyClosedException("Worker is already closed.");
         }
-        WorkerMeta meta = new WorkerMeta(message);
-        WorkerMeta dropped = queue.put(meta);
+        WorkerMeta meta = envelopePool.poll();
+        if (meta == null) {
+            meta = new WorkerMeta();
+        }
+        meta.init(message, intendedTimeInNanos, onDone);
+        WorkerMeta dropped = selectQueue().put(meta);
         if (dropped != null) {
+            dropped.markAsDropped();
+            correctedFailureResponseTime.update(dropped.getCorrectedResponseNanoTime());
+            correctedTotalResponseTime.update(dropped.getCorrectedResponseNanoTime());
             droppedMeter.mark();
+            Runnable droppedOnDone = dropped.onDone;
+            dropped.recycle();
+            if (droppedOnDone != null) {
+                droppedOnDone.run();
+            }
         }
         generatedThroughput.mark();
     }
@@ -203,34 +484,21 @@ public class InternalWorker<T> implements Consumer<T>, AutoCloseable {
     }
 
     private ThreadPoolExecutor createAndInitThreadPoolExecutor(Worker<T> delegate, int threadCount,
-            ThreadFactory threadFactory) {
+            ThreadFactory threadFactory, int batchSize) {
         ThreadPoolExecutor result = new ThreadPoolExecutor(threadCount, threadCount, 10, TimeUnit.MILLISECONDS,
                 new LinkedBlockingQueue<>(), threadFactory);
-        while (result.getPoolSize() < threadCount) {
+        boolean batching = batchSize > 1 && delegate instanceof BatchWorker;
+        for (int i = 0; i < threadCount; i++) {
+            int queueIndex = i % queues.size();
             result.submit(() -> {
+                Batch batch = batching ? new Batch(batchSize) : null;
                 while (true) {
                     try {
-                        WorkerMeta meta = queue.take();
-                        meta.markAsAccepted();
-                        delegate.accept(meta.getPayload(), () -> {
-                            meta.markAsDone();
-                            waitTime.update(meta.getWaitNanoTime());
-                            successServiceTime.update(meta.getServiceNanoTime());
-                            totalServiceTime.update(meta.getServiceNanoTime());
-                            successResponseTime.update(meta.getResponseNanoTime());
-                            totalResponseTime.update(meta.getResponseNanoTime());
-                            successProcessedThroughput.mark();
-                            totalProcessedThroughput.mark();
-                        }, () -> {
-                            meta.markAsDone();
-                            waitTime.update(meta.getWaitNanoTime());
-                            failureServiceTime.update(meta.getServiceNanoTime());
-                            totalServiceTime.update(meta.getServiceNanoTime());
-                            failureResponseTime.update(meta.getResponseNanoTime());
-                            totalResponseTime.update(meta.getResponseNanoTime());
-                            failureProcessedThroughput.mark();
-                            totalProcessedThroughput.mark();
-                        });
+                        if (batching) {
+                            processBatch((BatchWorker<T>) delegate, queueIndex, batch);
+                        } else {
+                            processSingle(delegate, queueIndex);
+                        }
                     } catch (Exception e) {
                         String workerName = delegate.getClass().getName();
                         LOGGER.error("Error while accepting payload at worker: " + workerName + ". Error: ", e);
@@ -241,6 +509,176 @@ public class InternalWorker<T> implements Consumer<T>, AutoCloseable {
         return result;
     }
 
+    private void processSingle(Worker<T> delegate, int queueIndex) throws InterruptedException {
+        WorkerMeta meta = takeNext(queueIndex);
+        enterInFlightWindow(1);
+        meta.markAsAccepted();
+        try {
+            delegate.accept(meta.getPayload(), meta.commitSuccess, meta.commitFailure);
+        } catch (RuntimeException e) {
+            meta.commitFailure.run();
+            meta.retireCallbacks();
+            throw e;
+        } finally {
+            meta.release();
+        }
+    }
+
+    /**
+     * Waits for the first message and then drains up to <code>batchSize</code> messages which are immediately
+     * available, so batch never waits to be filled.
+     */
+    private void processBatch(BatchWorker<T> delegate, int queueIndex, Batch batch) throws InterruptedException {
+        batch.add(takeNext(queueIndex));
+        WorkerMeta meta;
+        while (!batch.isFull() && (meta = pollNext(queueIndex)) != null) {
+            batch.add(meta);
+        }
+        enterInFlightWindow(batch.metas.size());
+        batch.markAsAccepted();
+        try {
+            delegate.accept(batch.payloads, batch.commitSuccesses, batch.commitFailures);
+        } catch (RuntimeException e) {
+            // members delegate already committed ignore the failure
+            for (Runnable commitFailure : batch.commitFailures) {
+                commitFailure.run();
+            }
+            for (WorkerMeta member : batch.metas) {
+                member.retireCallbacks();
+            }
+            throw e;
+        } finally {
+            batch.release();
+        }
+    }
+
+    private void enterInFlightWindow(int permits) throws InterruptedException {
+        if (inFlightWindow != null && !inFlightWindow.tryAcquire(permits)) {
+            long start = System.nanoTime();
+            inFlightWindow.acquire(permits);
+            inFlightWaitTime.update(System.nanoTime() - start);
+        }
+        inFlight.addAndGet(permits);
+    }
+
+    private void leaveInFlightWindow() {
+        inFlight.decrementAndGet();
+        if (inFlightWindow != null) {
+            inFlightWindow.release();
+        }
+    }
+
+    private List<EvictingBlockingQueue<WorkerMeta>> createQueues(int queueCapacity, boolean dropFromHead,
+            int threadCount, QueueMode queueMode) {
+        List<EvictingBlockingQueue<WorkerMeta>> result = new ArrayList<>();
+        if (queueMode == QueueMode.SHARED) {
+            result.add(new ArrayEvictingBlockingQueue<>(dropFromHead, queueCapacity));
+        } else {
+            int capacityPerQueue = Math.max(1, queueCapacity / threadCount);
+            for (int i = 0; i < threadCount; i++) {
+                result.add(new ArrayEvictingBlockingQueue<>(dropFromHead, capacityPerQueue));
+            }
+        }
+        return result;
+    }
+
+    private EvictingBlockingQueue<WorkerMeta> selectQueue() {
+        if (queues.size() == 1) {
+            return queues.get(0);
+        }
+        int start = Math.floorMod(nextQueue.getAndIncrement(), queues.size());
+        if (queueMode == QueueMode.ROUND_ROBIN) {
+            return queues.get(start);
+        }
+        EvictingBlockingQueue<WorkerMeta> result = queues.get(start);
+        int minSize = result.size();
+        for (int i = 1; i < queues.size() && minSize > 0; i++) {
+            EvictingBlockingQueue<WorkerMeta> queue = queues.get((start + i) % queues.size());
+            int size = queue.size();
+            if (size < minSize) {
+                result = queue;
+                minSize = size;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Takes message from queue at <code>queueIndex</code>. When that queue is empty, tries to steal message from other
+     * queues before waiting on own queue for a short period.
+     */
+    private WorkerMeta takeNext(int queueIndex) throws InterruptedException {
+        EvictingBlockingQueue<WorkerMeta> own = queues.get(queueIndex);
+        if (queues.size() == 1) {
+            return own.take();
+        }
+        while (true) {
+            WorkerMeta meta = pollNext(queueIndex);
+            if (meta != null) {
+                return meta;
+            }
+            meta = own.poll(STEAL_PERIOD_IN_MICROS, TimeUnit.MICROSECONDS);
+            if (meta != null) {
+                return meta;
+            }
+        }
+    }
+
+    /**
+     * Polls message from queue at <code>queueIndex</code>, or from other queues if that queue is empty, without
+     * waiting.
+     */
+    private WorkerMeta pollNext(int queueIndex) {
+        for (int i = 0; i < queues.size(); i++) {
+            WorkerMeta meta = queues.get((queueIndex + i) % queues.size()).poll();
+            if (meta != null) {
+                return meta;
+            }
+        }
+        return null;
+    }
+
+    private void commitSuccess(WorkerMeta meta) {
+        waitTime.update(meta.getWaitNanoTime());
+        successServiceTime.update(meta.getServiceNanoTime());
+        totalServiceTime.update(meta.getServiceNanoTime());
+        successResponseTime.update(meta.getResponseNanoTime());
+        totalResponseTime.update(meta.getResponseNanoTime());
+        correctedSuccessResponseTime.update(meta.getCorrectedResponseNanoTime());
+        correctedTotalResponseTime.update(meta.getCorrectedResponseNanoTime());
+        successProcessedThroughput.mark();
+        totalProcessedThroughput.mark();
+    }
+
+    private void commitFailure(WorkerMeta meta) {
+        waitTime.update(meta.getWaitNanoTime());
+        failureServiceTime.update(meta.getServiceNanoTime());
+        totalServiceTime.update(meta.getServiceNanoTime());
+        failureResponseTime.update(meta.getResponseNanoTime());
+        totalResponseTime.update(meta.getResponseNanoTime());
+        correctedFailureResponseTime.update(meta.getCorrectedResponseNanoTime());
+        correctedTotalResponseTime.update(meta.getCorrectedResponseNanoTime());
+        failureProcessedThroughput.mark();
+        totalProcessedThroughput.mark();
+    }
+
+    private int queueSize() {
+        int result = 0;
+        for (EvictingBlockingQueue<WorkerMeta> queue : queues) {
+            result += queue.size();
+        }
+        return result;
+    }
+
+    private Meter meter(String metricsPrefix, String name) {
+        return metricRegistry.meter(name(metricsPrefix, name), StripedMeter::new);
+    }
+
+    private Histogram histogram(String metricsPrefix, String name) {
+        return metricRegistry.histogram(name(metricsPrefix, name),
+                () -> new ReservoirHistogram(reservoirSupplier.get()));
+    }
+
     private String name(String metricsPrefix, String name) {
         String prefix = metricsPrefix == null || metricsPrefix.isEmpty() ? DEFAULT_METRICS_PREFIX : metricsPrefix;
         return MetricRegistry.name(prefix, name);
@@ -264,27 +702,150 @@ public class InternalWorker<T> implements Consumer<T>, AutoCloseable {
     }
 
     /**
-     * Meta data on worker message processing.
+     * Messages drained by one thread, together with their callbacks. Lists are reused across batches.
+     */
+    private class Batch {
+
+        private final int batchSize;
+        private final List<WorkerMeta> metas;
+        private final List<T> payloads;
+        private final List<Runnable> commitSuccesses;
+        private final List<Runnable> commitFailures;
+
+        Batch(int batchSize) {
+            this.batchSize = batchSize;
+            this.metas = new ArrayList<>(batchSize);
+            this.payloads = new ArrayList<>(batchSize);
+            this.commitSuccesses = new ArrayList<>(batchSize);
+            this.commitFailures = new ArrayList<>(batchSize);
+        }
+
+        void add(WorkerMeta meta) {
+            metas.add(meta);
+            payloads.add(meta.getPayload());
+            commitSuccesses.add(meta.commitSuccess);
+            commitFailures.add(meta.commitFailure);
+        }
+
+        void markAsAccepted() {
+            for (WorkerMeta meta : metas) {
+                meta.markAsAccepted();
+            }
+        }
+
+        boolean isFull() {
+            return metas.size() >= batchSize;
+        }
+
+        void release() {
+            for (WorkerMeta meta : metas) {
+                meta.release();
+            }
+            metas.clear();
+            payloads.clear();
+            commitSuccesses.clear();
+            commitFailures.clear();
+        }
+    }
+
+    /**
+     * Meta data on worker message processing. Instances are recycled through envelope pool. Envelope is returned to the
+     * pool once delegate returned from accept and one of callbacks was invoked, whichever happens later. Callbacks
+     * are stamped with the number of the current use, so only the first callback of the use counts and callbacks
+     * invoked after it are ignored. Callbacks are reused by the next use of envelope, unless delegate threw an
+     * exception while processing the message. Delegate may still invoke callbacks of such message after envelope was
+     * reused, so they are retired, keeping the stamp of their use, and envelope gets new ones.
      */
     private class WorkerMeta {
 
-        private final T payload;
-        private final long timeSubmittedInNanos;
+        // even value 2 * use means use is pending, odd value 2 * use + 1 means it is done
+        private final AtomicLong state = new AtomicLong();
+        private final AtomicInteger references = new AtomicInteger();
+
+        private long use;
+        private Commit commitSuccess;
+        private Commit commitFailure;
+        private T payload;
+        private long timeIntendedInNanos;
+        private long timeSubmittedInNanos;
         private long timeAcceptedInNanos;
         private long timeDoneInNanos;
         private boolean dropped = false;
+        private Runnable onDone;
 
-        WorkerMeta(T payload) {
+        void init(T payload, long timeIntendedInNanos, Runnable onDone) {
             this.payload = payload;
+            this.onDone = onDone;
+            this.timeIntendedInNanos = timeIntendedInNanos;
             this.timeSubmittedInNanos = now();
+            this.timeAcceptedInNanos = 0;
+            this.timeDoneInNanos = 0;
+            this.dropped = false;
+            this.use++;
+            this.state.set(2 * use);
+            if (commitSuccess == null) {
+                commitSuccess = new Commit(true);
+                commitFailure = new Commit(false);
+            }
+            commitSuccess.use = use;
+            commitFailure.use = use;
+        }
+
+        /**
+         * Drops callbacks of the current use, so they keep its stamp and the next use gets new ones.
+         */
+        void retireCallbacks() {
+            commitSuccess = null;
+            commitFailure = null;
         }
 
         void markAsAccepted() {
             timeAcceptedInNanos = now();
+            // one reference is held by the thread invoking delegate, the other by pending callback
+            references.set(2);
         }
 
-        void markAsDone() {
+        boolean markAsDone(long callbackUse) {
+            if (!state.compareAndSet(2 * callbackUse, 2 * callbackUse + 1)) {
+                return false;
+            }
             timeDoneInNanos = now();
+            return true;
+        }
+
+        void markAsDropped() {
+            timeDoneInNanos = now();
+            dropped = true;
+        }
+
+        /**
+         * Releases one reference and recycles this envelope when no references are left.
+         */
+        void release() {
+            if (references.decrementAndGet() == 0) {
+                recycle();
+            }
+        }
+
+        /**
+         * Releases one reference and then invokes callback of the caller, if any. Callback is read before releasing,
+         * since envelope may be reused as soon as it is released.
+         */
+        void releaseAndNotify() {
+            Runnable callback = onDone;
+            release();
+            if (callback != null) {
+                callback.run();
+            }
+        }
+
+        /**
+         * Clears payload and returns this envelope to the pool, if pool is not already full.
+         */
+        void recycle() {
+            payload = null;
+            onDone = null;
+            envelopePool.offer(this);
         }
 
         /**
@@ -323,9 +884,20 @@ public class InternalWorker<T> implements Consumer<T>, AutoCloseable {
             return timeDoneInNanos - timeSubmittedInNanos;
         }
 
+        /**
+         * Returns time in nanoseconds from the moment message was intended to be dispatched until processing was done
+         * on message, or until message was dropped.
+         *
+         * @return time in nanoseconds from the moment message was intended to be dispatched until it was done.
+         */
+        long getCorrectedResponseNanoTime() {
+            return timeDoneInNanos - timeIntendedInNanos;
+        }
+
         @Override
         public String toString() {
-            return "WorkerMeta [payload=" + payload + ", timeSubmittedInNanos=" + timeSubmittedInNanos
+            return "WorkerMeta [payload=" + payload + ", timeIntendedInNanos=" + timeIntendedInNanos
+                    + ", timeSubmittedInNanos=" + timeSubmittedInNanos
                     + ", timeAcceptedInNanos=" + timeAcceptedInNanos + ", timeDoneInNanos=" + timeDoneInNanos
                     + ", dropped=" + dropped + "]";
         }
@@ -333,5 +905,31 @@ public class InternalWorker<T> implements Consumer<T>, AutoCloseable {
         private long now() {
             return System.nanoTime();
         }
+
+        /**
+         * Callback committing one use of envelope as success or failure.
+         */
+        private final class Commit implements Runnable {
+
+            private final boolean success;
+            private long use;
+
+            Commit(boolean success) {
+                this.success = success;
+            }
+
+            @Override
+            public void run() {
+                if (markAsDone(use)) {
+                    leaveInFlightWindow();
+                    if (success) {
+                        InternalWorker.this.commitSuccess(WorkerMeta.this);
+                    } else {
+                        InternalWorker.this.commitFailure(WorkerMeta.this);
+                    }
+                    releaseAndNotify();
+                }
+            }
+        }
     }
 }
@@ -0,0 +1,24 @@
+package io.smartcat.berserker.worker;
+
+/**
+ * Determines how {@link InternalWorker} distributes messages among its threads.
+ */
+public enum QueueMode {
+
+    /**
+     * All threads take messages from one shared queue.
+     */
+    SHARED,
+
+    /**
+     * Each thread has its own queue, messages are put into queues in round-robin fashion. Idle threads steal messages
+     * from queues of other threads.
+     */
+    ROUND_ROBIN,
+
+    /**
+     * Each thread has its own queue, messages are put into queue with the least elements. Idle threads steal messages
+     * from queues of other threads.
+     */
+    LEAST_LOADED
+}
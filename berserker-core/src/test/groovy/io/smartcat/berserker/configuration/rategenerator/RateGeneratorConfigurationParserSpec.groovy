@@ -1,7 +1,10 @@
 package io.smartcat.berserker.configuration.rategenerator
 
+import io.smartcat.berserker.rategenerator.PiecewiseLinearRateGenerator
+import io.smartcat.berserker.rategenerator.RampRateGenerator
 import io.smartcat.berserker.rategenerator.SineRateGenerator
 import io.smartcat.berserker.rategenerator.SquareRateGenerator
+import io.smartcat.berserker.rategenerator.StepsRateGenerator
 import io.smartcat.berserker.rategenerator.TriangleRateGenerator
 import org.yaml.snakeyaml.Yaml
 import spock.lang.Specification
@@ -166,6 +169,105 @@ output: $r
         rateGenerator.getRate(8 * NANOS_IN_SECOND) == 442
     }
 
+    def "should parse ramp rate generator"() {
+        given:
+        def config = '''
+rates:
+  r: ramp(1m40s, 1000, 2000)
+output: $r
+'''
+
+        when:
+        def rateGenerator = buildGenerator(config)
+
+        then:
+        rateGenerator.delegate.class == RampRateGenerator
+        rateGenerator.getRate(0) == 1000
+        rateGenerator.getRate(50 * NANOS_IN_SECOND) == 1500
+        rateGenerator.getRate(100 * NANOS_IN_SECOND) == 2000
+        rateGenerator.getRate(200 * NANOS_IN_SECOND) == 2000
+    }
+
+    def "should parse steps rate generator"() {
+        given:
+        def config = '''
+rates:
+  r: steps(1m, 1000, 10000, 20)
+output: $r
+'''
+
+        when:
+        def rateGenerator = buildGenerator(config)
+
+        then:
+        rateGenerator.delegate.class == StepsRateGenerator
+        rateGenerator.getRate(0) == 1000
+        rateGenerator.getRate(59 * NANOS_IN_SECOND) == 1000
+        rateGenerator.getRate(60 * NANOS_IN_SECOND) == 11000
+        rateGenerator.getRate(19 * SECONDS_IN_MINUTE * NANOS_IN_SECOND) == 191000
+        rateGenerator.getRate(30 * SECONDS_IN_MINUTE * NANOS_IN_SECOND) == 191000
+    }
+
+    def "should parse piecewise linear rate generator"() {
+        given:
+        def config = '''
+rates:
+  r: piecewise(10s, 100, 20s, 300, 1m, 300, 2m, 0)
+output: $r
+'''
+
+        when:
+        def rateGenerator = buildGenerator(config)
+
+        then:
+        rateGenerator.delegate.class == PiecewiseLinearRateGenerator
+        rateGenerator.getRate(0) == 100
+        rateGenerator.getRate(15 * NANOS_IN_SECOND) == 200
+        rateGenerator.getRate(40 * NANOS_IN_SECOND) == 300
+        rateGenerator.getRate(90 * NANOS_IN_SECOND) == 150
+        rateGenerator.getRate(5 * SECONDS_IN_MINUTE * NANOS_IN_SECOND) == 0
+    }
+
+    def "should parse steps combined with other rate generators"() {
+        given:
+        def config = '''
+rates:
+  r: 2 * steps(10s, 10, 5, 3) + piecewise(0s, 0, 10s, 10)
+output: $r
+'''
+
+        when:
+        def rateGenerator = buildGenerator(config)
+
+        then:
+        rateGenerator.getRate(5 * NANOS_IN_SECOND) == 25
+        rateGenerator.getRate(25 * NANOS_IN_SECOND) == 50
+    }
+
+    def "should parse looped trace rate generator multiplied by constant"() {
+        given:
+        def trace = File.createTempFile("trace", ".csv")
+        trace.deleteOnExit()
+        trace.text = '''time,rate
+0,100
+10,200
+20,100
+'''
+        def config = """
+rates:
+  r: trace("${trace.absolutePath}", true) * 1.5
+output: \$r
+"""
+
+        when:
+        def rateGenerator = buildGenerator(config)
+
+        then:
+        rateGenerator.getRate(5 * NANOS_IN_SECOND) == 225
+        rateGenerator.getRate(10 * NANOS_IN_SECOND) == 300
+        rateGenerator.getRate(25 * NANOS_IN_SECOND) == 225
+    }
+
     def buildGenerator(config) {
         Yaml yaml = new Yaml()
         new RateGeneratorConfigurationParser(yaml.load(config)).build()
@@ -1,13 +1,24 @@
 package io.smartcat.berserker;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
 
 import org.junit.Assert;
 import org.junit.Test;
 
+import com.codahale.metrics.MetricRegistry;
+
 import io.smartcat.berserker.api.DataSource;
+import io.smartcat.berserker.arrival.PoissonArrivalProcess;
 import io.smartcat.berserker.datasource.RandomIntDataSource;
+import io.smartcat.berserker.pacing.BusySpinPacingStrategy;
+import io.smartcat.berserker.pacing.PacingStrategy;
+import io.smartcat.berserker.pacing.SpinThenParkPacingStrategy;
 import io.smartcat.berserker.rategenerator.ConstantRateGenerator;
+import io.smartcat.berserker.rategenerator.RampRateGenerator;
 
 public class LoadGeneratorTest {
 
@@ -75,12 +86,99 @@ public class LoadGeneratorTest {
         testRateAndCountOfInvocation(30, 10_000_000);
     }
 
+    @Test
+    public void worker_should_be_invoked_100_000_times_when_4_shards_work_10_sec_with_rate_of_10_000() {
+        testRateAndCountOfInvocation(10, 10_000, 4);
+    }
+
+    @Test
+    public void worker_should_be_invoked_2000_times_when_parking_loadGenerator_works_10_sec_with_rate_of_200() {
+        testRateAndCountOfInvocation(10, 200, 1, new SpinThenParkPacingStrategy());
+    }
+
+    @Test
+    public void worker_should_be_invoked_about_10_000_times_when_poisson_arrivals_last_5_sec_at_rate_of_2000() {
+        // GIVEN
+        final AtomicLong numOfInvoked = new AtomicLong(0);
+        LoadGenerator<Integer> loadGenerator = new LoadGenerator<>(Collections.singletonList(new RandomIntDataSource()),
+                new ConstantRateGenerator(2000), (x) -> numOfInvoked.incrementAndGet(), new BusySpinPacingStrategy(),
+                null, shard -> new PoissonArrivalProcess(shard));
+
+        // WHEN
+        runInBackground(() -> loadGenerator.run());
+        wait(5_000);
+        loadGenerator.terminate();
+        wait(500);
+
+        // THEN
+        Assert.assertEquals(10_000, numOfInvoked.get(), 300);
+    }
+
+    @Test
+    public void poisson_arrivals_should_follow_rate_ramping_up_from_zero() {
+        // GIVEN
+        final AtomicLong numOfInvoked = new AtomicLong(0);
+        LoadGenerator<Integer> loadGenerator = new LoadGenerator<>(Collections.singletonList(new RandomIntDataSource()),
+                new RampRateGenerator(60, 0, 1000), (x) -> numOfInvoked.incrementAndGet(),
+                new BusySpinPacingStrategy(), null, shard -> new PoissonArrivalProcess(shard));
+
+        // WHEN
+        runInBackground(() -> loadGenerator.run());
+        wait(3_000);
+        loadGenerator.terminate();
+        wait(500);
+
+        // THEN
+        // rate grows by 1000 / 60 per second, so 75 arrivals are expected within first 3 seconds
+        Assert.assertEquals(75, numOfInvoked.get(), 30);
+    }
+
+    @Test(timeout = DEFAULT_TEST_TIMEOUT)
+    public void loadGenerator_should_expose_target_rate_dispatched_throughput_and_schedule_lag() {
+        // GIVEN
+        final AtomicLong numOfInvoked = new AtomicLong(0);
+        LoadGenerator<Integer> loadGenerator = new LoadGenerator<>(new RandomIntDataSource(),
+                new ConstantRateGenerator(1000), (x) -> numOfInvoked.incrementAndGet());
+        MetricRegistry metricRegistry = loadGenerator.getMetricRegistry();
+        runInBackground(() -> loadGenerator.run());
+        wait(1000);
+
+        // WHEN
+        Object targetRate = metricRegistry.getGauges().get("io.smartcat.berserker.targetRate").getValue();
+        long lagWhileRunning = (Long) metricRegistry.getGauges().get("io.smartcat.berserker.scheduleLag").getValue();
+        loadGenerator.terminate();
+        wait(500);
+
+        // THEN
+        Assert.assertEquals(1000d, targetRate);
+        Assert.assertTrue(lagWhileRunning > 0 && lagWhileRunning < TimeUnit.MILLISECONDS.toNanos(100));
+        Assert.assertEquals(0L, metricRegistry.getGauges().get("io.smartcat.berserker.scheduleLag").getValue());
+        Assert.assertEquals(numOfInvoked.get(),
+                metricRegistry.meter("io.smartcat.berserker.dispatchedThroughput").getCount());
+        Assert.assertEquals(numOfInvoked.get(),
+                metricRegistry.histogram("io.smartcat.berserker.impulsesPerPass").getSnapshot().getMean()
+                        * metricRegistry.histogram("io.smartcat.berserker.impulsesPerPass").getCount(), 0.5);
+    }
+
     private void testRateAndCountOfInvocation(int numOfSeconds, double rate) {
+        testRateAndCountOfInvocation(numOfSeconds, rate, 1);
+    }
+
+    private void testRateAndCountOfInvocation(int numOfSeconds, double rate, int numOfShards) {
+        testRateAndCountOfInvocation(numOfSeconds, rate, numOfShards, new BusySpinPacingStrategy());
+    }
+
+    private void testRateAndCountOfInvocation(int numOfSeconds, double rate, int numOfShards,
+            PacingStrategy pacingStrategy) {
         // GIVEN
         double tolerance = 0.005;
         final AtomicLong numOfInvoked = new AtomicLong(0);
-        LoadGenerator<Integer> loadGenerator = new LoadGenerator<>(new RandomIntDataSource(),
-                new ConstantRateGenerator(rate), (x) -> numOfInvoked.incrementAndGet());
+        List<DataSource<Integer>> dataSources = new ArrayList<>();
+        for (int i = 0; i < numOfShards; i++) {
+            dataSources.add(new RandomIntDataSource());
+        }
+        LoadGenerator<Integer> loadGenerator = new LoadGenerator<>(dataSources, new ConstantRateGenerator(rate),
+                (x) -> numOfInvoked.incrementAndGet(), pacingStrategy);
 
         // WHEN
         runInBackground(() -> loadGenerator.run());
@@ -0,0 +1,86 @@
+package io.smartcat.berserker;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import io.smartcat.berserker.api.DataSource;
+import io.smartcat.berserker.api.Worker;
+import io.smartcat.berserker.datasource.RandomIntDataSource;
+import io.smartcat.berserker.rategenerator.ConstantRateGenerator;
+import io.smartcat.berserker.thinktime.ConstantThinkTime;
+import io.smartcat.berserker.worker.InternalWorker;
+
+public class VirtualUserLoadGeneratorTest {
+
+    @Test(timeout = 5000)
+    public void number_of_concurrent_messages_should_not_exceed_number_of_virtual_users() throws Exception {
+        // GIVEN
+        AtomicInteger concurrent = new AtomicInteger();
+        AtomicInteger maxConcurrent = new AtomicInteger();
+        AtomicInteger processed = new AtomicInteger();
+        Worker<Integer> delegate = (x, commitSuccess, commitFailure) -> {
+            maxConcurrent.accumulateAndGet(concurrent.incrementAndGet(), Math::max);
+            sleep(10);
+            concurrent.decrementAndGet();
+            processed.incrementAndGet();
+            commitSuccess.run();
+        };
+        InternalWorker<Integer> worker = new InternalWorker<>(delegate, 100, true, null, 10);
+        VirtualUserLoadGenerator<Integer> loadGenerator = new VirtualUserLoadGenerator<>(new RandomIntDataSource(),
+                new ConstantRateGenerator(4), worker, new ConstantThinkTime(10, TimeUnit.MILLISECONDS));
+        Thread terminator = new Thread(() -> {
+            sleep(1000);
+            loadGenerator.terminate();
+        });
+
+        // WHEN
+        terminator.start();
+        loadGenerator.run();
+        worker.close();
+
+        // THEN
+        // each of 4 users sends at most one message per 20 milliseconds, 10 processing and 10 thinking
+        Assert.assertEquals(4, maxConcurrent.get());
+        Assert.assertTrue(processed.get() <= 4 * 1000 / 20 + 4);
+        Assert.assertTrue(processed.get() >= 4 * 1000 / 40);
+        Assert.assertEquals(4, loadGenerator.getMetricRegistry().getGauges()
+                .get("io.smartcat.berserker.virtualUsers").getValue());
+    }
+
+    @Test(timeout = 3000)
+    public void loadGenerator_should_be_terminated_when_dataSource_has_no_next_element() {
+        // GIVEN
+        AtomicInteger remaining = new AtomicInteger(100);
+        DataSource<Integer> dataSource = new DataSource<Integer>() {
+
+            @Override
+            public boolean hasNext(long time) {
+                return remaining.get() > 0;
+            }
+
+            @Override
+            public Integer getNext(long time) {
+                return remaining.decrementAndGet();
+            }
+        };
+        CallbackConsumer<Integer> worker = (data, intendedTimeInNanos, onDone) -> onDone.run();
+
+        // WHEN
+        new VirtualUserLoadGenerator<>(dataSource, new ConstantRateGenerator(10), worker,
+                new ConstantThinkTime(0, TimeUnit.MILLISECONDS)).run();
+
+        // THEN
+        Assert.assertEquals(0, remaining.get());
+    }
+
+    private static void sleep(long milliseconds) {
+        try {
+            Thread.sleep(milliseconds);
+        } catch (InterruptedException e) {
+            throw new RuntimeException(e);
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package io.smartcat.berserker.arrival;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class OnOffArrivalProcessTest {
+
+    @Test
+    public void arrivals_should_keep_mean_rate_and_be_burstier_than_poisson() {
+        // GIVEN
+        OnOffArrivalProcess arrivalProcess = new OnOffArrivalProcess(100, 900, TimeUnit.MILLISECONDS, 42);
+
+        // WHEN
+        double[] moments = PoissonArrivalProcessTest.moments(arrivalProcess, 1000);
+
+        // THEN
+        double mean = moments[0];
+        double coefficientOfVariation = Math.sqrt(moments[1]) / mean;
+        Assert.assertEquals(1_000_000, mean, 100_000);
+        Assert.assertTrue(coefficientOfVariation > 2);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void constructing_should_fail_when_mean_on_duration_is_not_positive() {
+        // WHEN
+        new OnOffArrivalProcess(0, 900, TimeUnit.MILLISECONDS, 42);
+
+        // THEN
+        // exception is thrown
+    }
+}
@@ -0,0 +1,54 @@
+package io.smartcat.berserker.arrival;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class PoissonArrivalProcessTest {
+
+    private static final int SAMPLES = 100_000;
+
+    @Test
+    public void inter_arrival_times_should_be_exponentially_distributed_with_mean_of_inverse_rate() {
+        // GIVEN
+        PoissonArrivalProcess arrivalProcess = new PoissonArrivalProcess(42);
+
+        // WHEN
+        double[] moments = moments(arrivalProcess, 1000);
+
+        // THEN
+        double mean = moments[0];
+        double coefficientOfVariation = Math.sqrt(moments[1]) / mean;
+        Assert.assertEquals(1_000_000, mean, 10_000);
+        Assert.assertEquals(1, coefficientOfVariation, 0.02);
+    }
+
+    @Test
+    public void arrival_processes_with_same_seed_should_produce_same_arrivals() {
+        // GIVEN
+        PoissonArrivalProcess first = new PoissonArrivalProcess(7);
+        PoissonArrivalProcess second = new PoissonArrivalProcess(7);
+
+        // WHEN
+        long[] firstArrivals = new long[100];
+        long[] secondArrivals = new long[100];
+        for (int i = 0; i < 100; i++) {
+            firstArrivals[i] = first.nextInterArrivalTime(500);
+            secondArrivals[i] = second.nextInterArrivalTime(500);
+        }
+
+        // THEN
+        Assert.assertArrayEquals(firstArrivals, secondArrivals);
+    }
+
+    static double[] moments(ArrivalProcess arrivalProcess, double rate) {
+        double sum = 0;
+        double sumOfSquares = 0;
+        for (int i = 0; i < SAMPLES; i++) {
+            long interArrivalTime = arrivalProcess.nextInterArrivalTime(rate);
+            sum += interArrivalTime;
+            sumOfSquares += (double) interArrivalTime * interArrivalTime;
+        }
+        double mean = sum / SAMPLES;
+        return new double[] { mean, sumOfSquares / SAMPLES - mean * mean };
+    }
+}
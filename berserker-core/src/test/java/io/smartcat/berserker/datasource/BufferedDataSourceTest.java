@@ -0,0 +1,133 @@
+package io.smartcat.berserker.datasource;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import io.smartcat.berserker.api.DataSource;
+
+public class BufferedDataSourceTest {
+
+    @Test(timeout = 5000)
+    public void all_values_of_all_delegates_should_be_provided_before_dataSource_is_exhausted() {
+        // GIVEN
+        List<DataSource<Integer>> delegates = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            delegates.add(new RangeDataSource(i * 1000, (i + 1) * 1000));
+        }
+        Set<Integer> values = new HashSet<>();
+
+        // WHEN
+        try (BufferedDataSource<Integer> dataSource = new BufferedDataSource<>(delegates, 64, 0.5)) {
+            while (dataSource.hasNext(0)) {
+                values.add(dataSource.getNext(0));
+            }
+
+            // THEN
+            Assert.assertEquals(4000, values.size());
+            Assert.assertFalse(dataSource.hasNext(0));
+        }
+    }
+
+    @Test(expected = NoSuchElementException.class, timeout = 5000)
+    public void getNext_should_fail_when_dataSource_is_exhausted() {
+        // GIVEN
+        try (BufferedDataSource<Integer> dataSource = new BufferedDataSource<>(new RangeDataSource(0, 1))) {
+            dataSource.getNext(0);
+
+            // WHEN
+            dataSource.getNext(0);
+        }
+    }
+
+    @Test(timeout = 5000)
+    public void buffer_should_be_filled_before_first_value_and_producers_stopped_on_close() throws Exception {
+        // GIVEN
+        AtomicBoolean closed = new AtomicBoolean(false);
+        ClosableRangeDataSource delegate = new ClosableRangeDataSource(closed);
+        BufferedDataSource<Integer> dataSource = new BufferedDataSource<>(delegate, 100, 1);
+
+        // WHEN
+        dataSource.hasNext(0);
+        double initialFillLevel = dataSource.getFillLevel();
+        dataSource.close();
+
+        // THEN
+        Assert.assertTrue(initialFillLevel >= 0.99);
+        Assert.assertTrue(closed.get());
+    }
+
+    @Test(timeout = 5000)
+    public void producers_should_wait_for_free_slot_before_generating_value() throws Exception {
+        // GIVEN
+        List<DataSource<Integer>> delegates = new ArrayList<>();
+        for (int i = 0; i < 2; i++) {
+            delegates.add(new RangeDataSource(0, Integer.MAX_VALUE));
+        }
+
+        // WHEN
+        try (BufferedDataSource<Integer> dataSource = new BufferedDataSource<>(delegates, 10, 1)) {
+            dataSource.hasNext(0);
+            Thread.sleep(100);
+            int generatedWhenFull = generated(delegates);
+            dataSource.getNext(0);
+            dataSource.getNext(0);
+            Thread.sleep(100);
+
+            // THEN
+            // hasNext takes one value out of buffer, which is then returned by the first getNext
+            Assert.assertEquals(11, generatedWhenFull);
+            Assert.assertEquals(12, generated(delegates));
+        }
+    }
+
+    private static int generated(List<DataSource<Integer>> delegates) {
+        int result = 0;
+        for (DataSource<Integer> delegate : delegates) {
+            result += ((RangeDataSource) delegate).next;
+        }
+        return result;
+    }
+
+    private static class RangeDataSource implements DataSource<Integer> {
+
+        private volatile int next;
+        private final int end;
+
+        RangeDataSource(int start, int end) {
+            this.next = start;
+            this.end = end;
+        }
+
+        @Override
+        public boolean hasNext(long time) {
+            return next < end;
+        }
+
+        @Override
+        public Integer getNext(long time) {
+            return next++;
+        }
+    }
+
+    private static class ClosableRangeDataSource extends RangeDataSource implements AutoCloseable {
+
+        private final AtomicBoolean closed;
+
+        ClosableRangeDataSource(AtomicBoolean closed) {
+            super(0, Integer.MAX_VALUE);
+            this.closed = closed;
+        }
+
+        @Override
+        public void close() {
+            closed.set(true);
+        }
+    }
+}
@@ -0,0 +1,151 @@
+package io.smartcat.berserker.datasource;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.function.Function;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import io.smartcat.berserker.api.DataSource;
+
+public class CorpusDataSourceTest {
+
+    private static final Function<String, byte[]> ENCODER = x -> x.getBytes(StandardCharsets.UTF_8);
+    private static final Function<ByteBuffer, String> DECODER = x -> StandardCharsets.UTF_8.decode(x).toString();
+
+    @Test
+    public void corpus_generated_by_all_delegates_should_be_replayed_cyclically() throws IOException {
+        // GIVEN
+        List<DataSource<String>> delegates = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            delegates.add(new CountingDataSource("delegate-" + i + "-", Integer.MAX_VALUE));
+        }
+        CorpusDataSource<String> dataSource = new CorpusDataSource<>(delegates, 100, ENCODER, DECODER);
+        List<String> firstPass = new ArrayList<>();
+        List<String> secondPass = new ArrayList<>();
+
+        // WHEN
+        for (int i = 0; i < 100; i++) {
+            firstPass.add(dataSource.getNext(0));
+        }
+        for (int i = 0; i < 100; i++) {
+            secondPass.add(dataSource.getNext(0));
+        }
+
+        // THEN
+        Assert.assertEquals(100, dataSource.getRecordCount());
+        Assert.assertEquals(100, new HashSet<>(firstPass).size());
+        Assert.assertEquals(firstPass, secondPass);
+        Assert.assertEquals(Arrays.asList("delegate-0-0", "delegate-0-1"), firstPass.subList(0, 2));
+        Assert.assertEquals("delegate-2-32", firstPass.get(99));
+    }
+
+    @Test
+    public void corpus_should_contain_only_records_delegates_had() throws IOException {
+        // GIVEN
+        List<DataSource<String>> delegates = Arrays.asList(new CountingDataSource("a", 2),
+                new CountingDataSource("b", 0));
+
+        // WHEN
+        CorpusDataSource<String> dataSource = new CorpusDataSource<>(delegates, 10, ENCODER, DECODER);
+        CorpusDataSource<String> emptyDataSource = new CorpusDataSource<>(new CountingDataSource("c", 0), 10,
+                ENCODER, DECODER);
+        Set<String> values = new HashSet<>();
+        for (int i = 0; i < 10; i++) {
+            values.add(dataSource.getNext(0));
+        }
+
+        // THEN
+        Assert.assertEquals(2, dataSource.getRecordCount());
+        Assert.assertEquals(new HashSet<>(Arrays.asList("a0", "a1")), values);
+        Assert.assertFalse(emptyDataSource.hasNext(0));
+    }
+
+    @Test(expected = NoSuchElementException.class)
+    public void getNext_should_fail_when_corpus_is_empty() throws IOException {
+        // GIVEN
+        CorpusDataSource<String> dataSource = new CorpusDataSource<>(new CountingDataSource("a", 0), 10, ENCODER,
+                DECODER);
+
+        // WHEN
+        dataSource.getNext(0);
+    }
+
+    @Test
+    public void closeable_delegates_should_be_closed_once_corpus_is_generated() throws IOException {
+        // GIVEN
+        ClosableCountingDataSource delegate = new ClosableCountingDataSource("a", 100);
+
+        // WHEN
+        CorpusDataSource<String> dataSource = new CorpusDataSource<>(delegate, 50, ENCODER, DECODER);
+
+        // THEN
+        Assert.assertEquals(50, dataSource.getRecordCount());
+        Assert.assertTrue(delegate.closed);
+    }
+
+    @Test
+    public void cursor_should_replay_the_same_corpus_from_its_own_position() throws IOException {
+        // GIVEN
+        List<DataSource<String>> delegates = Arrays.asList(new CountingDataSource("a", 3),
+                new CountingDataSource("b", 3));
+        CorpusDataSource<String> dataSource = new CorpusDataSource<>(delegates, 6, ENCODER, DECODER);
+
+        // WHEN
+        CorpusDataSource<String> cursor = dataSource.newCursor(DECODER, 4);
+        List<String> values = new ArrayList<>();
+        List<String> cursorValues = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            values.add(dataSource.getNext(0));
+            cursorValues.add(cursor.getNext(0));
+        }
+
+        // THEN
+        Assert.assertEquals(Arrays.asList("a0", "a1", "a2", "b0", "b1", "b2"), values);
+        Assert.assertEquals(Arrays.asList("b1", "b2", "a0", "a1", "a2", "b0"), cursorValues);
+    }
+
+    private static class CountingDataSource implements DataSource<String> {
+
+        private final String prefix;
+        private final int count;
+        private int next;
+
+        CountingDataSource(String prefix, int count) {
+            this.prefix = prefix;
+            this.count = count;
+        }
+
+        @Override
+        public boolean hasNext(long time) {
+            return next < count;
+        }
+
+        @Override
+        public String getNext(long time) {
+            return prefix + next++;
+        }
+    }
+
+    private static class ClosableCountingDataSource extends CountingDataSource implements AutoCloseable {
+
+        private volatile boolean closed;
+
+        ClosableCountingDataSource(String prefix, int count) {
+            super(prefix, count);
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+        }
+    }
+}
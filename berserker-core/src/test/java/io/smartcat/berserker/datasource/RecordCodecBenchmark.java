@@ -0,0 +1,127 @@
+package io.smartcat.berserker.datasource;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.nio.ByteBuffer;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Compares cost of providing a record by generating it, by decoding it from corpus with {@link RecordCodec} and by
+ * deserializing it with Java serialization. Generated record is the statement of Ranger example from README, built
+ * with plain Java in place of Ranger, which likely makes generation cheaper than with Ranger. Run
+ * <code>org.openjdk.jmh.Main RecordCodecBenchmark</code> with test classpath of <code>berserker-core</code> after
+ * <code>mvn test-compile</code>, or {@link #main(String[])} from the IDE.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RecordCodecBenchmark {
+
+    private static final String[] FIRST_NAMES = { "Peter", "Mike", "Steven", "Joshua", "John", "Brandon" };
+    private static final String[] LAST_NAMES = { "Smith", "Johnson", "Williams", "Davis", "Jackson", "White", "Lewis",
+        "Clark" };
+    private static final String LETTERS = "abcdefghijklmnopqrstuvwxyz";
+
+    private final RecordCodec codec = new RecordCodec();
+    private ByteBuffer encoded;
+    private byte[] serialized;
+
+    /**
+     * Encodes and serializes one generated record.
+     *
+     * @throws IOException If record cannot be serialized.
+     */
+    @Setup
+    public void setUp() throws IOException {
+        Map<String, Object> record = generate();
+        byte[] bytes = codec.encode(record);
+        encoded = ByteBuffer.allocateDirect(bytes.length);
+        encoded.put(bytes).flip();
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        try (ObjectOutputStream objectOutput = new ObjectOutputStream(output)) {
+            objectOutput.writeObject(record);
+        }
+        serialized = output.toByteArray();
+    }
+
+    /**
+     * Generates record.
+     *
+     * @return Generated record.
+     */
+    @Benchmark
+    public Map<String, Object> generate() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        String id = UUID.randomUUID().toString();
+        String firstName = FIRST_NAMES[random.nextInt(FIRST_NAMES.length)];
+        String lastName = LAST_NAMES[random.nextInt(LAST_NAMES.length)];
+        int age = random.nextInt(20, 45);
+        StringBuilder email = new StringBuilder();
+        for (int i = 0; i < 5; i++) {
+            email.append(LETTERS.charAt(random.nextInt(LETTERS.length())));
+        }
+        email.append("@domain.com");
+        Map<String, Object> statement = new LinkedHashMap<>();
+        statement.put("consistencyLevel", "ONE");
+        statement.put("query", "INSERT INTO person (id, first_name, last_name, age, email) VALUES (" + id + ", '"
+                + firstName + "', '" + lastName + "', " + age + ", '" + email + "');");
+        return statement;
+    }
+
+    /**
+     * Decodes record with {@link RecordCodec} from direct buffer, as corpus data source does.
+     *
+     * @return Decoded record.
+     */
+    @Benchmark
+    public Object decode() {
+        return codec.decode(encoded.duplicate());
+    }
+
+    /**
+     * Deserializes record with Java serialization.
+     *
+     * @return Deserialized record.
+     * @throws Exception If record cannot be deserialized.
+     */
+    @Benchmark
+    public Object deserialize() throws Exception {
+        try (ObjectInputStream input = new ObjectInputStream(new ByteArrayInputStream(serialized))) {
+            return input.readObject();
+        }
+    }
+
+    /**
+     * Runs the benchmark.
+     *
+     * @param args Command line arguments, ignored.
+     * @throws RunnerException If benchmark fails.
+     */
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(RecordCodecBenchmark.class.getSimpleName()).build()).run();
+    }
+}
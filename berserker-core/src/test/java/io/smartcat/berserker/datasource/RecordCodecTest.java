@@ -0,0 +1,57 @@
+package io.smartcat.berserker.datasource;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class RecordCodecTest {
+
+    @Test
+    public void decoded_record_should_be_equal_to_encoded_one() {
+        // GIVEN
+        Map<String, Object> nested = new LinkedHashMap<>();
+        nested.put("consistencyLevel", "ONE");
+        nested.put("query", "INSERT INTO person (id, name) VALUES (1, 'Čedomir');");
+        Map<String, Object> record = new LinkedHashMap<>();
+        record.put("id", UUID.randomUUID());
+        record.put("age", 42);
+        record.put("balance", 1234.5d);
+        record.put("ratio", 0.5f);
+        record.put("count", 10_000_000_000L);
+        record.put("small", (short) 7);
+        record.put("tiny", (byte) -3);
+        record.put("initial", 'P');
+        record.put("active", true);
+        record.put("deleted", null);
+        record.put("created", new Date(1_500_000_000_000L));
+        record.put("tags", Arrays.asList("a", 1, false));
+        record.put("statement", nested);
+        RecordCodec codec = new RecordCodec();
+
+        // WHEN
+        ByteBuffer direct = ByteBuffer.allocateDirect(1024);
+        direct.put(codec.encode(record)).flip();
+        Object decodedFromDirect = codec.decode(direct);
+        Object decodedFromHeap = codec.decode(ByteBuffer.wrap(codec.encode(record)));
+
+        // THEN
+        Assert.assertEquals(record, decodedFromDirect);
+        Assert.assertEquals(record, decodedFromHeap);
+        Assert.assertFalse(direct.hasRemaining());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void encoding_should_fail_when_record_contains_value_of_unsupported_type() {
+        // GIVEN
+        RecordCodec codec = new RecordCodec();
+
+        // WHEN
+        codec.encode(Arrays.asList(1, new Object()));
+    }
+}
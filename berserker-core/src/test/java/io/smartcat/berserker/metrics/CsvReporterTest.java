@@ -0,0 +1,74 @@
+package io.smartcat.berserker.metrics;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricFilter;
+import com.codahale.metrics.MetricRegistry;
+
+public class CsvReporterTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void should_append_one_row_per_period_for_each_metric() throws IOException {
+        // GIVEN
+        File directory = temporaryFolder.newFolder("metrics");
+        MetricRegistry metricRegistry = new MetricRegistry();
+        Meter meter = metricRegistry.meter("io.smartcat.berserker.dropped");
+        com.codahale.metrics.Histogram histogram = metricRegistry.histogram("io.smartcat.berserker.waitTime",
+                () -> new ReservoirHistogram(new HdrHistogramReservoir()));
+        CsvReporter reporter = new CsvReporter(metricRegistry, MetricFilter.ALL, directory.toPath());
+
+        // WHEN
+        meter.mark(3);
+        histogram.update(100);
+        reporter.report();
+        meter.mark(2);
+        reporter.report();
+        reporter.stop();
+
+        // THEN
+        List<String> meterLines = Files.readAllLines(directory.toPath().resolve("io.smartcat.berserker.dropped.csv"));
+        Assert.assertEquals(3, meterLines.size());
+        Assert.assertEquals("t,count,mean_rate,m1_rate,m5_rate,m15_rate,rate_unit,interval_rate", meterLines.get(0));
+        Assert.assertEquals("3", meterLines.get(1).split(",")[1]);
+        Assert.assertEquals("5", meterLines.get(2).split(",")[1]);
+        Assert.assertEquals("events/second", meterLines.get(2).split(",")[6]);
+        List<String> histogramLines = Files
+                .readAllLines(directory.toPath().resolve("io.smartcat.berserker.waitTime.csv"));
+        Assert.assertEquals(3, histogramLines.size());
+        Assert.assertEquals("100", histogramLines.get(1).split(",")[2]);
+    }
+
+    @Test
+    public void should_not_repeat_header_when_appending_to_existing_file() throws IOException {
+        // GIVEN
+        File directory = temporaryFolder.newFolder("metrics");
+        MetricRegistry metricRegistry = new MetricRegistry();
+        metricRegistry.counter("counter").inc();
+        CsvReporter first = new CsvReporter(metricRegistry, MetricFilter.ALL, directory.toPath());
+        first.report();
+        first.stop();
+
+        // WHEN
+        CsvReporter second = new CsvReporter(metricRegistry, MetricFilter.ALL, directory.toPath());
+        second.report();
+        second.stop();
+
+        // THEN
+        List<String> lines = Files.readAllLines(directory.toPath().resolve("counter.csv"));
+        Assert.assertEquals(3, lines.size());
+        Assert.assertEquals("t,count", lines.get(0));
+        Assert.assertTrue(lines.get(2).endsWith(",1"));
+    }
+}
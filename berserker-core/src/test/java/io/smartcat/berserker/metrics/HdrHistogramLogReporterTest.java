@@ -0,0 +1,77 @@
+package io.smartcat.berserker.metrics;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.HistogramLogReader;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.codahale.metrics.MetricFilter;
+import com.codahale.metrics.MetricRegistry;
+
+public class HdrHistogramLogReporterTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void should_write_histograms_recorded_in_each_period() throws IOException {
+        // GIVEN
+        File file = temporaryFolder.newFile("test.hlog");
+        MetricRegistry metricRegistry = new MetricRegistry();
+        com.codahale.metrics.Histogram responseTime = metricRegistry.histogram("responseTime",
+                () -> new ReservoirHistogram(new HdrHistogramReservoir()));
+        metricRegistry.histogram("notHdr");
+        HdrHistogramLogReporter reporter = new HdrHistogramLogReporter(metricRegistry, MetricFilter.ALL,
+                file.toPath());
+
+        // WHEN
+        responseTime.update(100);
+        responseTime.update(200);
+        reporter.report();
+        responseTime.update(300);
+        reporter.report();
+        reporter.stop();
+
+        // THEN
+        HistogramLogReader reader = new HistogramLogReader(file);
+        Histogram first = (Histogram) reader.nextIntervalHistogram();
+        Histogram second = (Histogram) reader.nextIntervalHistogram();
+        Assert.assertNull(reader.nextIntervalHistogram());
+        Assert.assertEquals("responseTime", first.getTag());
+        Assert.assertEquals(2, first.getTotalCount());
+        Assert.assertEquals(200, first.getMaxValue());
+        Assert.assertEquals(1, second.getTotalCount());
+        Assert.assertEquals(300, second.getMinValue());
+    }
+
+    @Test
+    public void stop_should_write_histograms_recorded_since_last_period() throws IOException {
+        // GIVEN
+        File file = temporaryFolder.newFile("test.hlog");
+        MetricRegistry metricRegistry = new MetricRegistry();
+        com.codahale.metrics.Histogram responseTime = metricRegistry.histogram("responseTime",
+                () -> new ReservoirHistogram(new HdrHistogramReservoir()));
+        HdrHistogramLogReporter reporter = new HdrHistogramLogReporter(metricRegistry, MetricFilter.ALL,
+                file.toPath());
+
+        // WHEN
+        responseTime.update(100);
+        reporter.report();
+        responseTime.update(400);
+        reporter.stop();
+
+        // THEN
+        HistogramLogReader reader = new HistogramLogReader(file);
+        Histogram first = (Histogram) reader.nextIntervalHistogram();
+        Histogram last = (Histogram) reader.nextIntervalHistogram();
+        Assert.assertNull(reader.nextIntervalHistogram());
+        Assert.assertEquals(1, first.getTotalCount());
+        Assert.assertEquals(1, last.getTotalCount());
+        Assert.assertEquals(400, last.getMaxValue());
+    }
+}
@@ -0,0 +1,110 @@
+package io.smartcat.berserker.metrics;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.codahale.metrics.Snapshot;
+
+public class HdrHistogramReservoirTest {
+
+    @Test
+    public void snapshot_should_contain_exact_high_percentiles() {
+        // GIVEN
+        HdrHistogramReservoir reservoir = new HdrHistogramReservoir();
+
+        // WHEN
+        for (int i = 1; i <= 100000; i++) {
+            reservoir.update(i);
+        }
+        Snapshot snapshot = reservoir.getSnapshot();
+
+        // THEN
+        Assert.assertEquals(100000, snapshot.size());
+        Assert.assertEquals(1, snapshot.getMin());
+        Assert.assertEquals(99900, snapshot.getValue(0.999), 100);
+        Assert.assertEquals(99990, snapshot.getValue(0.9999), 100);
+        Assert.assertEquals(100000, snapshot.getMax(), 100);
+        Assert.assertEquals(50000, snapshot.getMean(), 50);
+    }
+
+    @Test
+    public void snapshot_values_should_be_bounded_sorted_sample() {
+        // GIVEN
+        HdrHistogramReservoir reservoir = new HdrHistogramReservoir();
+        for (int i = 1; i <= 100000; i++) {
+            reservoir.update(i);
+        }
+
+        // WHEN
+        long[] values = reservoir.getSnapshot().getValues();
+
+        // THEN
+        Assert.assertEquals(HdrHistogramSnapshot.MAX_VALUES, values.length);
+        for (int i = 1; i < values.length; i++) {
+            Assert.assertTrue(values[i - 1] <= values[i]);
+        }
+        Assert.assertEquals(5, values[0], 1);
+        Assert.assertEquals(100000, values[values.length - 1], 100);
+    }
+
+    @Test
+    public void values_out_of_range_should_be_clamped() {
+        // GIVEN
+        HdrHistogramReservoir reservoir = new HdrHistogramReservoir(1000, 3);
+
+        // WHEN
+        reservoir.update(-5);
+        reservoir.update(5000);
+        Snapshot snapshot = reservoir.getSnapshot();
+
+        // THEN
+        Assert.assertEquals(2, snapshot.size());
+        Assert.assertEquals(0, snapshot.getMin());
+        Assert.assertEquals(1000, snapshot.getMax(), 1);
+    }
+
+    @Test
+    public void interval_snapshot_should_contain_only_values_from_last_interval() throws InterruptedException {
+        // GIVEN
+        HdrHistogramReservoir reservoir = new HdrHistogramReservoir(1000, 3, 50, TimeUnit.MILLISECONDS);
+        reservoir.update(10);
+        reservoir.update(20);
+        Snapshot first = reservoir.getSnapshot();
+
+        // WHEN
+        reservoir.update(500);
+        Snapshot sameInterval = reservoir.getSnapshot();
+        Thread.sleep(100);
+        Snapshot second = reservoir.getSnapshot();
+
+        // THEN
+        Assert.assertEquals(2, first.size());
+        Assert.assertEquals(2, sameInterval.size());
+        Assert.assertEquals(1, second.size());
+        Assert.assertEquals(500, second.getMin());
+        Assert.assertEquals(3, reservoir.getCount());
+        Assert.assertEquals(3, reservoir.getCumulativeHistogram().getTotalCount());
+    }
+
+    @Test
+    public void empty_snapshot_should_return_zeros() {
+        // GIVEN
+        HdrHistogramReservoir reservoir = new HdrHistogramReservoir();
+
+        // WHEN
+        Snapshot snapshot = reservoir.getSnapshot();
+
+        // THEN
+        Assert.assertEquals(0, snapshot.size());
+        Assert.assertEquals(0, snapshot.getValues().length);
+        Assert.assertEquals(0, snapshot.get99thPercentile(), 0);
+        Assert.assertEquals(0, snapshot.getMean(), 0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void should_not_allow_more_than_five_significant_digits() {
+        new HdrHistogramReservoir(1000, 6);
+    }
+}
@@ -0,0 +1,89 @@
+package io.smartcat.berserker.metrics;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.codahale.metrics.MetricFilter;
+import com.codahale.metrics.MetricRegistry;
+
+public class PrometheusReporterTest {
+
+    private PrometheusReporter reporter;
+
+    @After
+    public void tearDown() {
+        if (reporter != null) {
+            reporter.stop();
+        }
+    }
+
+    @Test
+    public void should_serve_metrics_in_text_exposition_format() throws IOException {
+        // GIVEN
+        MetricRegistry metricRegistry = new MetricRegistry();
+        reporter = new PrometheusReporter(metricRegistry, MetricFilter.ALL, new InetSocketAddress(0));
+        reporter.start();
+        com.codahale.metrics.Histogram histogram = metricRegistry.histogram("io.smartcat.berserker.waitTime",
+                () -> new ReservoirHistogram(new HdrHistogramReservoir()));
+        for (int i = 1; i <= 1000; i++) {
+            histogram.update(i);
+        }
+        metricRegistry.meter("io.smartcat.berserker.dropped", StripedMeter::new).mark(5);
+        metricRegistry.gauge("io.smartcat.berserker.queueSize", () -> () -> 3);
+
+        // WHEN
+        String first = scrape();
+        histogram.update(2000);
+        String second = scrape();
+
+        // THEN
+        Assert.assertTrue(first.contains("# TYPE io_smartcat_berserker_waitTime summary\n"));
+        Assert.assertTrue(first.contains("io_smartcat_berserker_waitTime{quantile=\"0.5\"} 500\n"));
+        Assert.assertTrue(first.contains("io_smartcat_berserker_waitTime_count 1000\n"));
+        Assert.assertTrue(first.contains("io_smartcat_berserker_dropped_total 5\n"));
+        Assert.assertTrue(first.contains("io_smartcat_berserker_queueSize 3.0\n"));
+        Assert.assertTrue(second.contains("io_smartcat_berserker_waitTime_count 1001\n"));
+    }
+
+    @Test
+    public void should_serve_only_metrics_matching_filter() throws IOException {
+        // GIVEN
+        MetricRegistry metricRegistry = new MetricRegistry();
+        metricRegistry.meter("included").mark();
+        metricRegistry.meter("excluded").mark();
+        reporter = new PrometheusReporter(metricRegistry, (name, metric) -> name.equals("included"),
+                new InetSocketAddress(0));
+        reporter.start();
+
+        // WHEN
+        String response = scrape();
+
+        // THEN
+        Assert.assertTrue(response.contains("included_total 1\n"));
+        Assert.assertFalse(response.contains("excluded"));
+    }
+
+    private String scrape() throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) new URL(
+                "http://localhost:" + reporter.getPort() + "/metrics").openConnection();
+        Assert.assertEquals(200, connection.getResponseCode());
+        try (InputStream input = connection.getInputStream()) {
+            ByteArrayOutputStream output = new ByteArrayOutputStream();
+            byte[] buffer = new byte[4096];
+            int read;
+            while ((read = input.read(buffer)) != -1) {
+                output.write(buffer, 0, read);
+            }
+            return new String(output.toByteArray(), StandardCharsets.UTF_8);
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package io.smartcat.berserker.metrics;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.codahale.metrics.MetricRegistry;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+public class RunSummaryTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void should_write_counts_rates_and_latencies_of_whole_run() throws IOException {
+        // GIVEN
+        MetricRegistry metricRegistry = new MetricRegistry();
+        com.codahale.metrics.Histogram histogram = metricRegistry.histogram("test.totalResponseTime",
+                () -> new ReservoirHistogram(new HdrHistogramReservoir()));
+        RunSummary summary = new RunSummary(metricRegistry, "test");
+        File file = temporaryFolder.newFile("summary.json");
+
+        // WHEN
+        summary.start();
+        metricRegistry.meter("test.requestedThroughput").mark(12);
+        metricRegistry.meter("test.generatedThroughput").mark(11);
+        metricRegistry.meter("test.totalProcessedThroughput").mark(10);
+        metricRegistry.meter("test.failureProcessedThroughput").mark(1);
+        metricRegistry.meter("test.dropped").mark(1);
+        for (int i = 1; i <= 100; i++) {
+            histogram.update(i);
+        }
+        summary.writeTo(file.toPath());
+
+        // THEN
+        Map<String, Object> result = new ObjectMapper().readValue(file, Map.class);
+        Assert.assertEquals(12, result.get("requested"));
+        Assert.assertEquals(11, result.get("generated"));
+        Assert.assertEquals(10, result.get("processed"));
+        Assert.assertEquals(0, result.get("succeeded"));
+        Assert.assertEquals(1, result.get("failed"));
+        Assert.assertEquals(1, result.get("dropped"));
+        Assert.assertTrue(((Number) result.get("achievedRate")).doubleValue() > 0);
+        Map<String, Object> latencies = (Map<String, Object>) ((Map<String, Object>) result.get("latencies"))
+                .get("test.totalResponseTime");
+        Assert.assertEquals(100, latencies.get("count"));
+        Assert.assertEquals(50, latencies.get("p50"));
+        Assert.assertEquals(100, latencies.get("p99.9"));
+        Assert.assertTrue(((List<Object>) result.get("segments")).isEmpty());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void should_split_summary_into_segments() throws InterruptedException {
+        // GIVEN
+        MetricRegistry metricRegistry = new MetricRegistry();
+        com.codahale.metrics.Histogram histogram = metricRegistry.histogram("test.totalResponseTime",
+                () -> new ReservoirHistogram(new HdrHistogramReservoir()));
+        RunSummary summary = new RunSummary(metricRegistry, "test", 200, TimeUnit.MILLISECONDS);
+
+        // WHEN
+        summary.start();
+        metricRegistry.meter("test.totalProcessedThroughput").mark(5);
+        histogram.update(10);
+        Thread.sleep(300);
+        metricRegistry.meter("test.totalProcessedThroughput").mark(3);
+        histogram.update(1000);
+        Map<String, Object> result = summary.toMap();
+
+        // THEN
+        Assert.assertEquals(8L, result.get("processed"));
+        List<Map<String, Object>> segments = (List<Map<String, Object>>) result.get("segments");
+        Assert.assertEquals(2, segments.size());
+        Assert.assertEquals(5L, segments.get(0).get("processed"));
+        Assert.assertEquals(3L, segments.get(1).get("processed"));
+        Map<String, Object> latencies = (Map<String, Object>) ((Map<String, Object>) segments.get(1).get("latencies"))
+                .get("test.totalResponseTime");
+        Assert.assertEquals(1L, latencies.get("count"));
+        Assert.assertEquals(1000L, latencies.get("min"));
+    }
+}
@@ -0,0 +1,83 @@
+package io.smartcat.berserker.metrics;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.codahale.metrics.Clock;
+
+public class StripedMeterTest {
+
+    @Test
+    public void should_report_rates_of_steady_load() {
+        // GIVEN
+        ManualClock clock = new ManualClock();
+        StripedMeter meter = new StripedMeter(clock);
+
+        // WHEN
+        for (int second = 0; second < 60; second++) {
+            meter.mark(100);
+            clock.tick += TimeUnit.SECONDS.toNanos(1);
+        }
+
+        // THEN
+        Assert.assertEquals(6000, meter.getCount());
+        Assert.assertEquals(100, meter.getMeanRate(), 0.001);
+        Assert.assertEquals(100, meter.getOneMinuteRate(), 0.001);
+        Assert.assertEquals(100, meter.getFiveMinuteRate(), 0.001);
+        Assert.assertEquals(100, meter.getFifteenMinuteRate(), 0.001);
+    }
+
+    @Test
+    public void rates_should_decay_when_no_events_are_marked() {
+        // GIVEN
+        ManualClock clock = new ManualClock();
+        StripedMeter meter = new StripedMeter(clock);
+        meter.mark(500);
+        clock.tick += TimeUnit.SECONDS.toNanos(5);
+        double initialRate = meter.getOneMinuteRate();
+
+        // WHEN
+        clock.tick += TimeUnit.MINUTES.toNanos(1);
+
+        // THEN
+        Assert.assertEquals(100, initialRate, 0.001);
+        Assert.assertEquals(100 / Math.E, meter.getOneMinuteRate(), 0.001);
+    }
+
+    @Test
+    public void should_count_marks_from_several_threads() throws InterruptedException {
+        // GIVEN
+        StripedMeter meter = new StripedMeter();
+        Thread[] threads = new Thread[4];
+        for (int i = 0; i < threads.length; i++) {
+            threads[i] = new Thread(() -> {
+                for (int j = 0; j < 10000; j++) {
+                    meter.mark();
+                }
+            });
+        }
+
+        // WHEN
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        // THEN
+        Assert.assertEquals(40000, meter.getCount());
+    }
+
+    private static class ManualClock extends Clock {
+
+        private long tick;
+
+        @Override
+        public long getTick() {
+            return tick;
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package io.smartcat.berserker.rategenerator;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.codahale.metrics.Histogram;
+import com.codahale.metrics.MetricRegistry;
+
+import io.smartcat.berserker.metrics.HdrHistogramReservoir;
+import io.smartcat.berserker.metrics.ReservoirHistogram;
+
+public class AdaptiveRateGeneratorTest {
+
+    private static final double DELTA = 0.001d;
+
+    @Test
+    public void rate_should_converge_to_sustainable_rate() {
+        // GIVEN
+        double capacity = 1000;
+        AdaptiveRateGenerator rateGenerator = new AdaptiveRateGenerator(10, 1, 100_000, 20, 0.5, 99, 20, 0, 1,
+                TimeUnit.SECONDS);
+
+        // WHEN
+        for (int i = 0; i < 1000; i++) {
+            rateGenerator.adjust(rateGenerator.getRate(0) > capacity);
+        }
+
+        // THEN
+        Assert.assertTrue(rateGenerator.getConvergedRate() <= capacity);
+        Assert.assertTrue(rateGenerator.getConvergedRate() > capacity - 20);
+    }
+
+    @Test
+    public void rate_should_be_doubled_until_first_violation_and_kept_within_bounds() {
+        // GIVEN
+        AdaptiveRateGenerator rateGenerator = new AdaptiveRateGenerator(10, 5, 50, 1, 0.5, 99, 20, 0, 1,
+                TimeUnit.SECONDS);
+
+        // WHEN
+        rateGenerator.adjust(false);
+        double doubled = rateGenerator.getRate(0);
+        rateGenerator.adjust(false);
+        rateGenerator.adjust(false);
+        double capped = rateGenerator.getRate(0);
+        rateGenerator.adjust(true);
+        rateGenerator.adjust(true);
+        rateGenerator.adjust(true);
+        double floored = rateGenerator.getRate(0);
+        rateGenerator.adjust(false);
+        double increased = rateGenerator.getRate(0);
+
+        // THEN
+        Assert.assertEquals(20, doubled, DELTA);
+        Assert.assertEquals(50, capped, DELTA);
+        Assert.assertEquals(6.25, floored, DELTA);
+        Assert.assertEquals(7.25, increased, DELTA);
+        Assert.assertEquals(40, rateGenerator.getConvergedRate(), DELTA);
+    }
+
+    @Test
+    public void rate_should_be_decreased_when_latency_target_is_exceeded() throws InterruptedException {
+        // GIVEN
+        MetricRegistry metricRegistry = new MetricRegistry();
+        Histogram responseTime = metricRegistry.histogram("test.totalResponseTime",
+                () -> new ReservoirHistogram(new HdrHistogramReservoir()));
+        AdaptiveRateGenerator rateGenerator = new AdaptiveRateGenerator(100, 1, 1000, 10, 0.5, 99, 20, 0, 100,
+                TimeUnit.MILLISECONDS);
+
+        // WHEN
+        rateGenerator.start(metricRegistry, "test");
+        try {
+            for (int i = 0; i < 100; i++) {
+                responseTime.update(TimeUnit.MILLISECONDS.toNanos(50));
+            }
+            Thread.sleep(150);
+        } finally {
+            rateGenerator.close();
+        }
+
+        // THEN
+        Assert.assertEquals(50, rateGenerator.getRate(0), DELTA);
+        Assert.assertTrue(metricRegistry.getGauges().containsKey("test.convergedRate"));
+    }
+}
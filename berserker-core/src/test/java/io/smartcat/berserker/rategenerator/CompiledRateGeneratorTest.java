@@ -0,0 +1,62 @@
+package io.smartcat.berserker.rategenerator;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import io.smartcat.berserker.api.RateGenerator;
+
+public class CompiledRateGeneratorTest {
+
+    private static final double DELTA = 0.001d;
+
+    @Test
+    public void compiled_rate_generator_should_return_same_rate_as_expression() {
+        // GIVEN
+        RateGeneratorProxy triangle = new RateGeneratorProxy(new TriangleRateGenerator(8, 0.5, 1, 100));
+        RateGenerator expression = new AdditionRateGenerator(
+                new MultiplicationRateGenerator(triangle, new ConstantRateGenerator(2)),
+                new SubtractionRateGenerator(new SquareRateGenerator(10, 0.2, 10, 200),
+                        new DivisionRateGenerator(new ConstantRateGenerator(120), new ConstantRateGenerator(4))));
+
+        // WHEN
+        CompiledRateGenerator compiled = new CompiledRateGenerator(expression);
+
+        // THEN
+        for (long second = 0; second < 20; second++) {
+            long time = TimeUnit.SECONDS.toNanos(second);
+            Assert.assertEquals(expression.getRate(time), compiled.getRate(time), DELTA);
+        }
+    }
+
+    @Test
+    public void proxies_should_be_resolved_and_constants_folded() {
+        // GIVEN
+        RateGeneratorProxy sum = new RateGeneratorProxy(
+                new AdditionRateGenerator(new ConstantRateGenerator(2), new ConstantRateGenerator(3)));
+        RateGenerator expression = new MultiplicationRateGenerator(new RateGeneratorProxy(sum),
+                new ConstantRateGenerator(4));
+
+        // WHEN
+        CompiledRateGenerator compiled = new CompiledRateGenerator(expression);
+
+        // THEN
+        Assert.assertEquals(1, compiled.getNodeCount());
+        Assert.assertEquals(20d, compiled.getRate(0), DELTA);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void compiling_should_fail_when_proxies_reference_each_other() {
+        // GIVEN
+        RateGeneratorProxy first = new RateGeneratorProxy();
+        RateGeneratorProxy second = new RateGeneratorProxy(first);
+        first.setDelegate(new AdditionRateGenerator(second, new ConstantRateGenerator(1)));
+
+        // WHEN
+        new CompiledRateGenerator(first);
+
+        // THEN
+        // exception is thrown
+    }
+}
@@ -0,0 +1,84 @@
+package io.smartcat.berserker.rategenerator;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import io.smartcat.berserker.api.RateGenerator;
+
+/**
+ * Compares evaluation of rate generator expression as parsed object tree, as {@link CompiledRateGenerator} and as
+ * compiled expression sampled every millisecond by {@link SampledRateGenerator}, with expression shaped as typical
+ * configuration, <code>$base * 2 + $burst + 120 * 4 / 2</code>, where references are proxies. Run
+ * <code>org.openjdk.jmh.Main RateGeneratorBenchmark</code> with test classpath of <code>berserker-core</code> after
+ * <code>mvn test-compile</code>, or {@link #main(String[])} from the IDE.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RateGeneratorBenchmark {
+
+    @Param({ "tree", "compiled", "sampled" })
+    private String implementation;
+
+    private RateGenerator rateGenerator;
+    private long time;
+
+    /**
+     * Creates rate generator under test.
+     */
+    @Setup
+    public void setUp() {
+        RateGenerator base = new RateGeneratorProxy(new ConstantRateGenerator(1000));
+        RateGenerator burst = new RateGeneratorProxy(new SquareRateGenerator(10, 0.9, 1, 500));
+        RateGenerator tree = new RateGeneratorProxy(new AdditionRateGenerator(
+                new AdditionRateGenerator(new MultiplicationRateGenerator(base, new ConstantRateGenerator(2)), burst),
+                new DivisionRateGenerator(
+                        new MultiplicationRateGenerator(new ConstantRateGenerator(120), new ConstantRateGenerator(4)),
+                        new ConstantRateGenerator(2))));
+        if ("tree".equals(implementation)) {
+            rateGenerator = tree;
+        } else if ("compiled".equals(implementation)) {
+            rateGenerator = new CompiledRateGenerator(tree);
+        } else {
+            rateGenerator = new SampledRateGenerator(new CompiledRateGenerator(tree), 1, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Evaluates rate at advancing time, as dispatch loop does.
+     *
+     * @return Rate.
+     */
+    @Benchmark
+    public double getRate() {
+        time += 1000;
+        return rateGenerator.getRate(time);
+    }
+
+    /**
+     * Runs the benchmark.
+     *
+     * @param args Command line arguments, ignored.
+     * @throws RunnerException If benchmark fails.
+     */
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(RateGeneratorBenchmark.class.getSimpleName()).build()).run();
+    }
+}
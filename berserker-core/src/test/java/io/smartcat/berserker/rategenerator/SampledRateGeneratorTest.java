@@ -0,0 +1,66 @@
+package io.smartcat.berserker.rategenerator;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import io.smartcat.berserker.api.RateGenerator;
+
+public class SampledRateGeneratorTest {
+
+    private static final double DELTA = 0.001d;
+
+    @Test
+    public void rate_should_be_interpolated_between_samples() {
+        // GIVEN
+        AtomicInteger invocations = new AtomicInteger();
+        RateGenerator linear = time -> {
+            invocations.incrementAndGet();
+            return time / 1000d;
+        };
+        SampledRateGenerator sampled = new SampledRateGenerator(linear, 1, TimeUnit.MILLISECONDS);
+
+        // WHEN
+        double first = sampled.getRate(250_000);
+        double second = sampled.getRate(750_000);
+        double third = sampled.getRate(1_500_000);
+
+        // THEN
+        Assert.assertEquals(250, first, DELTA);
+        Assert.assertEquals(750, second, DELTA);
+        Assert.assertEquals(1500, third, DELTA);
+        Assert.assertEquals(4, invocations.get());
+    }
+
+    @Test
+    public void rate_should_be_interpolated_from_lookup_table_for_periodic_rate_generator() {
+        // GIVEN
+        SineRateGenerator sine = new SineRateGenerator(10, 50, 100);
+
+        // WHEN
+        SampledRateGenerator sampled = new SampledRateGenerator(sine, 1, TimeUnit.MILLISECONDS, true);
+
+        // THEN
+        Assert.assertTrue(sampled.hasLookupTable());
+        for (long millis = 0; millis < 25_000; millis += 37) {
+            long time = TimeUnit.MILLISECONDS.toNanos(millis) + 123_456;
+            Assert.assertEquals(sine.getRate(time), sampled.getRate(time), 0.01);
+        }
+    }
+
+    @Test
+    public void lookup_table_should_not_be_used_when_period_has_too_many_intervals() {
+        // GIVEN
+        SineRateGenerator sine = new SineRateGenerator(TimeUnit.DAYS.toSeconds(1), 50, 100);
+
+        // WHEN
+        SampledRateGenerator sampled = new SampledRateGenerator(sine, 1, TimeUnit.MILLISECONDS, true);
+
+        // THEN
+        Assert.assertFalse(sampled.hasLookupTable());
+        Assert.assertEquals(sine.getRate(TimeUnit.HOURS.toNanos(6)), sampled.getRate(TimeUnit.HOURS.toNanos(6)),
+                DELTA);
+    }
+}
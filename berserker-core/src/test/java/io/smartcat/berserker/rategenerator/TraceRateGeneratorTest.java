@@ -0,0 +1,71 @@
+package io.smartcat.berserker.rategenerator;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TraceRateGeneratorTest {
+
+    private static final double DELTA = 0.001d;
+
+    @Test
+    public void rate_should_be_interpolated_between_records_of_binary_trace() throws IOException {
+        // GIVEN
+        Path path = writeBinaryTrace(new long[] { 1000, 2000, 4000 }, new double[] { 10, 20, 0 });
+
+        // WHEN
+        TraceRateGenerator trace = new TraceRateGenerator(path, false);
+
+        // THEN
+        Assert.assertEquals(3, trace.getRecordCount());
+        Assert.assertEquals(10, trace.getRate(0), DELTA);
+        Assert.assertEquals(15, trace.getRate(TimeUnit.MILLISECONDS.toNanos(500)), DELTA);
+        Assert.assertEquals(20, trace.getRate(TimeUnit.MILLISECONDS.toNanos(1000)), DELTA);
+        Assert.assertEquals(5, trace.getRate(TimeUnit.MILLISECONDS.toNanos(2500)), DELTA);
+        Assert.assertEquals(0, trace.getRate(TimeUnit.SECONDS.toNanos(10)), DELTA);
+    }
+
+    @Test
+    public void looped_trace_should_start_over_once_its_end_is_reached() throws IOException {
+        // GIVEN
+        Path path = Files.createTempFile("trace", ".csv");
+        path.toFile().deleteOnExit();
+        Files.write(path, "time,rate\n0,100\n0.5,200\n1,100\n".getBytes());
+
+        // WHEN
+        TraceRateGenerator trace = new TraceRateGenerator(path, true);
+
+        // THEN
+        Assert.assertEquals(150, trace.getRate(TimeUnit.MILLISECONDS.toNanos(250)), DELTA);
+        Assert.assertEquals(150, trace.getRate(TimeUnit.MILLISECONDS.toNanos(1250)), DELTA);
+        Assert.assertEquals(200, trace.getRate(TimeUnit.MILLISECONDS.toNanos(7500)), DELTA);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void trace_with_records_out_of_order_should_be_rejected() throws IOException {
+        // GIVEN
+        Path path = writeBinaryTrace(new long[] { 2000, 1000 }, new double[] { 10, 20 });
+
+        // WHEN
+        new TraceRateGenerator(path, false);
+
+        // THEN exception is thrown
+    }
+
+    private static Path writeBinaryTrace(long[] times, double[] rates) throws IOException {
+        Path path = Files.createTempFile("trace", ".bin");
+        path.toFile().deleteOnExit();
+        try (DataOutputStream output = new DataOutputStream(Files.newOutputStream(path))) {
+            for (int i = 0; i < times.length; i++) {
+                output.writeLong(times[i]);
+                output.writeDouble(rates[i]);
+            }
+        }
+        return path;
+    }
+}
@@ -0,0 +1,233 @@
+package io.smartcat.berserker.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BrokenBarrierException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class ArrayEvictingBlockingQueueTest {
+
+    @Test(timeout = 500)
+    public void take_should_block_thread_until_element_is_available_in_queue() throws InterruptedException {
+        // GIVEN
+        ArrayEvictingBlockingQueue<Integer> queue = new ArrayEvictingBlockingQueue<>(16);
+        CountDownLatch countDownLatch = new CountDownLatch(1);
+        newStartedThread(() -> {
+            try {
+                countDownLatch.await();
+            } catch (InterruptedException e) {
+            }
+            queue.put(2);
+        });
+
+        // WHEN
+        countDownLatch.countDown();
+        int val = queue.take();
+
+        // THEN
+        Assert.assertEquals(2, val);
+    }
+
+    @Test(timeout = 2000)
+    public void should_not_take_value_from_queue_when_value_is_not_put() throws InterruptedException {
+        // GIVEN
+        ArrayEvictingBlockingQueue<Integer> queue = new ArrayEvictingBlockingQueue<>(16);
+        Thread takeFromQueueThread = newStartedThread(() -> {
+            try {
+                queue.take();
+            } catch (InterruptedException e) {
+            }
+        });
+
+        // THEN
+        Thread.sleep(1000);
+        Assert.assertTrue(takeFromQueueThread.isAlive());
+        takeFromQueueThread.interrupt();
+    }
+
+    @Test(timeout = 500)
+    public void put_should_drop_element_from_head_when_queue_is_full_and_dropFromHead_is_true()
+            throws InterruptedException {
+        // GIVEN
+        ArrayEvictingBlockingQueue<Integer> queue = new ArrayEvictingBlockingQueue<>(true, 2);
+        queue.put(1);
+        queue.put(2);
+
+        // WHEN
+        queue.put(3);
+
+        // THEN
+        Assert.assertEquals(new Integer(2), queue.take());
+        Assert.assertEquals(new Integer(3), queue.take());
+    }
+
+    @Test(timeout = 500)
+    public void put_should_drop_element_from_tail_when_queue_is_full_and_dropFromHead_is_false()
+            throws InterruptedException {
+        // GIVEN
+        ArrayEvictingBlockingQueue<Integer> queue = new ArrayEvictingBlockingQueue<>(false, 2);
+        queue.put(1);
+        queue.put(2);
+
+        // WHEN
+        queue.put(3);
+
+        // THEN
+        Assert.assertEquals(new Integer(1), queue.take());
+        Assert.assertEquals(new Integer(3), queue.take());
+    }
+
+    @Test(timeout = 500)
+    public void put_should_drop_element_from_head_when_queue_with_capacity_not_power_of_two_is_full()
+            throws InterruptedException {
+        // GIVEN
+        ArrayEvictingBlockingQueue<Integer> queue = new ArrayEvictingBlockingQueue<>(true, 3);
+        queue.put(1);
+        queue.put(2);
+        queue.put(3);
+
+        // WHEN
+        Integer dropped = queue.put(4);
+
+        // THEN
+        Assert.assertEquals(new Integer(1), dropped);
+        Assert.assertEquals(3, queue.size());
+        Assert.assertEquals(new Integer(2), queue.take());
+        Assert.assertEquals(new Integer(3), queue.take());
+        Assert.assertEquals(new Integer(4), queue.take());
+        Assert.assertNull(queue.poll());
+    }
+
+    @Test(timeout = 500)
+    public void offer_should_not_drop_element_when_queue_is_full() throws InterruptedException {
+        // GIVEN
+        ArrayEvictingBlockingQueue<Integer> queue = new ArrayEvictingBlockingQueue<>(true, 2);
+        queue.offer(1);
+        queue.offer(2);
+
+        // WHEN
+        boolean offered = queue.offer(3);
+
+        // THEN
+        Assert.assertFalse(offered);
+        Assert.assertEquals(new Integer(1), queue.take());
+        Assert.assertEquals(new Integer(2), queue.take());
+    }
+
+    @Test(timeout = 500)
+    public void poll_should_return_null_when_timeout_elapses_and_queue_is_empty() throws InterruptedException {
+        // GIVEN
+        ArrayEvictingBlockingQueue<Integer> queue = new ArrayEvictingBlockingQueue<>(4);
+
+        // WHEN
+        Integer val = queue.poll(50, TimeUnit.MILLISECONDS);
+
+        // THEN
+        Assert.assertNull(val);
+    }
+
+    @Test(timeout = 10000)
+    public void every_element_should_be_either_taken_or_dropped_when_multiple_producers_and_consumers_are_used()
+            throws InterruptedException {
+        // GIVEN
+        int numOfProducers = 4;
+        int numOfConsumers = 4;
+        int numOfElementsPerProducer = 100_000;
+        ArrayEvictingBlockingQueue<Long> queue = new ArrayEvictingBlockingQueue<>(true, 100);
+        AtomicLong putSum = new AtomicLong();
+        AtomicLong takenOrDroppedSum = new AtomicLong();
+        CountDownLatch producersDone = new CountDownLatch(numOfProducers);
+        List<Thread> consumers = new ArrayList<>();
+        for (int i = 0; i < numOfConsumers; i++) {
+            consumers.add(newStartedThread(() -> {
+                try {
+                    while (true) {
+                        takenOrDroppedSum.addAndGet(queue.take());
+                    }
+                } catch (InterruptedException e) {
+                }
+            }));
+        }
+
+        // WHEN
+        for (int i = 0; i < numOfProducers; i++) {
+            newStartedThread(() -> {
+                for (long j = 1; j <= numOfElementsPerProducer; j++) {
+                    putSum.addAndGet(j);
+                    Long dropped = queue.put(j);
+                    if (dropped != null) {
+                        takenOrDroppedSum.addAndGet(dropped);
+                    }
+                }
+                producersDone.countDown();
+            });
+        }
+        producersDone.await();
+        while (queue.size() > 0) {
+            Thread.sleep(10);
+        }
+        Thread.sleep(100);
+        consumers.forEach(Thread::interrupt);
+
+        // THEN
+        Assert.assertEquals(putSum.get(), takenOrDroppedSum.get());
+    }
+
+    @Test(timeout = 20000)
+    public void put_should_not_drop_element_when_consumer_made_room_concurrently() throws Exception {
+        // GIVEN
+        int rounds = 100_000;
+        ArrayEvictingBlockingQueue<Long> queue = new ArrayEvictingBlockingQueue<>(true, 2);
+        long[] dropped = new long[rounds];
+        long[] taken = new long[rounds];
+        AtomicLong next = new AtomicLong();
+        CyclicBarrier roundStart = new CyclicBarrier(2);
+        CyclicBarrier roundEnd = new CyclicBarrier(2);
+        Thread consumer = newStartedThread(() -> {
+            try {
+                for (int i = 0; i < rounds; i++) {
+                    roundStart.await();
+                    Long value;
+                    while ((value = queue.poll()) == null) {
+                        // spinning keeps take as close to concurrent put as possible
+                    }
+                    taken[i] = value;
+                    roundEnd.await();
+                }
+            } catch (InterruptedException | BrokenBarrierException e) {
+            }
+        });
+
+        // WHEN
+        for (int i = 0; i < rounds; i++) {
+            while (queue.offer(next.incrementAndGet())) {
+                // queue is filled up before each round
+            }
+            roundStart.await();
+            Long drop = queue.put(next.incrementAndGet());
+            dropped[i] = drop == null ? Long.MAX_VALUE : drop;
+            roundEnd.await();
+        }
+        consumer.join();
+
+        // THEN
+        // put may drop only while queue is full, in which case it drops element consumer would otherwise take
+        for (int i = 0; i < rounds; i++) {
+            Assert.assertTrue("Round " + i + " dropped " + dropped[i] + " after " + taken[i] + " was taken.",
+                    dropped[i] == Long.MAX_VALUE || dropped[i] < taken[i]);
+        }
+    }
+
+    private Thread newStartedThread(Runnable r) {
+        Thread t = new Thread(r);
+        t.setDaemon(true);
+        t.start();
+        return t;
+    }
+}
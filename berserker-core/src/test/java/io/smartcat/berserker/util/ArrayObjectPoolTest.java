@@ -0,0 +1,72 @@
+package io.smartcat.berserker.util;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class ArrayObjectPoolTest {
+
+    @Test(timeout = 500)
+    public void offer_should_not_keep_object_when_pool_is_full() {
+        // GIVEN
+        ArrayObjectPool<Integer> pool = new ArrayObjectPool<>(2);
+        pool.offer(1);
+        pool.offer(2);
+
+        // WHEN
+        boolean offered = pool.offer(3);
+
+        // THEN
+        Assert.assertFalse(offered);
+        Assert.assertEquals(new Integer(1), pool.poll());
+        Assert.assertEquals(new Integer(2), pool.poll());
+        Assert.assertNull(pool.poll());
+    }
+
+    @Test(timeout = 10000)
+    public void every_object_should_be_kept_once_when_multiple_threads_poll_and_offer() throws InterruptedException {
+        // GIVEN
+        int numOfThreads = 8;
+        int numOfObjects = 64;
+        ArrayObjectPool<Integer> pool = new ArrayObjectPool<>(numOfObjects);
+        for (int i = 0; i < numOfObjects; i++) {
+            pool.offer(i);
+        }
+        CountDownLatch done = new CountDownLatch(numOfThreads);
+        AtomicInteger rejected = new AtomicInteger();
+
+        // WHEN
+        for (int i = 0; i < numOfThreads; i++) {
+            newStartedThread(() -> {
+                for (int j = 0; j < 200_000; j++) {
+                    Integer object = pool.poll();
+                    if (object != null && !pool.offer(object)) {
+                        rejected.incrementAndGet();
+                    }
+                }
+                done.countDown();
+            });
+        }
+        done.await();
+
+        // THEN
+        Assert.assertEquals(0, rejected.get());
+        Set<Integer> objects = new HashSet<>();
+        Integer object;
+        while ((object = pool.poll()) != null) {
+            Assert.assertTrue(objects.add(object));
+        }
+        Assert.assertEquals(numOfObjects, objects.size());
+    }
+
+    private Thread newStartedThread(Runnable r) {
+        Thread t = new Thread(r);
+        t.setDaemon(true);
+        t.start();
+        return t;
+    }
+}
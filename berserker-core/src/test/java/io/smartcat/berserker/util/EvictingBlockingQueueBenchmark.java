@@ -0,0 +1,101 @@
+package io.smartcat.berserker.util;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Compares {@link LinkedEvictingBlockingQueue} and {@link ArrayEvictingBlockingQueue} with one producer and several
+ * consumers, which is how {@link io.smartcat.berserker.worker.InternalWorker InternalWorker} uses the queue. Run
+ * <code>org.openjdk.jmh.Main EvictingBlockingQueueBenchmark</code> with test classpath of <code>berserker-core</code>
+ * after <code>mvn test-compile</code>, or {@link #main(String[])} from the IDE.
+ */
+@State(Scope.Group)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EvictingBlockingQueueBenchmark {
+
+    private static final Integer ELEMENT = 1;
+
+    @Param({ "linked", "array" })
+    private String implementation;
+
+    @Param({ "1024" })
+    private int capacity;
+
+    private EvictingBlockingQueue<Integer> queue;
+
+    /**
+     * Creates queue under test.
+     */
+    @Setup
+    public void setUp() {
+        queue = "linked".equals(implementation) ? new LinkedEvictingBlockingQueue<>(true, capacity)
+                : new ArrayEvictingBlockingQueue<>(true, capacity);
+    }
+
+    /**
+     * Puts element into the queue.
+     *
+     * @return Dropped element.
+     */
+    @Benchmark
+    @Group("putTake")
+    @GroupThreads(1)
+    public Integer put() {
+        return queue.put(ELEMENT);
+    }
+
+    /**
+     * Takes element from the queue, giving up after a millisecond so benchmark can finish once producer is stopped.
+     *
+     * @return Taken element.
+     * @throws InterruptedException If interrupted while waiting.
+     */
+    @Benchmark
+    @Group("putTake")
+    @GroupThreads(8)
+    public Integer take() throws InterruptedException {
+        return queue.poll(1, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Reads size of the queue, as queue size gauge does.
+     *
+     * @return Size of the queue.
+     */
+    @Benchmark
+    @Group("putTake")
+    @GroupThreads(1)
+    public int size() {
+        return queue.size();
+    }
+
+    /**
+     * Runs the benchmark.
+     *
+     * @param args Command line arguments, ignored.
+     * @throws RunnerException If benchmark fails.
+     */
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(EvictingBlockingQueueBenchmark.class.getSimpleName()).build()).run();
+    }
+}
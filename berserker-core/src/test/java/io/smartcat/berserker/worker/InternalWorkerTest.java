@@ -1,12 +1,19 @@
 package io.smartcat.berserker.worker;
 
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import org.junit.Assert;
 import org.junit.Test;
 
+import com.codahale.metrics.Histogram;
+
 import io.smartcat.berserker.LoadGenerator;
+import io.smartcat.berserker.api.BatchWorker;
 import io.smartcat.berserker.api.DataSource;
 import io.smartcat.berserker.api.RateGenerator;
 import io.smartcat.berserker.api.Worker;
@@ -170,4 +177,341 @@ public class InternalWorkerTest {
         // Values that are processed should be: 1, 2, 3, 4, 5, 9. Total of 24.
         Assert.assertEquals(24, delegateInvokeCount.get());
     }
+
+    /**
+     * Message is accepted with intended time one second in the past, which simulates stalled dispatch. Response time
+     * is measured from submission and should not contain the stall, while corrected response time is measured from
+     * intended time and should contain it.
+     */
+    @Test(timeout = 3000)
+    public void corrected_response_time_should_be_measured_from_intended_time() throws Exception {
+        // GIVEN
+        CountDownLatch countDownLatch = new CountDownLatch(1);
+        Worker<Integer> delegate = (x, commitSuccess, commitFailure) -> {
+            commitSuccess.run();
+            countDownLatch.countDown();
+        };
+        InternalWorker<Integer> w = new InternalWorker<>(delegate, 4, true, null, 1);
+        long stallInNanos = TimeUnit.SECONDS.toNanos(1);
+
+        // WHEN
+        w.accept(1, System.nanoTime() - stallInNanos);
+        countDownLatch.await();
+        w.close();
+
+        // THEN
+        Histogram responseTime = w.getMetricRegistry().getHistograms().get("io.smartcat.berserker.totalResponseTime");
+        Histogram correctedResponseTime = w.getMetricRegistry().getHistograms()
+                .get("io.smartcat.berserker.correctedTotalResponseTime");
+        Assert.assertEquals(1, correctedResponseTime.getCount());
+        Assert.assertTrue(responseTime.getSnapshot().getMax() < stallInNanos);
+        Assert.assertTrue(correctedResponseTime.getSnapshot().getMax() >= stallInNanos);
+    }
+
+    @Test(timeout = 3000)
+    public void callback_should_be_invoked_once_message_is_committed_or_dropped() throws Exception {
+        // GIVEN
+        CountDownLatch blocked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Worker<Integer> delegate = (x, commitSuccess, commitFailure) -> {
+            blocked.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException ignored) {
+            }
+            commitSuccess.run();
+        };
+        InternalWorker<Integer> w = new InternalWorker<>(delegate, 1, true, null, 1);
+        List<Integer> done = new CopyOnWriteArrayList<>();
+        CountDownLatch allDone = new CountDownLatch(3);
+
+        // WHEN
+        w.accept(1, System.nanoTime(), () -> {
+            done.add(1);
+            allDone.countDown();
+        });
+        blocked.await();
+        w.accept(2, System.nanoTime(), () -> {
+            done.add(2);
+            allDone.countDown();
+        });
+        w.accept(3, System.nanoTime(), () -> {
+            done.add(3);
+            allDone.countDown();
+        });
+        release.countDown();
+        allDone.await();
+        w.close();
+
+        // THEN
+        // message 2 is dropped from head of the queue when message 3 arrives, so its callback comes first
+        Assert.assertEquals(Arrays.asList(2, 1, 3), done);
+    }
+
+    /**
+     * InternalWorker has 2 threads, each with its own queue which is filled in round-robin fashion. Thread which takes
+     * value 0 is blocked until the end of the test, so values put into its queue can only be processed if the other
+     * thread steals them.
+     */
+    @Test(timeout = 3000)
+    public void idle_thread_should_steal_messages_from_queue_of_blocked_thread_when_queue_mode_is_round_robin()
+            throws Exception {
+        // GIVEN
+        CountDownLatch blockedLatch = new CountDownLatch(1);
+        CountDownLatch processedLatch = new CountDownLatch(9);
+        AtomicInteger delegateInvokeCount = new AtomicInteger();
+        Worker<Integer> delegate = (x, commitSuccess, commitFailure) -> {
+            if (x == 0) {
+                try {
+                    blockedLatch.await();
+                } catch (InterruptedException ignored) {
+                }
+                return;
+            }
+            delegateInvokeCount.addAndGet(x);
+            commitSuccess.run();
+            processedLatch.countDown();
+        };
+        InternalWorker<Integer> w = new InternalWorker<>(delegate, 20, true, null, 2, QueueMode.ROUND_ROBIN);
+
+        // WHEN
+        w.accept(0);
+        Thread.sleep(100);
+        for (int i = 1; i < 10; i++) {
+            w.accept(i);
+        }
+        processedLatch.await();
+        blockedLatch.countDown();
+        w.close();
+
+        // THEN
+        Assert.assertEquals(45, delegateInvokeCount.get());
+        Assert.assertEquals(0, w.getMetricRegistry().getGauges().get("io.smartcat.berserker.queueSize").getValue());
+    }
+
+    /**
+     * Envelopes are recycled once message is committed. Delegate invokes both callbacks several times for each message,
+     * but only the first invocation should be counted, and recycled envelopes should not carry over state of previous
+     * messages.
+     */
+    @Test(timeout = 3000)
+    public void only_first_callback_invocation_should_be_counted_when_envelopes_are_recycled() throws Exception {
+        // GIVEN
+        int numOfMessages = 1000;
+        CountDownLatch countDownLatch = new CountDownLatch(numOfMessages);
+        AtomicInteger delegateInvokeCount = new AtomicInteger();
+        Worker<Integer> delegate = (x, commitSuccess, commitFailure) -> {
+            delegateInvokeCount.addAndGet(x);
+            commitSuccess.run();
+            commitSuccess.run();
+            commitFailure.run();
+            countDownLatch.countDown();
+        };
+        InternalWorker<Integer> w = new InternalWorker<>(delegate, 10_000, true, null, 2);
+
+        // WHEN
+        for (int i = 1; i <= numOfMessages; i++) {
+            w.accept(i);
+        }
+        countDownLatch.await();
+        w.close();
+
+        // THEN
+        Assert.assertEquals(numOfMessages * (numOfMessages + 1) / 2, delegateInvokeCount.get());
+        Assert.assertEquals(numOfMessages,
+                w.getMetricRegistry().getMeters().get("io.smartcat.berserker.successProcessedThroughput").getCount());
+        Assert.assertEquals(0,
+                w.getMetricRegistry().getMeters().get("io.smartcat.berserker.failureProcessedThroughput").getCount());
+    }
+
+    /**
+     * InternalWorker has 1 thread and batch size of 4. Thread is blocked on the first message until 8 more messages are
+     * queued, after which they should be passed to delegate in two batches of 4 messages.
+     */
+    @Test(timeout = 3000)
+    public void queued_messages_should_be_passed_to_batch_worker_in_batches_of_batch_size() throws Exception {
+        // GIVEN
+        CountDownLatch blockedLatch = new CountDownLatch(1);
+        CountDownLatch processedLatch = new CountDownLatch(9);
+        AtomicInteger delegateInvokeCount = new AtomicInteger();
+        List<Integer> batchSizes = new CopyOnWriteArrayList<>();
+        BatchWorker<Integer> delegate = new BatchWorker<Integer>() {
+
+            @Override
+            public void accept(Integer message, Runnable commitSuccess, Runnable commitFailure) {
+                throw new IllegalStateException("Batch worker should receive messages in batches.");
+            }
+
+            @Override
+            public void accept(List<Integer> messages, List<Runnable> commitSuccesses, List<Runnable> commitFailures) {
+                try {
+                    blockedLatch.await();
+                } catch (InterruptedException ignored) {
+                }
+                batchSizes.add(messages.size());
+                for (int i = 0; i < messages.size(); i++) {
+                    delegateInvokeCount.addAndGet(messages.get(i));
+                    commitSuccesses.get(i).run();
+                    processedLatch.countDown();
+                }
+            }
+        };
+        InternalWorker<Integer> w = new InternalWorker<>(delegate, 100, true, null, 1, QueueMode.SHARED, 4);
+
+        // WHEN
+        w.accept(0);
+        Thread.sleep(100);
+        for (int i = 1; i < 9; i++) {
+            w.accept(i);
+        }
+        blockedLatch.countDown();
+        processedLatch.await();
+        w.close();
+
+        // THEN
+        Assert.assertEquals(36, delegateInvokeCount.get());
+        Assert.assertEquals(Arrays.asList(1, 4, 4), batchSizes);
+        Assert.assertEquals(9,
+                w.getMetricRegistry().getMeters().get("io.smartcat.berserker.successProcessedThroughput").getCount());
+    }
+
+    /**
+     * Delegate is asynchronous and commits messages only when test does so. InternalWorker has 4 threads and allows 2
+     * messages in flight, so delegate should receive only 2 messages until those are committed.
+     */
+    @Test(timeout = 3000)
+    public void delegate_should_not_receive_more_than_max_in_flight_uncommitted_messages() throws Exception {
+        // GIVEN
+        List<Runnable> pendingCommits = new CopyOnWriteArrayList<>();
+        AtomicInteger delegateInvokeCount = new AtomicInteger();
+        Worker<Integer> delegate = (x, commitSuccess, commitFailure) -> {
+            delegateInvokeCount.incrementAndGet();
+            pendingCommits.add(commitSuccess);
+        };
+        InternalWorker<Integer> w = new InternalWorker<>(delegate, 100, true, null, 4, QueueMode.SHARED, 1, 2);
+
+        // WHEN
+        for (int i = 0; i < 4; i++) {
+            w.accept(i);
+        }
+        Thread.sleep(200);
+
+        // THEN
+        Assert.assertEquals(2, delegateInvokeCount.get());
+        Assert.assertEquals(2, w.getMetricRegistry().getGauges().get("io.smartcat.berserker.inFlight").getValue());
+
+        // WHEN
+        pendingCommits.forEach(Runnable::run);
+        Thread.sleep(200);
+        w.close();
+
+        // THEN
+        Assert.assertEquals(4, delegateInvokeCount.get());
+        Assert.assertEquals(2, w.getMetricRegistry().getHistograms().get("io.smartcat.berserker.inFlightWaitTime")
+                .getCount());
+    }
+
+    /**
+     * Batch worker commits only the first message of each batch and then throws. Remaining messages should be counted
+     * as failures, so in-flight window of 2 messages is not shrunk and all messages reach delegate.
+     */
+    @Test(timeout = 3000)
+    public void messages_of_failed_batch_should_leave_in_flight_window() throws Exception {
+        // GIVEN
+        int numOfMessages = 10;
+        CountDownLatch processedLatch = new CountDownLatch(numOfMessages);
+        BatchWorker<Integer> delegate = new BatchWorker<Integer>() {
+
+            @Override
+            public void accept(Integer message, Runnable commitSuccess, Runnable commitFailure) {
+                throw new IllegalStateException("Batch worker should receive messages in batches.");
+            }
+
+            @Override
+            public void accept(List<Integer> messages, List<Runnable> commitSuccesses, List<Runnable> commitFailures) {
+                messages.forEach(x -> processedLatch.countDown());
+                commitSuccesses.get(0).run();
+                throw new IllegalStateException("Batch failed.");
+            }
+        };
+        InternalWorker<Integer> w = new InternalWorker<>(delegate, 100, true, null, 1, QueueMode.SHARED, 2, 2);
+
+        // WHEN
+        for (int i = 0; i < numOfMessages; i++) {
+            w.accept(i);
+        }
+        processedLatch.await();
+        Thread.sleep(100);
+        w.close();
+
+        // THEN
+        Assert.assertEquals(numOfMessages,
+                w.getMetricRegistry().getMeters().get("io.smartcat.berserker.totalProcessedThroughput").getCount());
+        Assert.assertEquals(0, w.getMetricRegistry().getGauges().get("io.smartcat.berserker.inFlight").getValue());
+    }
+
+    /**
+     * Delegate throws on the first message and invokes its callback only while processing the second message, which
+     * reuses envelope of the first one. Late callback should not complete the second message.
+     */
+    @Test(timeout = 3000)
+    public void late_callback_should_be_ignored_when_envelope_is_reused() throws Exception {
+        // GIVEN
+        List<Runnable> lateCallbacks = new CopyOnWriteArrayList<>();
+        CountDownLatch processedLatch = new CountDownLatch(2);
+        Worker<Integer> delegate = (x, commitSuccess, commitFailure) -> {
+            if (x == 0) {
+                lateCallbacks.add(commitSuccess);
+                processedLatch.countDown();
+                throw new IllegalStateException("Message failed.");
+            }
+            lateCallbacks.forEach(Runnable::run);
+            commitFailure.run();
+            processedLatch.countDown();
+        };
+        InternalWorker<Integer> w = new InternalWorker<>(delegate, 100, true, null, 1);
+        AtomicInteger onDoneCount = new AtomicInteger();
+
+        // WHEN
+        w.accept(0, System.nanoTime(), onDoneCount::incrementAndGet);
+        Thread.sleep(100);
+        w.accept(1, System.nanoTime(), onDoneCount::incrementAndGet);
+        processedLatch.await();
+        Thread.sleep(100);
+        w.close();
+
+        // THEN
+        Assert.assertEquals(2, onDoneCount.get());
+        Assert.assertEquals(0,
+                w.getMetricRegistry().getMeters().get("io.smartcat.berserker.successProcessedThroughput").getCount());
+        Assert.assertEquals(2,
+                w.getMetricRegistry().getMeters().get("io.smartcat.berserker.failureProcessedThroughput").getCount());
+    }
+
+    @Test
+    public void callbacks_should_be_reused_unless_delegate_threw() throws Exception {
+        // GIVEN
+        List<Runnable> callbacks = new CopyOnWriteArrayList<>();
+        Worker<Integer> delegate = (x, commitSuccess, commitFailure) -> {
+            callbacks.add(commitSuccess);
+            if (x == 2) {
+                throw new IllegalStateException("Message failed.");
+            }
+            commitSuccess.run();
+        };
+        InternalWorker<Integer> w = new InternalWorker<>(delegate, 100, true, null, 1);
+
+        // WHEN
+        for (int i = 0; i < 4; i++) {
+            w.accept(i, System.nanoTime());
+            Thread.sleep(100);
+        }
+        w.close();
+
+        // THEN
+        Assert.assertEquals(4, callbacks.size());
+        Assert.assertSame(callbacks.get(0), callbacks.get(1));
+        Assert.assertSame(callbacks.get(1), callbacks.get(2));
+        Assert.assertNotSame(callbacks.get(2), callbacks.get(3));
+    }
 }
@@ -1,5 +1,6 @@
 package io.smartcat.berserker.http.worker;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
@@ -8,12 +9,12 @@ import java.util.Map;
 import static org.asynchttpclient.Dsl.*;
 
 import org.asynchttpclient.*;
-import io.smartcat.berserker.api.Worker;
+import io.smartcat.berserker.api.BatchWorker;
 
 /**
  * Worker that sends HTTP requests to HTTP server.
  */
-public class HttpWorker implements Worker<Map<String, Object>> {
+public class HttpWorker implements BatchWorker<Map<String, Object>> {
 
     private static final String URL = "url";
     private static final String URL_SUFIX = "url-sufix";
@@ -94,6 +95,50 @@ public class HttpWorker implements Worker<Map<String, Object>> {
      */
     @Override
     public void accept(Map<String, Object> requestMetadata, Runnable commitSuccess, Runnable commitFailure) {
+        ListenableFuture<Response> responseFuture = execute(requestMetadata, commitSuccess, commitFailure);
+        if (!async) {
+            try {
+                responseFuture.get();
+            } catch (Exception e) {
+                throw new RuntimeException(e);
+            }
+        }
+    }
+
+    /**
+     * Sends all requests and, if worker is synchronous, waits for all responses, so requests within the batch are in
+     * flight concurrently. Request arguments are the same as for {@link #accept(Map, Runnable, Runnable)}. Invalid
+     * request metadata fails only corresponding request.
+     */
+    @Override
+    public void accept(List<Map<String, Object>> requestsMetadata, List<Runnable> commitSuccesses,
+            List<Runnable> commitFailures) {
+        List<ListenableFuture<Response>> responseFutures = new ArrayList<>(requestsMetadata.size());
+        RuntimeException error = null;
+        for (int i = 0; i < requestsMetadata.size(); i++) {
+            try {
+                responseFutures.add(execute(requestsMetadata.get(i), commitSuccesses.get(i), commitFailures.get(i)));
+            } catch (RuntimeException e) {
+                commitFailures.get(i).run();
+                error = error == null ? e : error;
+            }
+        }
+        if (!async) {
+            for (ListenableFuture<Response> responseFuture : responseFutures) {
+                try {
+                    responseFuture.get();
+                } catch (Exception e) {
+                    error = error == null ? new RuntimeException(e) : error;
+                }
+            }
+        }
+        if (error != null) {
+            throw error;
+        }
+    }
+
+    private ListenableFuture<Response> execute(Map<String, Object> requestMetadata, Runnable commitSuccess,
+            Runnable commitFailure) {
         String url = (String) requestMetadata.get(URL);
         String urlSufix = (String) requestMetadata.get(URL_SUFIX);
         Map<String, String> requestHeaders = getHeaders(requestMetadata);
@@ -103,7 +148,7 @@ public class HttpWorker implements Worker<Map<String, Object>> {
         String calculatedUrl = getCalculatedUrl(url, urlSufix);
         Map<String, String> calculatedHeaders = getCalculatedHeaders(requestHeaders);
 
-        ListenableFuture<Response> responseFuture = asyncHttpClient.executeRequest(
+        return asyncHttpClient.executeRequest(
                 createRequest(methodType, calculatedUrl, calculatedHeaders, body),
                 new AsyncCompletionHandler<Response>() {
                     @Override
@@ -121,13 +166,6 @@ public class HttpWorker implements Worker<Map<String, Object>> {
                         commitFailure.run();
                     }
                 });
-        if (!async) {
-            try {
-                responseFuture.get();
-            } catch (Exception e) {
-                throw new RuntimeException(e);
-            }
-        }
     }
 
     @SuppressWarnings("unchecked")
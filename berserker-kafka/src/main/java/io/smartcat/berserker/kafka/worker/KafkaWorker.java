@@ -1,17 +1,19 @@
 package io.smartcat.berserker.kafka.worker;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.Future;
 
 import org.apache.kafka.clients.producer.*;
 import org.apache.kafka.common.serialization.StringSerializer;
 
-import io.smartcat.berserker.api.Worker;
+import io.smartcat.berserker.api.BatchWorker;
 
 /**
  * Worker that publishes accepted message to Kafka cluster.
  */
-public class KafkaWorker implements Worker<Map<String, Object>>, AutoCloseable {
+public class KafkaWorker implements BatchWorker<Map<String, Object>>, AutoCloseable {
 
     private static final String KEY = "key";
     private static final String VALUE = "value";
@@ -52,6 +54,54 @@ public class KafkaWorker implements Worker<Map<String, Object>>, AutoCloseable {
      */
     @Override
     public void accept(Map<String, Object> message, Runnable commitSuccess, Runnable commitFailure) {
+        Future<RecordMetadata> futureResponse = send(message, commitSuccess, commitFailure);
+        if (!async) {
+            try {
+                futureResponse.get();
+            } catch (Exception e) {
+                throw new RuntimeException(e);
+            }
+        }
+    }
+
+    /**
+     * Sends all messages and, if worker is synchronous, waits for all of them to be acknowledged, so producer can put
+     * them into the same request. Message arguments are the same as for {@link #accept(Map, Runnable, Runnable)}.
+     * Invalid message fails only itself.
+     */
+    @Override
+    public void accept(List<Map<String, Object>> messages, List<Runnable> commitSuccesses,
+            List<Runnable> commitFailures) {
+        List<Future<RecordMetadata>> futureResponses = new ArrayList<>(messages.size());
+        RuntimeException error = null;
+        for (int i = 0; i < messages.size(); i++) {
+            try {
+                futureResponses.add(send(messages.get(i), commitSuccesses.get(i), commitFailures.get(i)));
+            } catch (RuntimeException e) {
+                commitFailures.get(i).run();
+                error = error == null ? e : error;
+            }
+        }
+        if (!async) {
+            for (Future<RecordMetadata> futureResponse : futureResponses) {
+                try {
+                    futureResponse.get();
+                } catch (Exception e) {
+                    error = error == null ? new RuntimeException(e) : error;
+                }
+            }
+        }
+        if (error != null) {
+            throw error;
+        }
+    }
+
+    @Override
+    public void close() {
+        producer.close();
+    }
+
+    private Future<RecordMetadata> send(Map<String, Object> message, Runnable commitSuccess, Runnable commitFailure) {
         String key = (String) message.get(KEY);
         String value = (String) message.get(VALUE);
         if (value == null) {
@@ -60,25 +110,13 @@ public class KafkaWorker implements Worker<Map<String, Object>>, AutoCloseable {
         String messageLevelTopic = (String) message.get(TOPIC);
         String calculatedTopic = getCalculatedTopic(messageLevelTopic);
         ProducerRecord<String, String> record = new ProducerRecord<>(calculatedTopic, key, value);
-        Future<RecordMetadata> futureResponse = producer.send(record, (metadata, exception) -> {
+        return producer.send(record, (metadata, exception) -> {
             if (exception == null) {
                 commitSuccess.run();
             } else {
                 commitFailure.run();
             }
         });
-        if (!async) {
-            try {
-                futureResponse.get();
-            } catch (Exception e) {
-                throw new RuntimeException(e);
-            }
-        }
-    }
-
-    @Override
-    public void close() {
-        producer.close();
     }
 
     private void init() {
@@ -1,14 +1,27 @@
 package io.smartcat.berserker.runner;
 
+import static io.smartcat.berserker.configuration.ConfigurationHelper.deepCopy;
+import static io.smartcat.berserker.configuration.ConfigurationHelper.getMandatoryValue;
+
 import java.io.File;
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.file.Paths;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+import java.util.function.IntFunction;
+import java.util.function.Supplier;
 
 import io.smartcat.berserker.worker.InternalWorker;
+import io.smartcat.berserker.worker.QueueMode;
 import org.apache.commons.cli.CommandLine;
 import org.apache.commons.cli.CommandLineParser;
 import org.apache.commons.cli.DefaultParser;
@@ -17,13 +30,23 @@ import org.apache.commons.cli.Option;
 import org.apache.commons.cli.Options;
 import org.apache.commons.cli.ParseException;
 import org.reflections.Reflections;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
+import com.codahale.metrics.Gauge;
 import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Reporter;
+import com.codahale.metrics.Reservoir;
+import com.codahale.metrics.ScheduledReporter;
 
 import io.smartcat.berserker.LoadGenerator;
+import io.smartcat.berserker.VirtualUserLoadGenerator;
 import io.smartcat.berserker.api.DataSource;
 import io.smartcat.berserker.api.RateGenerator;
 import io.smartcat.berserker.api.Worker;
+import io.smartcat.berserker.arrival.ArrivalProcess;
+import io.smartcat.berserker.arrival.OnOffArrivalProcess;
+import io.smartcat.berserker.arrival.PoissonArrivalProcess;
 import io.smartcat.berserker.configuration.BaseConfiguration;
 import io.smartcat.berserker.configuration.ConfigurationParseException;
 import io.smartcat.berserker.configuration.DataSourceConfiguration;
@@ -33,6 +56,20 @@ import io.smartcat.berserker.configuration.MetricsReporterConfiguration;
 import io.smartcat.berserker.configuration.RateGeneratorConfiguration;
 import io.smartcat.berserker.configuration.WorkerConfiguration;
 import io.smartcat.berserker.configuration.YamlConfigurationLoader;
+import io.smartcat.berserker.datasource.BufferedDataSource;
+import io.smartcat.berserker.datasource.CorpusDataSource;
+import io.smartcat.berserker.datasource.RecordCodec;
+import io.smartcat.berserker.metrics.HdrHistogramReservoir;
+import io.smartcat.berserker.metrics.RunSummary;
+import io.smartcat.berserker.pacing.BusySpinPacingStrategy;
+import io.smartcat.berserker.pacing.PacingStrategy;
+import io.smartcat.berserker.pacing.SpinThenParkPacingStrategy;
+import io.smartcat.berserker.pacing.SpinThenYieldPacingStrategy;
+import io.smartcat.berserker.rategenerator.AdaptiveRateGenerator;
+import io.smartcat.berserker.thinktime.ConstantThinkTime;
+import io.smartcat.berserker.thinktime.ExponentialThinkTime;
+import io.smartcat.berserker.thinktime.ThinkTime;
+import io.smartcat.berserker.thinktime.UniformThinkTime;
 
 /**
  * Runner which takes configuration file, constructs {@link LoadGenerator} with depending {@link DataSource},
@@ -40,9 +77,13 @@ import io.smartcat.berserker.configuration.YamlConfigurationLoader;
  */
 public class LoadGeneratorRunner {
 
+    private static final Logger LOGGER = LoggerFactory.getLogger(LoadGeneratorRunner.class);
     private static final String BERSERKER_BASE_PACKAGE = "io.smartcat.berserker";
     private static final String CONFIG_SHORT = "c";
     private static final String CONFIG_LONG = "config";
+    private static final int DEFAULT_PREFETCH_BUFFER_SIZE = 1024;
+    private static final double PREFETCH_INITIAL_BUFFER_FULLNESS = 0.75;
+    private static final String DATA_SOURCE_BUFFER_FILL_LEVEL = "dataSourceBufferFillLevel";
 
     private LoadGeneratorRunner() {
     }
@@ -78,18 +119,76 @@ public class LoadGeneratorRunner {
         GlobalConfiguration configuration = configurationLoader.loadConfig(getURL(configFilePath));
         LoadGeneratorConfiguration loadGeneratorConfiguration = configuration.loadGeneratorConfiguration;
         loadGeneratorConfiguration.validate();
-        DataSource dataSource = getDataSource(loadGeneratorConfiguration.dataSourceConfigurationName,
-                configuration.dataSourceConfiguration);
+        boolean closedModel = "closed".equals(loadGeneratorConfiguration.loadModel);
+        // virtual users are scheduled from a single thread, so they share one data source
+        List<DataSource> dataSources = getDataSources(loadGeneratorConfiguration.dataSourceConfigurationName,
+                configuration.dataSourceConfiguration, closedModel ? 1 : loadGeneratorConfiguration.dispatchThreadCount,
+                loadGeneratorConfiguration.prefetchThreadCount, loadGeneratorConfiguration.prefetchBufferSize,
+                loadGeneratorConfiguration.corpusSize);
         RateGenerator rateGenerator = getRateGenerator(loadGeneratorConfiguration.rateGeneratorConfigurationName,
                 configuration.rateGeneratorConfiguration);
         Worker workerDelegate = getWorker(loadGeneratorConfiguration.workerConfigurationName,
                 configuration.workerConfiguration);
         InternalWorker worker = wrapIntoInternalWorker(workerDelegate, loadGeneratorConfiguration.queueCapacity,
-                loadGeneratorConfiguration.threadCount, loadGeneratorConfiguration.metricsPrefix);
-        createAndStartReporter(worker.getMetricRegistry(), loadGeneratorConfiguration.metricsReporterConfigurationName,
-                configuration.metricsReporterConfiguration);
-        LoadGenerator loadGenerator = new LoadGenerator(dataSource, rateGenerator, worker);
+                loadGeneratorConfiguration.threadCount, loadGeneratorConfiguration.metricsPrefix,
+                getQueueMode(loadGeneratorConfiguration.queueMode), loadGeneratorConfiguration.batchSize,
+                loadGeneratorConfiguration.maxInFlight, getReservoirSupplier(loadGeneratorConfiguration));
+        Runnable loadGenerator;
+        if (closedModel) {
+            VirtualUserLoadGenerator virtualUserLoadGenerator = new VirtualUserLoadGenerator(dataSources.get(0),
+                    rateGenerator, worker, getThinkTime(loadGeneratorConfiguration),
+                    loadGeneratorConfiguration.metricsPrefix);
+            worker.getMetricRegistry().registerAll(virtualUserLoadGenerator.getMetricRegistry());
+            loadGenerator = virtualUserLoadGenerator::run;
+        } else {
+            LoadGenerator openLoadGenerator = new LoadGenerator(dataSources, rateGenerator, worker,
+                    getPacingStrategy(loadGeneratorConfiguration.pacingStrategy),
+                    loadGeneratorConfiguration.metricsPrefix, getArrivalProcessFactory(loadGeneratorConfiguration));
+            worker.getMetricRegistry().registerAll(openLoadGenerator.getMetricRegistry());
+            loadGenerator = openLoadGenerator::run;
+        }
+        registerBufferFillLevel(worker.getMetricRegistry(), loadGeneratorConfiguration.metricsPrefix, dataSources);
+        List<Reporter> reporters = createAndStartReporters(worker.getMetricRegistry(),
+                loadGeneratorConfiguration.metricsReporterConfigurationName, configuration);
+        Runnable reportersStopper = createReportersStopper(reporters);
+        if (rateGenerator instanceof AdaptiveRateGenerator) {
+            ((AdaptiveRateGenerator) rateGenerator).start(worker.getMetricRegistry(),
+                    loadGeneratorConfiguration.metricsPrefix);
+        }
+        Runnable summaryWriter = createAndStartSummary(worker.getMetricRegistry(), loadGeneratorConfiguration);
+        Runtime.getRuntime().addShutdownHook(new Thread(summaryWriter));
+        Runtime.getRuntime().addShutdownHook(new Thread(reportersStopper));
         loadGenerator.run();
+        reportersStopper.run();
+        if (rateGenerator instanceof AdaptiveRateGenerator) {
+            ((AdaptiveRateGenerator) rateGenerator).close();
+        }
+        for (DataSource dataSource : dataSources) {
+            if (dataSource instanceof BufferedDataSource) {
+                ((BufferedDataSource) dataSource).close();
+            }
+        }
+        summaryWriter.run();
+    }
+
+    private static Runnable createAndStartSummary(MetricRegistry metricRegistry,
+            LoadGeneratorConfiguration configuration) {
+        if (configuration.summaryPath == null || configuration.summaryPath.isEmpty()) {
+            return () -> { };
+        }
+        RunSummary summary = new RunSummary(metricRegistry, configuration.metricsPrefix,
+                Math.max(0, configuration.summarySegmentDuration), TimeUnit.SECONDS);
+        summary.start();
+        AtomicBoolean written = new AtomicBoolean(false);
+        return () -> {
+            if (written.compareAndSet(false, true)) {
+                try {
+                    summary.writeTo(Paths.get(configuration.summaryPath));
+                } catch (IOException e) {
+                    throw new UncheckedIOException("Could not write summary: " + configuration.summaryPath, e);
+                }
+            }
+        };
     }
 
     private static Options getOptions() {
@@ -106,10 +205,68 @@ public class LoadGeneratorRunner {
         return new File(path).getCanonicalFile().toURI().toURL();
     }
 
-    private static DataSource<?> getDataSource(String name, Map<String, Object> configuration)
-            throws InstantiationException, IllegalAccessException, ConfigurationParseException {
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    private static List<DataSource> getDataSources(String name, Map<String, Object> configuration, int count,
+            int prefetchThreadCount, int prefetchBufferSize, int corpusSize) throws ConfigurationParseException,
+            IOException {
         DataSourceConfiguration dataSourceConfiguration = getConfigurationWithName(name, DataSourceConfiguration.class);
-        return dataSourceConfiguration.getDataSource(configuration);
+        int bufferSize = prefetchBufferSize < 1 ? DEFAULT_PREFETCH_BUFFER_SIZE : prefetchBufferSize;
+        List<DataSource> result = new ArrayList<>();
+        CorpusDataSource sharedCorpus = null;
+        if (corpusSize > 0) {
+            Function<Object, byte[]> encoder = new RecordCodec()::encode;
+            Function<ByteBuffer, Object> decoder = new RecordCodec()::decode;
+            sharedCorpus = new CorpusDataSource(createDataSources(dataSourceConfiguration, configuration,
+                    Runtime.getRuntime().availableProcessors()), corpusSize, encoder, decoder);
+        }
+        int shards = Math.max(1, count);
+        for (int i = 0; i < shards; i++) {
+            if (corpusSize > 0) {
+                // corpus is generated once and each shard replays it from its own offset, with its own decoder since
+                // decoder reuses its buffer
+                Function<ByteBuffer, Object> decoder = new RecordCodec()::decode;
+                DataSource corpus = i == 0 ? sharedCorpus
+                        : sharedCorpus.newCursor(decoder, (int) ((long) i * sharedCorpus.getRecordCount() / shards));
+                // each shard replays corpus through a single instance, so records are decoded by a single prefetch
+                // thread
+                result.add(prefetchThreadCount < 1 ? corpus
+                        : new BufferedDataSource(corpus, bufferSize, PREFETCH_INITIAL_BUFFER_FULLNESS));
+            } else if (prefetchThreadCount < 1) {
+                result.add(createDataSources(dataSourceConfiguration, configuration, 1).get(0));
+            } else {
+                result.add(new BufferedDataSource(createDataSources(dataSourceConfiguration, configuration,
+                        prefetchThreadCount), bufferSize, PREFETCH_INITIAL_BUFFER_FULLNESS));
+            }
+        }
+        return result;
+    }
+
+    @SuppressWarnings("rawtypes")
+    private static List<DataSource> createDataSources(DataSourceConfiguration dataSourceConfiguration,
+            Map<String, Object> configuration, int count) throws ConfigurationParseException {
+        List<DataSource> result = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            // parsers are allowed to modify configuration, so each data source gets its own copy
+            result.add(dataSourceConfiguration.getDataSource(deepCopy(configuration)));
+        }
+        return result;
+    }
+
+    @SuppressWarnings("rawtypes")
+    private static void registerBufferFillLevel(MetricRegistry metricRegistry, String metricsPrefix,
+            List<DataSource> dataSources) {
+        List<BufferedDataSource> buffered = new ArrayList<>();
+        for (DataSource dataSource : dataSources) {
+            if (dataSource instanceof BufferedDataSource) {
+                buffered.add((BufferedDataSource) dataSource);
+            }
+        }
+        if (buffered.isEmpty()) {
+            return;
+        }
+        // dispatch thread stalls as soon as its own buffer is empty, so the emptiest buffer is reported
+        metricRegistry.register(MetricRegistry.name(metricsPrefix, DATA_SOURCE_BUFFER_FILL_LEVEL),
+                (Gauge<Double>) () -> buffered.stream().mapToDouble(BufferedDataSource::getFillLevel).min().orElse(0));
     }
 
     private static RateGenerator getRateGenerator(String name, Map<String, Object> configuration)
@@ -127,15 +284,126 @@ public class LoadGeneratorRunner {
 
     @SuppressWarnings({ "unchecked", "rawtypes" })
     private static InternalWorker wrapIntoInternalWorker(Worker workerDelegate, int queueCapacity, int threadCount,
-                                                         String metricsPrefix) {
-        return new InternalWorker(workerDelegate, queueCapacity, true, metricsPrefix, threadCount);
+                                                         String metricsPrefix, QueueMode queueMode, int batchSize,
+                                                         int maxInFlight, Supplier<Reservoir> reservoirSupplier) {
+        return new InternalWorker(workerDelegate, queueCapacity, true, metricsPrefix, threadCount,
+                new InternalWorker.DefaultThreadFactory(), queueMode, Math.max(1, batchSize), Math.max(0, maxInFlight),
+                reservoirSupplier);
+    }
+
+    private static Supplier<Reservoir> getReservoirSupplier(LoadGeneratorConfiguration configuration) {
+        long highestTrackableValue = configuration.histogramHighestTrackableValue > 0
+                ? configuration.histogramHighestTrackableValue : HdrHistogramReservoir.DEFAULT_HIGHEST_TRACKABLE_VALUE;
+        int significantDigits = configuration.histogramSignificantDigits > 0 ? configuration.histogramSignificantDigits
+                : HdrHistogramReservoir.DEFAULT_SIGNIFICANT_DIGITS;
+        long snapshotInterval = Math.max(0, configuration.histogramSnapshotInterval);
+        return () -> new HdrHistogramReservoir(highestTrackableValue, significantDigits, snapshotInterval,
+                TimeUnit.MILLISECONDS);
     }
 
-    private static void createAndStartReporter(MetricRegistry metricRegistry, String name,
+    private static QueueMode getQueueMode(String name) {
+        if (name == null || name.isEmpty()) {
+            return QueueMode.SHARED;
+        }
+        return QueueMode.valueOf(name.toUpperCase().replace('-', '_'));
+    }
+
+    private static PacingStrategy getPacingStrategy(String name) {
+        if (name == null || name.isEmpty()) {
+            return new BusySpinPacingStrategy();
+        }
+        switch (name) {
+            case "busy-spin":
+                return new BusySpinPacingStrategy();
+            case "spin-yield":
+                return new SpinThenYieldPacingStrategy();
+            case "spin-park":
+                return new SpinThenParkPacingStrategy();
+            default:
+                throw new RuntimeException("Pacing strategy with name: " + name + " not found.");
+        }
+    }
+
+    private static IntFunction<ArrivalProcess> getArrivalProcessFactory(LoadGeneratorConfiguration configuration) {
+        String name = configuration.arrivalProcess;
+        long seed = configuration.arrivalProcessSeed;
+        if (name == null || name.isEmpty()) {
+            return null;
+        }
+        switch (name) {
+            case "uniform":
+                return null;
+            case "poisson":
+                return shard -> new PoissonArrivalProcess(seed + shard);
+            case "on-off":
+                long on = configuration.burstOnDuration > 0 ? configuration.burstOnDuration : 100;
+                long off = configuration.burstOffDuration > 0 ? configuration.burstOffDuration : 900;
+                return shard -> new OnOffArrivalProcess(on, off, TimeUnit.MILLISECONDS, seed + shard);
+            default:
+                throw new RuntimeException("Arrival process with name: " + name + " not found.");
+        }
+    }
+
+    private static ThinkTime getThinkTime(LoadGeneratorConfiguration configuration) {
+        String name = configuration.thinkTimeDistribution;
+        long thinkTime = configuration.thinkTime;
+        long seed = configuration.arrivalProcessSeed;
+        if (name == null || name.isEmpty()) {
+            return new ConstantThinkTime(thinkTime, TimeUnit.MILLISECONDS);
+        }
+        switch (name) {
+            case "constant":
+                return new ConstantThinkTime(thinkTime, TimeUnit.MILLISECONDS);
+            case "uniform":
+                return new UniformThinkTime(thinkTime, TimeUnit.MILLISECONDS, seed);
+            case "exponential":
+                return new ExponentialThinkTime(thinkTime, TimeUnit.MILLISECONDS, seed);
+            default:
+                throw new RuntimeException("Think time distribution with name: " + name + " not found.");
+        }
+    }
+
+    private static List<Reporter> createAndStartReporters(MetricRegistry metricRegistry, String name,
+            GlobalConfiguration configuration) {
+        List<Reporter> reporters = new ArrayList<>();
+        if (name != null && !name.isEmpty()) {
+            reporters.add(createAndStartReporter(metricRegistry, name, configuration.metricsReporterConfiguration));
+        }
+        if (configuration.metricsReporterConfigurations != null) {
+            for (Map<String, Object> reporterConfiguration : configuration.metricsReporterConfigurations) {
+                reporters.add(createAndStartReporter(metricRegistry, getMandatoryValue(reporterConfiguration, "name"),
+                        reporterConfiguration));
+            }
+        }
+        return reporters;
+    }
+
+    private static Reporter createAndStartReporter(MetricRegistry metricRegistry, String name,
             Map<String, Object> configuration) {
         MetricsReporterConfiguration metricsReporterConfiguration = getConfigurationWithName(name,
                 MetricsReporterConfiguration.class);
-        metricsReporterConfiguration.createAndStartReporter(metricRegistry, configuration);
+        return metricsReporterConfiguration.createAndStartReporter(metricRegistry,
+                configuration == null ? new HashMap<>() : configuration);
+    }
+
+    private static Runnable createReportersStopper(List<Reporter> reporters) {
+        AtomicBoolean stopped = new AtomicBoolean(false);
+        return () -> {
+            if (!stopped.compareAndSet(false, true)) {
+                return;
+            }
+            for (Reporter reporter : reporters) {
+                try {
+                    // scheduled reporters would otherwise lose everything since their last period
+                    if (reporter instanceof ScheduledReporter) {
+                        ((ScheduledReporter) reporter).report();
+                    }
+                    reporter.close();
+                } catch (IOException | RuntimeException e) {
+                    LOGGER.warn("Error while stopping reporter.", e);
+                }
+            }
+        };
     }
 
     private static <T extends BaseConfiguration> T getConfigurationWithName(String name, Class<T> clazz) {